@@ -57,7 +57,7 @@ public class OracleApplication {
 		jobCache.run();
 		OracleClient.init();
 
-		ReSender reSender = new ReSender(JobSubscriber.jobRunner.tronTxService);
+		ReSender reSender = context.getBean(ReSender.class);
 		reSender.run();
 		log.info("==================Wink Link start success================");
 	}
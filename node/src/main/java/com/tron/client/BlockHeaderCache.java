@@ -0,0 +1,159 @@
+package com.tron.client;
+
+import static com.tron.common.Constant.FULLNODE_HOST;
+
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
+import com.tron.common.Config;
+import com.tron.common.util.HttpUtil;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The headers of the blocks the vrf requests appeared in, by block number.
+ *
+ * <p>Requests of the same block share one header: at most {@code node.blockCache.maxSize} headers
+ * are kept, the least recently used first evicted, and concurrent lookups of a block not cached
+ * wait for one fetch. The header is fetched with {@code /wallet/getblock} without the
+ * transactions, or with {@code /wallet/getblockbynum} if the fullnode does not support it, and the
+ * response is parsed once.
+ */
+@Slf4j
+public class BlockHeaderCache {
+
+  private static volatile LoadingCache<Long, Header> headers;
+
+  /** loads a header, visible for tests. */
+  interface Fetcher {
+    Header fetch(long blockNum) throws IOException;
+  }
+
+  private static Fetcher fetcher = BlockHeaderCache::fetch;
+
+  /** @throws IOException if the block is not found or the fullnode cannot be reached */
+  public static Header get(long blockNum) throws IOException {
+    try {
+      return getHeaders().get(blockNum);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    }
+  }
+
+  public static long size() {
+    return getHeaders().size();
+  }
+
+  /** null restores the fullnode fetcher. */
+  static void setFetcher(Fetcher newFetcher) {
+    fetcher = newFetcher != null ? newFetcher : BlockHeaderCache::fetch;
+    headers = null;
+  }
+
+  private static LoadingCache<Long, Header> getHeaders() {
+    if (headers == null) {
+      synchronized (BlockHeaderCache.class) {
+        if (headers == null) {
+          headers = CacheBuilder.newBuilder()
+              .maximumSize(Config.getBlockCacheMaxSize())
+              .build(new CacheLoader<Long, Header>() {
+                @Override
+                public Header load(Long blockNum) throws IOException {
+                  return fetcher.fetch(blockNum);
+                }
+              });
+        }
+      }
+    }
+    return headers;
+  }
+
+  private static Header fetch(long blockNum) throws IOException {
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("id_or_num", Long.toString(blockNum));
+    params.put("detail", false);
+    Header header = parse(post("/wallet/getblock", params));
+    if (header == null) {
+      log.debug("getblock is not supported, get the whole block {}", blockNum);
+      params = Maps.newHashMap();
+      params.put("num", blockNum);
+      params.put("visible", true);
+      header = parse(post("/wallet/getblockbynum", params));
+    }
+    if (header == null || header.number != blockNum) {
+      throw new IOException("block " + blockNum + " not found");
+    }
+    return header;
+  }
+
+  private static String post(String path, Map<String, Object> params) throws IOException {
+    try {
+      return HttpUtil.post("https", FULLNODE_HOST, path, params);
+    } catch (URISyntaxException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /** @return the header of the getblock or getblockbynum response, null if it has none */
+  static Header parse(String response) {
+    if (Strings.isNullOrEmpty(response)) {
+      return null;
+    }
+    JSONObject block;
+    try {
+      block = JSONObject.parseObject(response);
+    } catch (JSONException e) {
+      // e.g. the error page of an unknown api
+      return null;
+    }
+    if (block == null) {
+      return null;
+    }
+    JSONObject blockHeader = block.getJSONObject("block_header");
+    String blockId = block.getString("blockID");
+    if (Strings.isNullOrEmpty(blockId) || blockHeader == null) {
+      return null;
+    }
+    JSONObject rawData = blockHeader.getJSONObject("raw_data");
+    return new Header(rawData.getLongValue("number"), blockId, rawData.getString("parentHash"),
+        rawData.getLongValue("timestamp"));
+  }
+
+  public static class Header {
+    private final long number;
+    private final String hash;
+    private final String parentHash;
+    private final long timestamp;
+
+    Header(long number, String hash, String parentHash, long timestamp) {
+      this.number = number;
+      this.hash = hash;
+      this.parentHash = parentHash;
+      this.timestamp = timestamp;
+    }
+
+    public long getNumber() {
+      return number;
+    }
+
+    public String getHash() {
+      return hash;
+    }
+
+    public String getParentHash() {
+      return parentHash;
+    }
+
+    public long getTimestamp() {
+      return timestamp;
+    }
+  }
+}
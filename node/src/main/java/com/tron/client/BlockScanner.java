@@ -0,0 +1,201 @@
+package com.tron.client;
+
+import static com.tron.common.Constant.FULLNODE_HOST;
+import static com.tron.common.Constant.ONE_MINUTE;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+import com.tron.client.message.EventData;
+import com.tron.common.Config;
+import com.tron.common.util.HttpUtil;
+import com.tron.common.util.ThreadUtil;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.Commons;
+
+/**
+ * Scan the blocks of the fullnode and decode the events of all the listened contracts locally,
+ * instead of requesting the TronGrid event api for every address and event name.
+ *
+ * <p>The transaction infos of a block are fetched with one request whatever the number of
+ * listened contracts, up to {@code node.blockScanner.maxBlocks} blocks are requested concurrently
+ * and then handled in block order.
+ */
+@Slf4j
+public class BlockScanner {
+
+  private static final long BLOCK_INTERVAL = 3000L;
+
+  /** hex address without the 41 prefix -> subscription. */
+  private static final ConcurrentHashMap<String, Subscription> subscriptions =
+      new ConcurrentHashMap<>();
+
+  private static ScheduledExecutorService scheduler;
+  private static long nextBlock = -1;
+
+  /**
+   * @param fromBlock the block to resume scanning from for this address, 0 to start from the
+   *     recent blocks
+   */
+  public static void register(String addr, String[] filterEvents, long fromBlock) {
+    String hexAddr = ByteArray.toHexString(Commons.decodeFromBase58Check(addr)).substring(2);
+    Set<String> topics = new HashSet<>();
+    for (String filterEvent : filterEvents) {
+      String topic = EventDecoder.topicOf(filterEvent);
+      if (topic == null) {
+        log.warn("unsupported event {} of {}", filterEvent, addr);
+      } else {
+        topics.add(topic);
+      }
+    }
+    subscriptions.put(hexAddr.toLowerCase(), new Subscription(addr, topics, fromBlock));
+    log.info("start scanning events of {}, events: {}", addr, String.join(",", filterEvents));
+    start();
+  }
+
+  private static synchronized void start() {
+    if (scheduler != null) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+        ThreadUtil.newThreadFactory("block-scanner-", Config.isVirtualThreads()));
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        scan();
+      } catch (Throwable t) {
+        log.error("Exception in block scanner ", t);
+      }
+    }, 0, Config.getBlockScannerInterval(), TimeUnit.MILLISECONDS);
+  }
+
+  private static void scan() {
+    long latest = getLatestBlockNum();
+    if (latest <= 0) {
+      return;
+    }
+    if (nextBlock < 0) {
+      nextBlock = latest - ONE_MINUTE / BLOCK_INTERVAL;
+    }
+    // addresses registered with history to catch up move the cursor back
+    for (Subscription subscription : subscriptions.values()) {
+      if (subscription.fromBlock > 0) {
+        long oldest = latest - EventCursorStore.getMaxCatchUp() / BLOCK_INTERVAL;
+        nextBlock = Math.min(nextBlock, Math.max(subscription.fromBlock, oldest));
+        subscription.fromBlock = 0;
+      }
+    }
+
+    long toBlock = latest - Config.getBlockScannerConfirmations();
+    while (nextBlock <= toBlock) {
+      long end = Math.min(toBlock, nextBlock + Config.getBlockScannerMaxBlocks() - 1);
+      List<CompletableFuture<String>> futures = new ArrayList<>();
+      for (long num = nextBlock; num <= end; num++) {
+        futures.add(getTransactionInfo(num));
+      }
+      for (long num = nextBlock; num <= end; num++) {
+        String response = futures.get((int) (num - nextBlock)).join();
+        if (response == null) {
+          // retry from the failed block on the next tick
+          end = num - 1;
+          break;
+        }
+        handleBlock(response);
+      }
+      if (end < nextBlock) {
+        return;
+      }
+      nextBlock = end + 1;
+    }
+  }
+
+  private static void handleBlock(String response) {
+    Object parsed = JSON.parse(response);
+    if (!(parsed instanceof JSONArray)) {
+      // empty block
+      return;
+    }
+    // keep the order of the events per address
+    Map<String, List<EventData>> events = new LinkedHashMap<>();
+    for (Object item : (JSONArray) parsed) {
+      JSONObject txInfo = (JSONObject) item;
+      JSONArray logs = txInfo.getJSONArray("log");
+      if (logs == null) {
+        continue;
+      }
+      for (int i = 0; i < logs.size(); i++) {
+        JSONObject txLog = logs.getJSONObject(i);
+        Subscription subscription = subscriptions.get(txLog.getString("address").toLowerCase());
+        if (subscription == null) {
+          continue;
+        }
+        List<String> topics = txLog.getJSONArray("topics").toJavaList(String.class);
+        if (topics.isEmpty() || !subscription.topics.contains(topics.get(0).toLowerCase())) {
+          continue;
+        }
+        EventData eventData = EventDecoder.decode(topics, txLog.getString("data"));
+        if (eventData == null) {
+          continue;
+        }
+        eventData.setContractAddress(subscription.addr);
+        eventData.setTransactionId(txInfo.getString("id"));
+        eventData.setBlockNumber(txInfo.getIntValue("blockNumber"));
+        eventData.setBlockTimestamp(txInfo.getLongValue("blockTimeStamp"));
+        eventData.setEventIndex(i);
+        events.computeIfAbsent(subscription.addr, k -> new ArrayList<>()).add(eventData);
+      }
+    }
+    events.forEach(OracleClient::handleEvents);
+  }
+
+  private static CompletableFuture<String> getTransactionInfo(long blockNum) {
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("num", blockNum);
+    return HttpUtil.postAsync("https", FULLNODE_HOST, "/wallet/gettransactioninfobyblocknum",
+        params)
+        .exceptionally(ex -> {
+          log.warn("get transaction info of block {} failed, msg: {}", blockNum, ex.getMessage());
+          return null;
+        });
+  }
+
+  private static long getLatestBlockNum() {
+    try {
+      String response = HttpUtil.post("https", FULLNODE_HOST, "/wallet/getnowblock",
+          Maps.newHashMap());
+      if (Strings.isNullOrEmpty(response)) {
+        return 0;
+      }
+      return JSONObject.parseObject(response).getJSONObject("block_header")
+          .getJSONObject("raw_data").getLongValue("number");
+    } catch (Exception e) {
+      log.warn("get latest block failed, msg: {}", e.getMessage());
+      return 0;
+    }
+  }
+
+  private static class Subscription {
+    private final String addr;
+    private final Set<String> topics;
+    private volatile long fromBlock;
+
+    Subscription(String addr, Set<String> topics, long fromBlock) {
+      this.addr = addr;
+      this.topics = topics;
+      this.fromBlock = fromBlock;
+    }
+  }
+}
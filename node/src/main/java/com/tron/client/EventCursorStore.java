@@ -0,0 +1,205 @@
+package com.tron.client;
+
+import com.tron.client.message.EventData;
+import com.tron.common.util.ThreadUtil;
+import com.tron.web.entity.EventCursor;
+import com.tron.web.service.EventCursorService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The position of the last handled event per contract address and event name.
+ *
+ * <p>The cursor is advanced in memory right after an event is handed to the job subscriber and
+ * the changed cursors are written to the {@code event_cursors} table in one batch every
+ * {@code node.eventCursor.flushInterval} ms. After a restart the listeners resume from the stored
+ * cursor, but never from further back than {@code node.eventCursor.maxCatchUp} ms. The events of
+ * the cursor block that were already handled are remembered by transaction id and event index,
+ * so the re-polled block is not handed over twice; events handled after the last flush are
+ * re-delivered after a crash and rejected by the request id check of the job runner.
+ */
+@Slf4j
+@Component
+public class EventCursorStore {
+
+  private static EventCursorService eventCursorService;
+  private static long maxCatchUp = 3600000L;
+
+  private static final ConcurrentHashMap<String, Cursor> cursors = new ConcurrentHashMap<>();
+  private static final Set<String> dirty = ConcurrentHashMap.newKeySet();
+  private static volatile boolean loaded;
+
+  private final ScheduledExecutorService flushExecutor;
+
+  @Autowired
+  public EventCursorStore(EventCursorService eventCursorService,
+      @Value("${node.eventCursor.flushInterval:#{1000}}") long flushInterval,
+      @Value("${node.eventCursor.maxCatchUp:#{3600000}}") long maxCatchUp) {
+    EventCursorStore.eventCursorService = eventCursorService;
+    EventCursorStore.maxCatchUp = maxCatchUp;
+    flushExecutor = Executors.newSingleThreadScheduledExecutor(
+        ThreadUtil.newThreadFactory("event-cursor-flush-", false));
+    flushExecutor.scheduleWithFixedDelay(() -> {
+      try {
+        flush();
+      } catch (Throwable t) {
+        log.error("Exception in event cursor flush ", t);
+      }
+    }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+  }
+
+  public static long getMaxCatchUp() {
+    return maxCatchUp;
+  }
+
+  /** @return the block timestamp to resume polling from, 0 if the event has no cursor */
+  public static long getResumeTimestamp(String addr, String eventName) {
+    Cursor cursor = getCursor(addr, eventName);
+    if (cursor == null) {
+      return 0;
+    }
+    synchronized (cursor) {
+      return Math.max(cursor.blockTimestamp, System.currentTimeMillis() - maxCatchUp);
+    }
+  }
+
+  /** @return the block number to resume scanning from, 0 if the event has no cursor */
+  public static long getResumeBlock(String addr, String eventName) {
+    Cursor cursor = getCursor(addr, eventName);
+    if (cursor == null) {
+      return 0;
+    }
+    synchronized (cursor) {
+      return cursor.blockNumber;
+    }
+  }
+
+  /** @return true if the event is at or before the cursor and was handled already */
+  public static boolean isHandled(String addr, EventData eventData) {
+    Cursor cursor = getCursor(addr, eventData.getEventName());
+    if (cursor == null) {
+      return false;
+    }
+    synchronized (cursor) {
+      return eventData.getBlockTimestamp() < cursor.blockTimestamp
+          || (eventData.getBlockTimestamp() == cursor.blockTimestamp
+              && cursor.keys.contains(keyOf(eventData)));
+    }
+  }
+
+  /** move the cursor past the event, once it is handed over. */
+  public static void advance(String addr, EventData eventData) {
+    load();
+    String id = idOf(addr, eventData.getEventName());
+    Cursor cursor = cursors.computeIfAbsent(id, k -> new Cursor(addr, eventData.getEventName()));
+    synchronized (cursor) {
+      if (eventData.getBlockTimestamp() > cursor.blockTimestamp) {
+        cursor.blockTimestamp = eventData.getBlockTimestamp();
+        cursor.blockNumber = eventData.getBlockNumber();
+        cursor.keys.clear();
+      } else if (eventData.getBlockTimestamp() < cursor.blockTimestamp) {
+        return;
+      }
+      cursor.keys.add(keyOf(eventData));
+    }
+    dirty.add(id);
+  }
+
+  public static void flush() {
+    if (dirty.isEmpty()) {
+      return;
+    }
+    List<String> ids = new ArrayList<>(dirty);
+    List<EventCursor> batch = new ArrayList<>();
+    for (String id : ids) {
+      dirty.remove(id);
+      Cursor cursor = cursors.get(id);
+      synchronized (cursor) {
+        EventCursor eventCursor = new EventCursor();
+        eventCursor.setAddress(cursor.address);
+        eventCursor.setEventName(cursor.eventName);
+        eventCursor.setBlockNumber(cursor.blockNumber);
+        eventCursor.setBlockTimestamp(cursor.blockTimestamp);
+        eventCursor.setEventKeys(String.join(",", cursor.keys));
+        batch.add(eventCursor);
+      }
+    }
+    try {
+      eventCursorService.batchUpsert(batch);
+    } catch (Exception e) {
+      // keep them for the next flush
+      dirty.addAll(ids);
+      log.error("flush event cursors failed, msg: {}", e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    flushExecutor.shutdown();
+    flush();
+  }
+
+  private static Cursor getCursor(String addr, String eventName) {
+    load();
+    return cursors.get(idOf(addr, eventName));
+  }
+
+  private static void load() {
+    if (loaded) {
+      return;
+    }
+    synchronized (EventCursorStore.class) {
+      if (loaded) {
+        return;
+      }
+      try {
+        for (EventCursor eventCursor : eventCursorService.getAll()) {
+          Cursor cursor = new Cursor(eventCursor.getAddress(), eventCursor.getEventName());
+          cursor.blockNumber = eventCursor.getBlockNumber();
+          cursor.blockTimestamp = eventCursor.getBlockTimestamp();
+          if (eventCursor.getEventKeys() != null && !eventCursor.getEventKeys().isEmpty()) {
+            cursor.keys.addAll(Arrays.asList(eventCursor.getEventKeys().split(",")));
+          }
+          cursors.putIfAbsent(idOf(cursor.address, cursor.eventName), cursor);
+        }
+        loaded = true;
+        log.info("loaded {} event cursors", cursors.size());
+      } catch (Exception e) {
+        log.error("load event cursors failed, msg: {}", e.getMessage());
+      }
+    }
+  }
+
+  private static String idOf(String addr, String eventName) {
+    return addr + "#" + eventName;
+  }
+
+  private static String keyOf(EventData eventData) {
+    return eventData.getTransactionId() + ":" + eventData.getEventIndex();
+  }
+
+  private static class Cursor {
+    private final String address;
+    private final String eventName;
+    private long blockNumber;
+    private long blockTimestamp;
+    private final Set<String> keys = new HashSet<>();
+
+    Cursor(String address, String eventName) {
+      this.address = address;
+      this.eventName = eventName;
+    }
+  }
+}
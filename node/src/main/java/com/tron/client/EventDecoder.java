@@ -0,0 +1,138 @@
+package com.tron.client;
+
+import com.tron.client.message.EventData;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.spongycastle.util.encoders.Hex;
+import org.tron.common.crypto.Hash;
+
+/**
+ * Decode the raw logs of the oracle events, the result has the same format as the one of the
+ * TronGrid event api: bytes as hex without prefix, addresses as 0x hex and integers in decimal.
+ */
+public class EventDecoder {
+
+  private static final Map<String, EventSpec> specs = new HashMap<>();
+
+  static {
+    register("OracleRequest", "bytes32 indexed specId", "address requester", "bytes32 requestId",
+        "uint256 payment", "address callbackAddr", "bytes4 callbackFunctionId",
+        "uint256 cancelExpiration", "uint256 dataVersion", "bytes data");
+    register("NewRound", "uint256 indexed roundId", "address indexed startedBy",
+        "uint256 startedAt");
+    register("VRFRequest", "bytes32 keyHash", "bytes32 seed", "bytes32 indexed jobID",
+        "address sender", "uint256 fee", "bytes32 requestID");
+  }
+
+  private static void register(String name, String... params) {
+    EventSpec spec = new EventSpec(name, params);
+    specs.put(spec.topic, spec);
+  }
+
+  /** @return the topic of the event, null if it is not a known event */
+  public static String topicOf(String eventName) {
+    for (EventSpec spec : specs.values()) {
+      if (spec.name.equals(eventName)) {
+        return spec.topic;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param topics hex topics of the log, the first one is the event signature
+   * @param data hex data of the log
+   * @return null if the log is not a known event
+   */
+  public static EventData decode(List<String> topics, String data) {
+    if (topics == null || topics.isEmpty()) {
+      return null;
+    }
+    EventSpec spec = specs.get(topics.get(0).toLowerCase());
+    if (spec == null) {
+      return null;
+    }
+    byte[] dataBytes = data == null ? new byte[0] : Hex.decode(data);
+    Map<String, Object> result = new HashMap<>();
+    int topicIndex = 1;
+    int wordIndex = 0;
+    for (Param param : spec.params) {
+      if (param.indexed) {
+        result.put(param.name, format(param.type, Hex.decode(topics.get(topicIndex++))));
+      } else if (param.type.equals("bytes") || param.type.equals("string")) {
+        int offset = new BigInteger(1, word(dataBytes, wordIndex++)).intValue();
+        int length = new BigInteger(1, Arrays.copyOfRange(dataBytes, offset, offset + 32))
+            .intValue();
+        byte[] value = Arrays.copyOfRange(dataBytes, offset + 32, offset + 32 + length);
+        result.put(param.name, param.type.equals("string") ? new String(value) : Hex.toHexString(value));
+      } else {
+        result.put(param.name, format(param.type, word(dataBytes, wordIndex++)));
+      }
+    }
+
+    EventData eventData = new EventData();
+    eventData.setEventName(spec.name);
+    eventData.setResult(result);
+    return eventData;
+  }
+
+  private static byte[] word(byte[] data, int index) {
+    return Arrays.copyOfRange(data, index * 32, index * 32 + 32);
+  }
+
+  private static String format(String type, byte[] word) {
+    if (type.equals("address")) {
+      return "0x" + Hex.toHexString(Arrays.copyOfRange(word, 12, 32));
+    }
+    if (type.startsWith("uint")) {
+      return new BigInteger(1, word).toString();
+    }
+    if (type.startsWith("int")) {
+      return new BigInteger(word).toString();
+    }
+    if (type.equals("bool")) {
+      return String.valueOf(word[31] != 0);
+    }
+    if (type.startsWith("bytes")) {
+      int size = Integer.parseInt(type.substring("bytes".length()));
+      return Hex.toHexString(Arrays.copyOfRange(word, 0, size));
+    }
+    // the hash of a dynamic indexed value
+    return Hex.toHexString(word);
+  }
+
+  private static class Param {
+    private final String type;
+    private final String name;
+    private final boolean indexed;
+
+    Param(String declaration) {
+      String[] parts = declaration.split(" ");
+      this.type = parts[0];
+      this.indexed = parts.length == 3;
+      this.name = parts[parts.length - 1];
+    }
+  }
+
+  private static class EventSpec {
+    private final String name;
+    private final String topic;
+    private final List<Param> params = new ArrayList<>();
+
+    EventSpec(String name, String... declarations) {
+      List<String> types = new ArrayList<>();
+      for (String declaration : declarations) {
+        Param param = new Param(declaration);
+        params.add(param);
+        types.add(param.type);
+      }
+      this.name = name;
+      this.topic = Hex.toHexString(
+          Hash.sha3((name + "(" + String.join(",", types) + ")").getBytes()));
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.tron.client;
+
+import com.tron.client.message.EventData;
+import com.tron.common.Config;
+import com.tron.common.util.ThreadUtil;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Poll the events of all the listened contracts on one shared scheduler.
+ *
+ * <p>A single scheduler thread checks which addresses are due and starts their polls; the event
+ * requests go through the async http client, so polls of different addresses run concurrently
+ * and are only bounded by {@code node.eventPoller.maxConcurrent}. The received events are handled
+ * on a fixed pool of {@code node.eventPoller.threads} workers, at most one poll per address at a
+ * time, so the events of an address are still handled in order.
+ *
+ * <p>The polling interval of each address adapts to its traffic: it is reset to
+ * {@code node.eventPoller.minInterval} when a poll returns events, and doubled up to
+ * {@code node.eventPoller.maxInterval} when it returns nothing. The default maximum is the
+ * former fixed period of 3s, so an idle address is never polled less often than before.
+ */
+@Slf4j
+public class EventPoller {
+
+  private static final long TICK_INTERVAL = 200L;
+
+  /** fetches the new events of an address, visible for tests. */
+  interface Fetcher {
+    CompletableFuture<List<EventData>> fetch(String addr, String[] filterEvents);
+  }
+
+  private static volatile Fetcher fetcher = OracleClient::fetchEvents;
+
+  private static final ConcurrentHashMap<String, Target> targets = new ConcurrentHashMap<>();
+
+  private static ScheduledExecutorService scheduler;
+  private static ExecutorService workers;
+  private static Semaphore permits;
+
+  public static void register(String addr, String[] filterEvents) {
+    start();
+    if (targets.putIfAbsent(addr, new Target(addr, filterEvents)) == null) {
+      log.info("start polling events of {}, events: {}", addr, String.join(",", filterEvents));
+    }
+  }
+
+  /** stops polling the address, a poll already started still completes. */
+  static void unregister(String addr) {
+    targets.remove(addr);
+  }
+
+  static Target getTarget(String addr) {
+    return targets.get(addr);
+  }
+
+  /** @param newFetcher null to restore the fetcher of the node */
+  static void setFetcher(Fetcher newFetcher) {
+    fetcher = newFetcher != null ? newFetcher : OracleClient::fetchEvents;
+  }
+
+  private static synchronized void start() {
+    if (scheduler != null) {
+      return;
+    }
+    boolean virtual = Config.isVirtualThreads();
+    permits = new Semaphore(Config.getEventPollerMaxConcurrent());
+    workers = Executors.newFixedThreadPool(Config.getEventPollerThreads(),
+        ThreadUtil.newThreadFactory("event-worker-", virtual));
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+        ThreadUtil.newThreadFactory("event-poller-", virtual));
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        tick();
+      } catch (Throwable t) {
+        log.error("Exception in event poller ", t);
+      }
+    }, 0, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+  }
+
+  static void tick() {
+    long now = System.currentTimeMillis();
+    for (Target target : targets.values()) {
+      if (target.polling || now < target.nextPollAt) {
+        continue;
+      }
+      if (!permits.tryAcquire()) {
+        // every permit is in use, the remaining due addresses are picked up by the next tick
+        return;
+      }
+      target.polling = true;
+      poll(target);
+    }
+  }
+
+  private static void poll(Target target) {
+    CompletableFuture
+        .supplyAsync(() -> fetcher.fetch(target.addr, target.filterEvents), workers)
+        .thenCompose(future -> future)
+        .thenApplyAsync(events -> {
+          OracleClient.handleEvents(target.addr, events);
+          return events;
+        }, workers)
+        .whenComplete((events, ex) -> {
+          if (ex != null) {
+            log.error("poll events of {} failed", target.addr, ex);
+          }
+          target.adapt(events != null && !events.isEmpty());
+          target.polling = false;
+          permits.release();
+        });
+  }
+
+  static class Target {
+    private final String addr;
+    private final String[] filterEvents;
+    private volatile boolean polling;
+    private volatile long nextPollAt;
+    private volatile long interval = Config.getEventPollerMinInterval();
+
+    Target(String addr, String[] filterEvents) {
+      this.addr = addr;
+      this.filterEvents = filterEvents;
+    }
+
+    boolean isPolling() {
+      return polling;
+    }
+
+    long getInterval() {
+      return interval;
+    }
+
+    long getNextPollAt() {
+      return nextPollAt;
+    }
+
+    void adapt(boolean active) {
+      if (active) {
+        interval = Config.getEventPollerMinInterval();
+      } else {
+        interval = Math.min(interval * 2, Config.getEventPollerMaxInterval());
+      }
+      nextPollAt = System.currentTimeMillis() + interval;
+    }
+  }
+}
@@ -25,6 +25,8 @@ import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.weaver.ast.Or;
 import org.spongycastle.util.encoders.Hex;
@@ -65,39 +67,51 @@ public class FluxAggregator {
   }
 
   public static OracleRoundState getOracleRoundState(String addr, long roundId) {
-    OracleRoundState oracleRoundState = null;
     try {
-      Map<String, Object> params = Maps.newHashMap();
-      params.put("owner_address", KeyStore.getAddr());
-      params.put("contract_address", addr);
-      params.put("function_selector", ROUND_STATE_METHOD_SIGN);
-      List<Object> list = Lists.newArrayList();
-      list.add(KeyStore.getAddr());
-      list.add(roundId);
-      params.put("parameter", AbiUtil.parseParameters(ROUND_STATE_METHOD_SIGN, list));
-      params.put("visible",true);
-
-      String response = HttpUtil.post("https", FULLNODE_HOST,
-          "/wallet/triggersmartcontract", params);
-      ObjectMapper mapper = new ObjectMapper();
-      assert response != null;
-      Map<String, Object> result = mapper.readValue(response, Map.class);
-
-      // decode result
-      List<Type> ret =  ContractDecoder.decode(ROUND_STATE_RESULT_SIGN, ((List<String>)result.get("constant_result")).get(0));
-      oracleRoundState = new OracleRoundState();
-      oracleRoundState.setEligibleToSubmit(((Bool)ret.get(0)).getValue());
-      oracleRoundState.setRoundId(((Uint)ret.get(1)).getValue().longValue());
-      oracleRoundState.setLatestSubmission(((Int)ret.get(2)).getValue());
-      oracleRoundState.setStartedAt(((Uint)ret.get(3)).getValue().longValue());
-      oracleRoundState.setTimeout(((Uint)ret.get(4)).getValue().longValue());
-      oracleRoundState.setAvailableFunds(((Uint)ret.get(5)).getValue());
-      oracleRoundState.setOracleCount(((Uint)ret.get(6)).getValue().intValue());
-      oracleRoundState.setPaymentAmount(((Uint)ret.get(7)).getValue());
+      return getOracleRoundStateAsync(addr, roundId).join();
     } catch (Exception e) {
       log.error("get oracle round state info error, msg:" + e.getMessage());
+      return null;
     }
+  }
+
+  public static CompletableFuture<OracleRoundState> getOracleRoundStateAsync(String addr, long roundId) {
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("owner_address", KeyStore.getAddr());
+    params.put("contract_address", addr);
+    params.put("function_selector", ROUND_STATE_METHOD_SIGN);
+    List<Object> list = Lists.newArrayList();
+    list.add(KeyStore.getAddr());
+    list.add(roundId);
+    params.put("parameter", AbiUtil.parseParameters(ROUND_STATE_METHOD_SIGN, list));
+    params.put("visible",true);
+
+    return HttpUtil.postAsync("https", FULLNODE_HOST, "/wallet/triggersmartcontract", params)
+        .thenApply(response -> {
+          try {
+            return parseOracleRoundState(response);
+          } catch (IOException e) {
+            throw new CompletionException(e);
+          }
+        });
+  }
+
+  private static OracleRoundState parseOracleRoundState(String response) throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    assert response != null;
+    Map<String, Object> result = mapper.readValue(response, Map.class);
 
+    // decode result
+    List<Type> ret =  ContractDecoder.decode(ROUND_STATE_RESULT_SIGN, ((List<String>)result.get("constant_result")).get(0));
+    OracleRoundState oracleRoundState = new OracleRoundState();
+    oracleRoundState.setEligibleToSubmit(((Bool)ret.get(0)).getValue());
+    oracleRoundState.setRoundId(((Uint)ret.get(1)).getValue().longValue());
+    oracleRoundState.setLatestSubmission(((Int)ret.get(2)).getValue());
+    oracleRoundState.setStartedAt(((Uint)ret.get(3)).getValue().longValue());
+    oracleRoundState.setTimeout(((Uint)ret.get(4)).getValue().longValue());
+    oracleRoundState.setAvailableFunds(((Uint)ret.get(5)).getValue());
+    oracleRoundState.setOracleCount(((Uint)ret.get(6)).getValue().intValue());
+    oracleRoundState.setPaymentAmount(((Uint)ret.get(7)).getValue());
     return oracleRoundState;
   }
 
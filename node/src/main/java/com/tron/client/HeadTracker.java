@@ -0,0 +1,118 @@
+package com.tron.client;
+
+import com.tron.common.util.ThreadUtil;
+import com.tron.web.entity.Head;
+import com.tron.web.service.HeadService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The block of the last handled vrf request per coordinator address.
+ *
+ * <p>The head is moved forward in memory as the requests are handled, and the moved heads are
+ * written to the {@code heads} table in one batch every {@code node.head.flushInterval} ms and on
+ * shutdown, so the listeners do no read-modify-write of the table per event. The stored head of
+ * an address is read once, on its first lookup. A head never moves back, neither in memory nor in
+ * the table.
+ */
+@Slf4j
+@Component
+public class HeadTracker {
+
+  private static HeadService headService;
+
+  private static final ConcurrentHashMap<String, Head> heads = new ConcurrentHashMap<>();
+  private static final Set<String> loaded = ConcurrentHashMap.newKeySet();
+  private static final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+  private final ScheduledExecutorService flushExecutor;
+
+  @Autowired
+  public HeadTracker(HeadService headService,
+      @Value("${node.head.flushInterval:#{1000}}") long flushInterval) {
+    HeadTracker.headService = headService;
+    flushExecutor = Executors.newSingleThreadScheduledExecutor(
+        ThreadUtil.newThreadFactory("head-flush-", false));
+    flushExecutor.scheduleWithFixedDelay(() -> {
+      try {
+        flush();
+      } catch (Throwable t) {
+        log.error("Exception in head flush ", t);
+      }
+    }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /** @return the latest head of the address, null if it has none */
+  public static Head getHead(String addr) {
+    load(addr);
+    return heads.get(addr);
+  }
+
+  /** move the head of the address to the block, if the block is after it. */
+  public static void advance(String addr, long number, String hash, String parentHash,
+      long blockTimestamp) {
+    Head head = new Head();
+    head.setAddress(addr);
+    head.setNumber(number);
+    head.setHash(hash);
+    head.setParentHash(parentHash);
+    head.setBlockTimestamp(blockTimestamp);
+    if (heads.merge(addr, head, HeadTracker::latest) == head) {
+      dirty.add(addr);
+    }
+  }
+
+  public static void flush() {
+    if (dirty.isEmpty()) {
+      return;
+    }
+    List<String> addrs = new ArrayList<>(dirty);
+    List<Head> batch = new ArrayList<>();
+    for (String addr : addrs) {
+      dirty.remove(addr);
+      batch.add(heads.get(addr));
+    }
+    try {
+      headService.batchUpsert(batch);
+    } catch (Exception e) {
+      // keep them for the next flush
+      dirty.addAll(addrs);
+      log.error("flush heads failed, msg: {}", e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    flushExecutor.shutdown();
+    flush();
+  }
+
+  private static void load(String addr) {
+    if (loaded.contains(addr)) {
+      return;
+    }
+    try {
+      List<Head> stored = headService.getByAddress(addr);
+      if (stored != null && !stored.isEmpty()) {
+        heads.merge(addr, stored.get(0), HeadTracker::latest);
+      }
+      loaded.add(addr);
+    } catch (Exception e) {
+      log.error("load head of {} failed, msg: {}", addr, e.getMessage());
+    }
+  }
+
+  private static Head latest(Head current, Head head) {
+    return head.getNumber() > current.getNumber() ? head : current;
+  }
+}
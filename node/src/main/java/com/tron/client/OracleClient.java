@@ -1,13 +1,11 @@
 package com.tron.client;
 
-import com.alibaba.fastjson.JSONObject;
 import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
 import com.google.common.collect.Maps;
 import com.google.protobuf.ByteString;
-import com.tron.client.message.BroadCastResponse;
 import com.tron.client.message.EventData;
 import com.tron.client.message.EventResponse;
 import com.tron.client.message.TriggerResponse;
@@ -16,6 +14,7 @@ import com.tron.common.Config;
 import com.tron.common.util.HttpUtil;
 import com.tron.common.util.Tool;
 import com.tron.job.JobSubscriber;
+import com.tron.job.RequestIdIndex;
 import com.tron.keystore.KeyStore;
 import com.tron.web.entity.Head;
 import com.tron.web.entity.TronTx;
@@ -29,7 +28,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 
-import com.tron.web.service.HeadService;
 import com.tron.web.service.JobRunsService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.DecoderException;
@@ -51,13 +49,16 @@ import static com.tron.common.Constant.*;
 @Slf4j
 @Component
 public class OracleClient {
-  private static HeadService headService;
   private static JobRunsService jobRunsService;
+  private static RequestIdIndex requestIdIndex;
+  private static TxBroadcaster txBroadcaster;
 
   @Autowired
-  public OracleClient(HeadService headService, JobRunsService jobRunsService) {
-    OracleClient.headService = headService;
+  public OracleClient(JobRunsService jobRunsService,
+      RequestIdIndex requestIdIndex, TxBroadcaster txBroadcaster) {
     OracleClient.jobRunsService = jobRunsService;
+    OracleClient.requestIdIndex = requestIdIndex;
+    OracleClient.txBroadcaster = txBroadcaster;
   }
 
   private static final String EVENT_NAME = "OracleRequest";
@@ -72,7 +73,8 @@ public class OracleClient {
         }
       };
 
-  private static Cache<String, String> requestIdsCache =
+  // the handled rounds, request ids are tracked by RequestIdIndex
+  private static Cache<String, String> newRoundsCache =
       CacheBuilder.newBuilder()
           .maximumSize(10000)
           .expireAfterWrite(12, TimeUnit.HOURS)
@@ -80,7 +82,6 @@ public class OracleClient {
           .build();
 
   private static ConcurrentHashMap<String, Set<String>> listeningAddrs = new ConcurrentHashMap<>();
-  private static HashMap<String, Long> consumeIndexMap = Maps.newHashMap();
 
   public static void init() {
     try {
@@ -90,21 +91,6 @@ public class OracleClient {
     }
   }
 
-  private static void listenTask(String addr, String[] filterEvents)  {
-    ScheduledExecutorService listenExecutor = Executors.newSingleThreadScheduledExecutor();
-    listenExecutor.scheduleWithFixedDelay(
-        () -> {
-          try {
-            listen(addr, filterEvents);
-          } catch (Throwable t) {
-            log.error("Exception in listener ", t);
-          }
-        },
-        0,
-        3000,
-        TimeUnit.MILLISECONDS);
-  }
-
   public static void registerJob(String address, String jobId, String initiatorType) {
     Set<String> set = listeningAddrs.get(address);
     if (set == null) {
@@ -113,7 +99,12 @@ public class OracleClient {
     set.add(jobId);
     if (listeningAddrs.get(address) == null) { // each address with only one listen task
       listeningAddrs.put(address, set);
-      listenTask(address, initiatorEventMap.get(initiatorType).split(","));
+      String[] filterEvents = initiatorEventMap.get(initiatorType).split(",");
+      if (EVENT_SOURCE_FULLNODE.equals(Config.getEventSource())) {
+        BlockScanner.register(address, filterEvents, getHisBlockNum(address, initiatorType));
+      } else {
+        EventPoller.register(address, filterEvents);
+      }
     } else {
       listeningAddrs.put(address, set); // only add recent jobId
     }
@@ -171,19 +162,18 @@ public class OracleClient {
     tx.setTo(contractAddress);
     tx.setData(data);
 
-    String response =
-        HttpUtil.post("https", FULLNODE_HOST, "/wallet/triggersmartcontract", params);
-    TriggerResponse triggerResponse = null;
-    triggerResponse = JsonUtil.json2Obj(response, TriggerResponse.class);
-
-    tx.setSurrogateId(triggerResponse.getTransaction().getTxID());
+    Protocol.Transaction.raw raw = TransactionBuilder.buildTrigger(params);
+    if (raw == null) {
+      String response = HttpUtil.post("https", FULLNODE_HOST, "/wallet/triggersmartcontract", params);
+      TriggerResponse triggerResponse = JsonUtil.json2Obj(response, TriggerResponse.class);
+      String rawDataHex = triggerResponse.getTransaction().getRawDataHex();
+      raw = Protocol.Transaction.raw.parseFrom(ByteArray.fromHexString(rawDataHex));
+    }
 
     // sign
     ECKey key = KeyStore.getKey();
-    String rawDataHex = triggerResponse.getTransaction().getRawDataHex();
-    Protocol.Transaction.raw raw =
-        Protocol.Transaction.raw.parseFrom(ByteArray.fromHexString(rawDataHex));
     byte[] hash = Sha256Hash.hash(true, raw.toByteArray());
+    tx.setSurrogateId(ByteArray.toHexString(hash));
     ECKey.ECDSASignature signature = key.sign(hash);
     ByteString bsSign = ByteString.copyFrom(signature.toByteArray());
     TransactionCapsule transactionCapsule = new TransactionCapsule(raw, Arrays.asList(bsSign));
@@ -192,49 +182,75 @@ public class OracleClient {
     tx.setHash(ByteArray.toHexString(hash));
 
     // broadcast
-    params.clear();
-    params.put("transaction", Hex.toHexString(transactionCapsule.getInstance().toByteArray()));
-    response = HttpUtil.post("https", FULLNODE_HOST,
-            "/wallet/broadcasthex", params);
-    BroadCastResponse broadCastResponse =
-            JsonUtil.json2Obj(response, BroadCastResponse.class);
+    String signedTx = Hex.toHexString(transactionCapsule.getInstance().toByteArray());
+    if (!txBroadcaster.submit(tx.getSurrogateId(), signedTx)) {
+      throw new IOException("broadcast queue is full");
+    }
   }
 
-  private static void listen(String addr, String[] filterEvents) {
-     List<EventData> events = new ArrayList<>();
-      for (String filterEvent : filterEvents) {
-        List<EventData> data = getEventData(addr, filterEvent);
-        if (data != null && data.size() >0 ) {
+  /** the block to resume scanning from after a reboot, 0 if nothing was handled yet. */
+  private static long getHisBlockNum(String addr, String initiatorType) {
+    long blockNum = 0;
+    for (String eventName : initiatorEventMap.get(initiatorType).split(",")) {
+      long resumeBlock = EventCursorStore.getResumeBlock(addr, eventName);
+      if (resumeBlock > 0 && (blockNum == 0 || resumeBlock < blockNum)) {
+        blockNum = resumeBlock;
+      }
+    }
+    if (blockNum > 0 || !INITIATOR_TYPE_RANDOMNESS_LOG.equals(initiatorType)) {
+      return blockNum;
+    }
+    // vrf requests handled before the cursors existed
+    Head head = HeadTracker.getHead(addr);
+    return head == null ? 0 : head.getNumber();
+  }
+
+  /** fetch the new events of all the given names, the names are requested concurrently. */
+  static CompletableFuture<List<EventData>> fetchEvents(String addr, String[] filterEvents) {
+    List<CompletableFuture<List<EventData>>> futures = new ArrayList<>();
+    for (String filterEvent : filterEvents) {
+      futures.add(getEventData(addr, filterEvent));
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+      List<EventData> events = new ArrayList<>();
+      for (CompletableFuture<List<EventData>> future : futures) {
+        List<EventData> data = future.join();
+        if (data != null && data.size() > 0) {
           events.addAll(data);
         }
       }
-      if (events == null || events.size() == 0) {
-        return;
-      }
-      // handle events
-      for (EventData eventData : events) {
-        log.info("Event received: {} | {}", eventData.getTransactionId(), eventData.getEventName());
-        // update consumeIndexMap
-        updateConsumeMap(addr, eventData.getBlockTimestamp());
-
-        // filter the events
-        String eventName = eventData.getEventName();
-        switch (eventName) {
-          case EVENT_NAME:
-            processOracleRequestEvent(addr, eventData);
-            break;
-          case EVENT_NEW_ROUND:
-            processNewRoundEvent(addr, eventData);
-            break;
-          case VRF_EVENT_NAME:
-            processVrfRequestEvent(addr, eventData);
-            break;
-          default:
-            log.warn("unexpected event:{}", eventName);
-            break;
-        }
+      return events;
+    });
+  }
+
+  static void handleEvents(String addr, List<EventData> events) {
+    for (EventData eventData : events) {
+      if (EventCursorStore.isHandled(addr, eventData)) {
+        log.info("Event skipped, handled already: {} | {}", eventData.getTransactionId(),
+            eventData.getEventName());
+        continue;
       }
+      log.info("Event received: {} | {}", eventData.getTransactionId(), eventData.getEventName());
 
+      // filter the events
+      String eventName = eventData.getEventName();
+      switch (eventName) {
+        case EVENT_NAME:
+          processOracleRequestEvent(addr, eventData);
+          break;
+        case EVENT_NEW_ROUND:
+          processNewRoundEvent(addr, eventData);
+          break;
+        case VRF_EVENT_NAME:
+          processVrfRequestEvent(addr, eventData);
+          break;
+        default:
+          log.warn("unexpected event:{}", eventName);
+          break;
+      }
+      // the event is handed over, move the cursor
+      EventCursorStore.advance(addr, eventData);
+    }
   }
 
   /** constructor. */
@@ -278,14 +294,14 @@ public class OracleClient {
     long dataVersion = Long.parseLong((String)eventData.getResult().get("dataVersion"));
     String requestId = (String)eventData.getResult().get("requestId");
     BigInteger payment = new BigInteger((String)eventData.getResult().get("payment"));
-    if (requestIdsCache.getIfPresent(requestId) != null) {
+    if (requestIdIndex.isDuplicate(requestId)) {
       log.info("this event has been handled, requestid:{}", requestId);
       return;
     }
     JobSubscriber.receiveLogRequest(
         new EventRequest(blockNum, jobId, requester, callbackAddr, callbackFuncId,
             cancelExpiration, data, dataVersion,requestId, payment, addr));
-    requestIdsCache.put(requestId, "");
+    requestIdIndex.add(requestId);
   }
 
   private static void processVrfRequestEvent(String addr, EventData eventData) {
@@ -306,22 +322,19 @@ public class OracleClient {
     // Number/height of the block in which this request appeared
     long blockNum = eventData.getBlockNumber();
     String requestId = (String) eventData.getResult().get("requestID");
-    if (requestIdsCache.getIfPresent(requestId) != null) {
+    if (requestIdIndex.isDuplicate(requestId)) {
       log.info("this vrf event has been handled, requestid:{}", requestId);
       return;
     }
-    if(!Strings.isNullOrEmpty(jobRunsService.getByRequestId(requestId))) { // for reboot
-      log.info("from DB, this vrf event has been handled, requestid:{}", requestId);
-      return;
-    }
     // Hash of the block in which this request appeared
-    String responseStr = getBlockByNum(blockNum);
-    JSONObject responseContent = JSONObject.parseObject(responseStr);
-    String blockHash = responseContent.getString("blockID");
-    JSONObject rawHead = JSONObject.parseObject(JSONObject.parseObject(responseContent.getString("block_header"))
-        .getString("raw_data"));
-    String parentHash = rawHead.getString("parentHash");
-    Long blockTimestamp = Long.valueOf(rawHead.getString("timestamp"));
+    BlockHeaderCache.Header header;
+    try {
+      header = BlockHeaderCache.get(blockNum);
+    } catch (IOException e) {
+      // the event is polled again
+      throw new IllegalStateException("get block " + blockNum + " failed: " + e.getMessage(), e);
+    }
+    String blockHash = header.getHash();
 
     String sender = Tool.convertHexToTronAddr((String) eventData.getResult().get("sender"));
     String keyHash = (String) eventData.getResult().get("keyHash");
@@ -330,24 +343,8 @@ public class OracleClient {
     JobSubscriber.receiveVrfRequest(
         new VrfEventRequest(
             blockNum, blockHash, jobId, keyHash, seed, sender, requestId, fee, addr));
-    requestIdsCache.put(requestId, "");
-
-    List<Head> hisHead = headService.getByAddress(addr);
-    Head head = new Head();
-    head.setAddress(addr);
-    head.setNumber(blockNum);
-    head.setHash(blockHash);
-    head.setParentHash(parentHash);
-    head.setBlockTimestamp(blockTimestamp);
-    if (hisHead == null || hisHead.size() == 0) {
-      headService.insert(head);
-    } else if (!hisHead.get(0).getNumber().equals(blockNum)) { //Only update unequal blockNum.
-      head.setId(hisHead.get(0).getId());
-      head.setUpdatedAt(new Date());
-      headService.update(head);
-    } else {
-
-    }
+    requestIdIndex.add(requestId);
+    HeadTracker.advance(addr, blockNum, blockHash, header.getParentHash(), header.getTimestamp());
   }
 
   private static void processNewRoundEvent(String addr, EventData eventData) {
@@ -361,14 +358,14 @@ public class OracleClient {
 
     String startedBy = Tool.convertHexToTronAddr((String)eventData.getResult().get("startedBy"));
     long startedAt = Long.parseLong((String)eventData.getResult().get("startedAt"));
-    if (requestIdsCache.getIfPresent(addr + roundId) != null) {
+    if (newRoundsCache.getIfPresent(addr + roundId) != null) {
       log.info("this event has been handled, address:{}, roundId:{}", addr, roundId);
       return;
     }
 
     JobSubscriber.receiveNewRoundLog(addr, startedBy, roundId, startedAt);
 
-    requestIdsCache.put(addr + roundId, "");
+    newRoundsCache.put(addr + roundId, "");
   }
 
   public static String requestEvent(String urlPath, Map<String, String> params) throws IOException {
@@ -396,121 +393,87 @@ public class OracleClient {
     return response;
   }
 
-  private static List<EventData> getEventData(String addr, String filterEvent) {
-    List<EventData> data = new ArrayList<>();
-    String httpResponse = null;
-    String urlPath;
+  public static CompletableFuture<String> requestEventAsync(String urlPath, Map<String, String> params) {
+    return requestEventAsync(urlPath, params, 1);
+  }
+
+  private static CompletableFuture<String> requestEventAsync(String urlPath,
+      Map<String, String> params, int retry) {
+    return HttpUtil.getAsync("https", HTTP_EVENT_HOST, urlPath, params)
+        .exceptionally(ex -> null)
+        .thenCompose(response -> {
+          if (Strings.isNullOrEmpty(response) && retry <= HTTP_MAX_RETRY_TIME) {
+            return HttpUtil.retryLater(() -> requestEventAsync(urlPath, params, retry + 1),
+                100L * retry);
+          }
+          return CompletableFuture.completedFuture(response);
+        });
+  }
+
+  private static CompletableFuture<List<EventData>> getEventData(String addr, String filterEvent) {
     Map<String, String> params = Maps.newHashMap();
-    if ("nile.trongrid.io".equals(HTTP_EVENT_HOST)) { // for test
-      params.put("event_name", filterEvent);
-      params.put("order_by", "block_timestamp,asc");
-      if(!getMinBlockTimestamp(addr, filterEvent, params)){
-        return null;
-      }
-      urlPath = String.format("/v1/contracts/%s/events", addr);
-    } else { // for production
-      params.put("event_name", filterEvent);
-      params.put("order_by", "block_timestamp,asc");
-      // params.put("only_confirmed", "true");
-      if(!getMinBlockTimestamp(addr, filterEvent, params)){
-        return null;
-      }
-      urlPath = String.format("/v1/contracts/%s/events", addr);
+    params.put("event_name", filterEvent);
+    params.put("order_by", "block_timestamp,asc");
+    // params.put("only_confirmed", "true");
+    if(!getMinBlockTimestamp(addr, filterEvent, params)){
+      return CompletableFuture.completedFuture(null);
     }
-    EventResponse response = null;
-    try {
-      httpResponse = requestEvent(urlPath, params);
+    String urlPath = String.format("/v1/contracts/%s/events", addr);
+    return requestEventAsync(urlPath, params).thenCompose(httpResponse -> {
       if (Strings.isNullOrEmpty(httpResponse)) {
-        return null;
+        return CompletableFuture.completedFuture(null);
       }
+      return collectEventPages(httpResponse, new ArrayList<>());
+    });
+  }
+
+  /** parse one page of events, then follow the next link until the last page. */
+  private static CompletableFuture<List<EventData>> collectEventPages(String httpResponse,
+      List<EventData> data) {
+    EventResponse response;
+    try {
       response = JsonUtil.json2Obj(httpResponse, EventResponse.class);
-    } catch (IOException e) {
+    } catch (Exception e) {
       log.error("parse response failed, err: {}", e.getMessage());
-      return data;
+      return CompletableFuture.completedFuture(data);
     }
     data.addAll(response.getData());
 
-    boolean isNext = false;
     Map<String, String> links = response.getMeta().getLinks();
-    if (links == null) {
-      return data;
-    }
-    String urlNext = links.get("next");
-    if (!Strings.isNullOrEmpty(urlNext)) {
-      isNext = true;
-    }
-    while (isNext) {
-      isNext = false;
-      String responseNext = requestNextPage(urlNext);
-      if (Strings.isNullOrEmpty(responseNext)) {
-        return data;
-      }
-      try {
-        response = JsonUtil.json2Obj(responseNext, EventResponse.class);
-      } catch (Exception e) {
-        log.error("parse response failed, err: {}", e.getMessage());
-        return data;
-      }
-      data.addAll(response.getData());
-
-      links = response.getMeta().getLinks();
-      if (links == null) {
-        return data;
-      }
-      urlNext = links.get("next");
-      if (!Strings.isNullOrEmpty(urlNext)) {
-        isNext = true;
-      }
-    }
-
-    return data;
-  }
-  public static String requestNextPage(String urlNext) {
-    try {
-      String response = HttpUtil.requestWithRetry(urlNext);
-      if (response == null) {
-        return null;
-      }
-      return response;
-    } catch (Exception ex) {
-      ex.printStackTrace();
-    }
-    return null;
-  }
-
-
-
-  private static void updateConsumeMap(String addr, long timestamp) {
-    if (consumeIndexMap.containsKey(addr)) {
-      if (timestamp > consumeIndexMap.get(addr)) {
-        consumeIndexMap.put(addr, timestamp);
-      }
-    } else {
-      consumeIndexMap.put(addr, timestamp);
+    if (links == null || Strings.isNullOrEmpty(links.get("next"))) {
+      return CompletableFuture.completedFuture(data);
     }
-    log.info("Update consumeIndexMap: {} | {}", addr, timestamp);
+    return HttpUtil.requestWithRetryAsync(links.get("next"))
+        .exceptionally(ex -> {
+          log.error("request next page failed, err: {}", ex.getMessage());
+          return null;
+        })
+        .thenCompose(responseNext -> Strings.isNullOrEmpty(responseNext)
+            ? CompletableFuture.completedFuture(data)
+            : collectEventPages(responseNext, data));
   }
 
   public static boolean getMinBlockTimestamp(String addr, String eventName, Map<String, String> params)
   {
+    long resumeTimestamp = EventCursorStore.getResumeTimestamp(addr, eventName);
     switch (eventName) {
       case EVENT_NAME:
       case EVENT_NEW_ROUND:
-        if (consumeIndexMap.containsKey(addr)) {
-          params.put("min_block_timestamp", Long.toString(consumeIndexMap.get(addr)));
+        if (resumeTimestamp > 0) {
+          params.put("min_block_timestamp", Long.toString(resumeTimestamp));
         } else {
           params.put("min_block_timestamp", Long.toString(System.currentTimeMillis() - ONE_MINUTE));
         }
         break;
       case VRF_EVENT_NAME:
-        if (consumeIndexMap.containsKey(addr)) {
-          params.put("min_block_timestamp", Long.toString(consumeIndexMap.get(addr)));
+        if (resumeTimestamp > 0) {
+          params.put("min_block_timestamp", Long.toString(resumeTimestamp));
         } else {
-          List<Head> hisHead = headService.getByAddress(addr);
-          if (hisHead == null || hisHead.size() == 0) {
+          Head head = HeadTracker.getHead(addr);
+          if (head == null) {
             params.put("min_block_timestamp", Long.toString(System.currentTimeMillis() - ONE_MINUTE));
           } else {
-            params.put("min_block_timestamp", Long.toString(hisHead.get(0).getBlockTimestamp()));
+            params.put("min_block_timestamp", Long.toString(head.getBlockTimestamp()));
           }
         }
         break;
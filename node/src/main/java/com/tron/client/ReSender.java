@@ -1,132 +1,332 @@
 package com.tron.client;
 
+import static com.tron.common.Constant.FULLNODE_HOST;
+import static com.tron.common.Constant.TronTxConfirmed;
+import static com.tron.common.Constant.TronTxFatalError;
+import static com.tron.common.Constant.TronTxInProgress;
+
 import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.tron.client.message.TriggerResponse;
+import com.google.common.primitives.Longs;
 import com.tron.common.Config;
 import com.tron.common.util.HttpUtil;
+import com.tron.common.util.ThreadUtil;
+import com.tron.job.JobRunWriter;
 import com.tron.job.adapters.ContractAdapter;
 import com.tron.keystore.KeyStore;
 import com.tron.web.entity.TronTx;
 import com.tron.web.service.TronTxService;
-import lombok.extern.slf4j.Slf4j;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.util.EntityUtils;
-import org.springframework.beans.factory.annotation.Autowired;
-import java.util.*;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
 
-import static com.tron.common.Constant.*;
-
-/** Subscribe the events of the oracle contracts and reply. */
+/**
+ * Tracks the in-progress (VRF) transactions of the node until they are confirmed, and resends
+ * the ones which are lost or ran out of energy.
+ *
+ * <p>The transactions are kept in memory, ordered by the time they are due to be checked:
+ * {@code node.confirm.after} ms after they are sent. Every {@code node.confirm.interval} ms the
+ * due ones are checked in parallel by {@code node.confirm.threads} threads, and their new status
+ * is written with one statement. The balance of the node, needed before a resend, is cached for
+ * {@code node.confirm.balanceTtl} ms. The database is only read once at startup, to pick up the
+ * transactions of the previous run.
+ */
 @Slf4j
-public class ReSender {
+@Component
+public class ReSender implements MeterBinder {
 
-  @Autowired
-  private TronTxService tronTxService;
-  public ReSender(TronTxService _tronTxService) {
-    tronTxService = _tronTxService;
+  private static final int BATCH_SIZE = 500;
+
+  /** calls to the fullnode, visible for tests. */
+  interface Fullnode {
+    /** @return the transaction info, "{}" if the transaction is not found */
+    String getTransactionInfo(String txId) throws Exception;
+
+    long getBalance() throws Exception;
+
+    /** signs and sends the transaction again, the new id is set on the returned copy. */
+    TronTx resend(TronTx tx) throws Exception;
   }
 
-  private static final long RESEND_AFTER_THRESHOLD = 100_000L ; // 100 Second
+  private final TronTxService tronTxService;
+  private final JobRunWriter jobRunWriter;
+  private final Fullnode fullnode;
+  private final long after;
+  private final long interval;
+  private final long balanceTtl;
+
+  private final DelayQueue<Tracked> queue = new DelayQueue<>();
+  // task run id -> tracked, a task run sends at most one transaction
+  private final Map<String, Tracked> inFlight = new ConcurrentHashMap<>();
+  private final Object writeLock = new Object();
+  private Map<String, TronTx> pendingWrites = new LinkedHashMap<>();
+  private long balance;
+  private long balanceAt;
 
+  private final ExecutorService checkers;
+  private final ScheduledExecutorService listenExecutor;
 
-  private ScheduledExecutorService listenExecutor = Executors.newSingleThreadScheduledExecutor();
+  private final AtomicLong confirmed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong resent = new AtomicLong();
 
+  @Autowired
+  public ReSender(TronTxService tronTxService, JobRunWriter jobRunWriter,
+      @Value("${node.confirm.after:#{100000}}") long after,
+      @Value("${node.confirm.interval:#{1000}}") long interval,
+      @Value("${node.confirm.threads:#{4}}") int threads,
+      @Value("${node.confirm.balanceTtl:#{10000}}") long balanceTtl) {
+    this(tronTxService, jobRunWriter, new HttpFullnode(), after, interval, threads, balanceTtl);
+  }
+
+  ReSender(TronTxService tronTxService, JobRunWriter jobRunWriter, Fullnode fullnode, long after,
+      long interval, int threads, long balanceTtl) {
+    this.tronTxService = tronTxService;
+    this.jobRunWriter = jobRunWriter;
+    this.fullnode = fullnode;
+    this.after = after;
+    this.interval = interval;
+    this.balanceTtl = balanceTtl;
+    this.checkers = Executors.newFixedThreadPool(threads,
+        ThreadUtil.newThreadFactory("tx-confirm-", false));
+    this.listenExecutor = Executors.newSingleThreadScheduledExecutor(
+        ThreadUtil.newThreadFactory("tx-confirm-poll-", false));
+  }
+
+  /** loads the in-progress transactions of the database and starts checking. */
   public void run() {
+    if (jobRunWriter != null) {
+      // the txes of the journal replay are written first
+      jobRunWriter.flush();
+    }
+    List<TronTx> inProgressTxes = tronTxService.getByConfirmedAndDate(TronTxInProgress,
+        Long.MAX_VALUE);
+    if (inProgressTxes != null) {
+      inProgressTxes.forEach(this::track);
+      log.info("track {} in-progress txes", inProgressTxes.size());
+    }
     listenExecutor.scheduleWithFixedDelay(
         () -> {
           try {
-            pollResend();
+            poll();
           } catch (Throwable t) {
             log.error("Exception in pollResend ", t);
           }
         },
-        0,
-        5000, // poll every 5 seconds
+        interval,
+        interval,
         TimeUnit.MILLISECONDS);
   }
 
-  private void pollResend() {
-    // 1. for inprogress tx, confirmed=TronTxInProgress
-    List<TronTx> inProgressTxes = tronTxService.getByConfirmedAndDate(TronTxInProgress,
-        System.currentTimeMillis() - RESEND_AFTER_THRESHOLD);
-    if(inProgressTxes == null || inProgressTxes.size() == 0) {
+  /** tracks an in-progress transaction, a copy is kept so the caller may still write it. */
+  public void track(TronTx tx) {
+    if (tx == null || tx.getTaskRunId() == null
+        || !Long.valueOf(TronTxInProgress).equals(tx.getConfirmed())) {
+      return;
+    }
+    Tracked tracked = new Tracked(copyOf(tx), dueAt(tx));
+    if (inFlight.putIfAbsent(tx.getTaskRunId(), tracked) == null) {
+      queue.add(tracked);
+    }
+  }
+
+  public int getTracked() {
+    return inFlight.size();
+  }
+
+  /** checks the due transactions and writes their status. */
+  void poll() {
+    List<Tracked> due = new ArrayList<>();
+    queue.drainTo(due);
+    if (!due.isEmpty()) {
+      CompletableFuture.allOf(due.stream()
+          .map(tracked -> CompletableFuture.runAsync(() -> check(tracked), checkers))
+          .toArray(CompletableFuture[]::new))
+          .join();
+    }
+    flush();
+  }
+
+  private void check(Tracked tracked) {
+    TronTx tx = tracked.tx;
+    String responseStr;
+    try {
+      responseStr = fullnode.getTransactionInfo(tx.getSurrogateId());
+    } catch (Exception e) {
+      log.warn("get transaction info of {} failed, msg: {}", tx.getSurrogateId(), e.getMessage());
+      recheck(tracked);
+      return;
+    }
+    if (responseStr == null) {
+      recheck(tracked);
+      return;
+    }
+    if ("{}".equals(responseStr.trim())) { // cannot find the tx
+      resend(tracked);
+      return;
+    }
+    JSONObject receipt = JSONObject.parseObject(responseStr).getJSONObject("receipt");
+    String receiptResult = receipt == null ? null : receipt.getString("result");
+    /* contract result type:
+      DEFAULT = 0;
+      SUCCESS = 1;
+      REVERT = 2;
+      BAD_JUMP_DESTINATION = 3;
+      OUT_OF_MEMORY = 4;
+      PRECOMPILED_CONTRACT = 5;
+      STACK_TOO_SMALL = 6;
+      STACK_TOO_LARGE = 7;
+      ILLEGAL_OPERATION = 8;
+      STACK_OVERFLOW = 9;
+      OUT_OF_ENERGY = 10;
+      OUT_OF_TIME = 11;
+      JVM_STACK_OVER_FLOW = 12;
+      UNKNOWN = 13;
+      TRANSFER_FAILED = 14;*/
+    if ("OUT_OF_ENERGY".equals(receiptResult)) {
+      resend(tracked);
+    } else if ("SUCCESS".equals(receiptResult)) {
+      confirmed.incrementAndGet();
+      finish(tx, TronTxConfirmed);
+    } else {
+      failed.incrementAndGet();
+      log.warn("tx {} failed, result: {}", tx.getSurrogateId(), receiptResult);
+      finish(tx, TronTxFatalError);
+    }
+  }
+
+  private void resend(Tracked tracked) {
+    TronTx tx = tracked.tx;
+    try {
+      if (getBalance() < Config.getMinFeeLimit()) {
+        log.error("Insufficient TRX in the node account, tx {} is not resent", tx.getSurrogateId());
+        recheck(tracked);
+        return;
+      }
+    } catch (Exception ex) {
+      log.error("get balance of the node failed, msg: {}", ex.getMessage());
+      recheck(tracked);
+      return;
+    }
+    log.info("Resending txes of task run: " + tx.getTaskRunId());
+    TronTx resendTx;
+    try {
+      resendTx = fullnode.resend(tx);
+    } catch (Exception ex) {
+      log.error("resend tx {} failed, msg: {}", tx.getSurrogateId(), ex.getMessage());
+      recheck(tracked);
       return;
     }
-    for (TronTx tx : inProgressTxes) {
-      String txId = tx.getSurrogateId();
-      String responseStr = getConfirmedTransationInfoById(txId);
-      if("{}\n".equals(responseStr)) { // cannot find the tx
-        long nodeBalance = 0L;
-        try {
-          nodeBalance = ContractAdapter.getTRXBalance(KeyStore.getAddr(), true, true);
-        } catch (Exception ex) {
-          log.error("Exception in pollResend ", ex);
-          return;
-        }
-        if (nodeBalance < Config.getMinFeeLimit()) {
-          log.error("Insufficient TRX in the node account");
-          continue;
-        }
-        log.info("Resending txes id: " + tx.getId());
-        TronTx resendTx = resendUnconfirmed(tx);
-        if (resendTx != null) {
-          tronTxService.update(resendTx);
-        }
-        continue;
+    resent.incrementAndGet();
+    write(resendTx);
+    Tracked next = new Tracked(resendTx, dueAt(resendTx));
+    inFlight.put(tx.getTaskRunId(), next);
+    queue.add(next);
+  }
+
+  private void recheck(Tracked tracked) {
+    Tracked next = new Tracked(tracked.tx, System.currentTimeMillis() + after);
+    inFlight.put(tracked.tx.getTaskRunId(), next);
+    queue.add(next);
+  }
+
+  private void finish(TronTx tx, long status) {
+    TronTx done = copyOf(tx);
+    done.setConfirmed(status);
+    inFlight.remove(tx.getTaskRunId());
+    write(done);
+  }
+
+  private void write(TronTx tx) {
+    tx.setUpdatedAt(new Date());
+    synchronized (writeLock) {
+      pendingWrites.put(tx.getTaskRunId(), tx);
+    }
+  }
+
+  private void flush() {
+    Map<String, TronTx> batch;
+    synchronized (writeLock) {
+      if (pendingWrites.isEmpty()) {
+        return;
       }
-      JSONObject receipt = JSONObject.parseObject(JSONObject.parseObject(responseStr).getString("receipt"));
-      String receiptResult = receipt.getString("result");
-      /* contract result type:
-        DEFAULT = 0;
-        SUCCESS = 1;
-        REVERT = 2;
-        BAD_JUMP_DESTINATION = 3;
-        OUT_OF_MEMORY = 4;
-        PRECOMPILED_CONTRACT = 5;
-        STACK_TOO_SMALL = 6;
-        STACK_TOO_LARGE = 7;
-        ILLEGAL_OPERATION = 8;
-        STACK_OVERFLOW = 9;
-        OUT_OF_ENERGY = 10;
-        OUT_OF_TIME = 11;
-        JVM_STACK_OVER_FLOW = 12;
-        UNKNOWN = 13;
-        TRANSFER_FAILED = 14;*/
-      if ("OUT_OF_ENERGY".equals(receiptResult)) {
-        long nodeBalance = 0L;
-        try {
-          nodeBalance = ContractAdapter.getTRXBalance(KeyStore.getAddr(), true, true);
-        } catch (Exception ex) {
-          log.error("Exception in pollResend for OUT_OF_ENERGY tx", ex);
-          return;
-        }
-        if (nodeBalance < Config.getMinFeeLimit()) {
-          log.error("Insufficient TRX in the node account for OUT_OF_ENERGY tx");
-          continue;
-        }
-        log.info("Resending OUT_OF_ENERGY txes id: " + tx.getId());
-        TronTx resendTx = resendUnconfirmed(tx);
-        if (resendTx != null) {
-          tronTxService.update(resendTx);
-        }
-      } else if ("SUCCESS".equals(receiptResult)) {
-        tx.setConfirmed(TronTxConfirmed);
-        tx.setUpdatedAt(new Date());
-        tronTxService.update(tx);
-      } else {
-        tx.setConfirmed(TronTxFatalError);
-        tx.setUpdatedAt(new Date());
-        tronTxService.update(tx);
+      batch = pendingWrites;
+      pendingWrites = new LinkedHashMap<>();
+    }
+    try {
+      for (List<TronTx> part : Lists.partition(new ArrayList<>(batch.values()), BATCH_SIZE)) {
+        tronTxService.batchUpdate(part);
+      }
+    } catch (Exception e) {
+      log.error("update txes failed, retry later, msg: {}", e.getMessage());
+      // keep the newer copies written in between
+      synchronized (writeLock) {
+        batch.putAll(pendingWrites);
+        pendingWrites = batch;
       }
     }
   }
 
+  private synchronized long getBalance() throws Exception {
+    long now = System.currentTimeMillis();
+    if (now - balanceAt > balanceTtl) {
+      balance = fullnode.getBalance();
+      balanceAt = now;
+    }
+    return balance;
+  }
+
+  private long dueAt(TronTx tx) {
+    return (tx.getSentAt() == null ? System.currentTimeMillis() : tx.getSentAt()) + after;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    listenExecutor.shutdownNow();
+    checkers.shutdownNow();
+    flush();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("tx.confirm.tracked", this, ReSender::getTracked)
+        .description("in-progress transactions waiting to be confirmed")
+        .register(registry);
+    counter(registry, "confirmed", confirmed);
+    counter(registry, "failed", failed);
+    counter(registry, "resent", resent);
+  }
+
+  private void counter(MeterRegistry registry, String result, AtomicLong value) {
+    FunctionCounter.builder("tx.confirm", value, AtomicLong::get)
+        .tag("result", result)
+        .description("checked in-progress transactions by result")
+        .register(registry);
+  }
+
   /** constructor. */
   public static String getConfirmedTransationInfoById(String txId) {
     try {
@@ -150,25 +350,73 @@ public class ReSender {
     return map;
   }
 
-  private static TronTx resendUnconfirmed(TronTx tx) {
-    try {
-      String data = tx.getData();
-      Map<String, Object> params = convertWithStream(data);
+  private static TronTx copyOf(TronTx tx) {
+    TronTx copy = new TronTx();
+    copy.setId(tx.getId());
+    copy.setTaskRunId(tx.getTaskRunId());
+    copy.setSurrogateId(tx.getSurrogateId());
+    copy.setFrom(tx.getFrom());
+    copy.setTo(tx.getTo());
+    copy.setData(tx.getData());
+    copy.setValue(tx.getValue());
+    copy.setHash(tx.getHash());
+    copy.setConfirmed(tx.getConfirmed());
+    copy.setSentAt(tx.getSentAt());
+    copy.setSignedRawTx(tx.getSignedRawTx());
+    copy.setCreatedAt(tx.getCreatedAt());
+    copy.setUpdatedAt(tx.getUpdatedAt());
+    return copy;
+  }
+
+  private static class HttpFullnode implements Fullnode {
+    @Override
+    public String getTransactionInfo(String txId) throws Exception {
+      Map<String, Object> params = Maps.newHashMap();
+      params.put("value", txId);
+      params.put("visible", true);
+      return HttpUtil.post("https", FULLNODE_HOST, "/walletsolidity/gettransactioninfobyid",
+          params);
+    }
+
+    @Override
+    public long getBalance() throws Exception {
+      return ContractAdapter.getTRXBalance(KeyStore.getAddr(), true, true);
+    }
+
+    @Override
+    public TronTx resend(TronTx tx) throws Exception {
+      Map<String, Object> params = convertWithStream(tx.getData());
       params.put("call_value", 0); // reset
       params.put("visible", true);
       TronTx resendTx = new TronTx();
       OracleClient.triggerSignAndResponse(params, resendTx);
-      tx.setSurrogateId(resendTx.getSurrogateId());
-      tx.setSignedRawTx(resendTx.getSignedRawTx()); // for resend
-      tx.setHash(resendTx.getHash());
-      tx.setSentAt(System.currentTimeMillis());
-      tx.setUpdatedAt(new Date());
-      tx.setConfirmed(TronTxInProgress);
-      return tx;
-    } catch (Exception ex) {
-      return null;
+      TronTx copy = copyOf(tx);
+      copy.setSurrogateId(resendTx.getSurrogateId());
+      copy.setSignedRawTx(resendTx.getSignedRawTx()); // for resend
+      copy.setHash(resendTx.getHash());
+      copy.setSentAt(System.currentTimeMillis());
+      copy.setConfirmed(TronTxInProgress);
+      return copy;
     }
   }
 
-}
+  private static class Tracked implements Delayed {
+    private final TronTx tx;
+    private final long dueAt;
+
+    Tracked(TronTx tx, long dueAt) {
+      this.tx = tx;
+      this.dueAt = dueAt;
+    }
 
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(dueAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+      return Longs.compare(dueAt, ((Tracked) o).dueAt);
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.tron.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RoundEventRequest {
+  private long roundId;
+  private String startBy;
+  private long startAt;
+  private String address;
+}
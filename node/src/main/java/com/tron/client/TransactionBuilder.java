@@ -0,0 +1,154 @@
+package com.tron.client;
+
+import static com.tron.common.Constant.FULLNODE_HOST;
+
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.tron.common.AbiUtil;
+import com.tron.common.Config;
+import com.tron.common.util.HttpUtil;
+import com.tron.common.util.ThreadUtil;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.spongycastle.util.encoders.Hex;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.Commons;
+import org.tron.protos.Protocol;
+import org.tron.protos.contract.SmartContractOuterClass.TriggerSmartContract;
+
+/**
+ * Builds the TriggerSmartContract transactions of the node locally, instead of asking the fullnode
+ * to build them with /wallet/triggersmartcontract before signing.
+ *
+ * <p>A transaction refers to a recent block (TaPoS), the latest solidified block is fetched in the
+ * background every {@code node.tx.refBlockInterval} ms, so it cannot be forked away. The
+ * expiration is set from the local clock. When no ref block younger than an hour is known the
+ * caller falls back to the fullnode.
+ */
+@Slf4j
+public class TransactionBuilder {
+
+  private static final long REF_BLOCK_MAX_AGE = TimeUnit.HOURS.toMillis(1);
+
+  private static volatile RefBlock refBlock;
+  private static ScheduledExecutorService scheduler;
+
+  /**
+   * @param params the params of /wallet/triggersmartcontract
+   * @return the raw transaction, null if local building is disabled or no recent ref block is known
+   */
+  public static Protocol.Transaction.raw buildTrigger(Map<String, Object> params) {
+    if (!Config.isTxLocalBuild()) {
+      return null;
+    }
+    start();
+    RefBlock ref = refBlock;
+    if (ref == null || System.currentTimeMillis() - ref.fetchedAt > REF_BLOCK_MAX_AGE) {
+      log.warn("no recent ref block, build the transaction on the fullnode");
+      return null;
+    }
+    return build(params, ref, System.currentTimeMillis());
+  }
+
+  /** the raw transaction on the ref block, expiring {@code node.tx.expiration} ms after now. */
+  static Protocol.Transaction.raw build(Map<String, Object> params, RefBlock ref, long now) {
+    String parameter = params.get("parameter") == null ? "" : params.get("parameter").toString();
+    byte[] data = Hex.decode(
+        AbiUtil.parseSelector(params.get("function_selector").toString()) + parameter);
+    TriggerSmartContract contract = TriggerSmartContract.newBuilder()
+        .setOwnerAddress(address(params.get("owner_address")))
+        .setContractAddress(address(params.get("contract_address")))
+        .setData(ByteString.copyFrom(data))
+        .setCallValue(longValue(params.get("call_value")))
+        .build();
+
+    return Protocol.Transaction.raw.newBuilder()
+        .addContract(Protocol.Transaction.Contract.newBuilder()
+            .setType(Protocol.Transaction.Contract.ContractType.TriggerSmartContract)
+            .setParameter(Any.pack(contract))
+            .build())
+        .setRefBlockBytes(ref.bytes)
+        .setRefBlockHash(ref.hash)
+        .setExpiration(now + Config.getTxExpiration())
+        .setTimestamp(now)
+        .setFeeLimit(longValue(params.get("fee_limit")))
+        .build();
+  }
+
+  private static synchronized void start() {
+    if (scheduler != null) {
+      return;
+    }
+    // the first transaction waits for the ref block
+    refresh();
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+        ThreadUtil.newThreadFactory("ref-block-", false));
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (Throwable t) {
+        log.error("Exception in ref block refresh ", t);
+      }
+    }, Config.getTxRefBlockInterval(), Config.getTxRefBlockInterval(), TimeUnit.MILLISECONDS);
+  }
+
+  private static void refresh() {
+    try {
+      String response = HttpUtil.post("https", FULLNODE_HOST, "/walletsolidity/getnowblock",
+          Maps.newHashMap());
+      RefBlock ref = parseRefBlock(response);
+      if (ref != null) {
+        refBlock = ref;
+        log.debug("ref block {} refreshed", ref.number);
+      }
+    } catch (Exception e) {
+      log.warn("get ref block failed, msg: {}", e.getMessage());
+    }
+  }
+
+  /** @return the ref block of the getnowblock response, null if it has none */
+  static RefBlock parseRefBlock(String response) {
+    if (Strings.isNullOrEmpty(response)) {
+      return null;
+    }
+    JSONObject block = JSONObject.parseObject(response);
+    String blockId = block.getString("blockID");
+    if (Strings.isNullOrEmpty(blockId)) {
+      return null;
+    }
+    long number = block.getJSONObject("block_header").getJSONObject("raw_data")
+        .getLongValue("number");
+    byte[] hash = ByteArray.fromHexString(blockId);
+    byte[] num = ByteArray.fromLong(number);
+    return new RefBlock(ByteString.copyFrom(Arrays.copyOfRange(num, 6, 8)),
+        ByteString.copyFrom(Arrays.copyOfRange(hash, 8, 16)), number);
+  }
+
+  private static ByteString address(Object base58) {
+    return ByteString.copyFrom(Commons.decodeFromBase58Check(base58.toString()));
+  }
+
+  private static long longValue(Object value) {
+    return value == null ? 0 : Long.parseLong(value.toString());
+  }
+
+  static class RefBlock {
+    final ByteString bytes;
+    final ByteString hash;
+    final long number;
+    final long fetchedAt = System.currentTimeMillis();
+
+    RefBlock(ByteString bytes, ByteString hash, long number) {
+      this.bytes = bytes;
+      this.hash = hash;
+      this.number = number;
+    }
+  }
+}
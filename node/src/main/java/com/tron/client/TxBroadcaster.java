@@ -0,0 +1,229 @@
+package com.tron.client;
+
+import static com.tron.common.Constant.FULLNODE_HOST;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.RateLimiter;
+import com.tron.client.message.BroadCastResponse;
+import com.tron.common.util.HttpUtil;
+import com.tron.common.util.ThreadUtil;
+import com.tron.job.JobRunWriter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.tron.common.utils.JsonUtil;
+
+/**
+ * Sends the signed transactions of the node to the fullnode.
+ *
+ * <p>The transactions are queued and sent by {@code node.broadcast.threads} broadcasters, at most
+ * {@code node.broadcast.rate} per second to each fullnode, so a burst of requests is smoothed out
+ * instead of being throttled by the fullnode. Tron transactions carry no nonce, their order does
+ * not matter. A transaction refused because the fullnode is busy, or not answered, is sent again
+ * up to {@code node.broadcast.maxRetries} times, waiting {@code node.broadcast.retryBackoff} ms
+ * doubled on every retry. The row of a transaction which is refused for good, or still not sent
+ * after the retries, is marked failed through the {@link JobRunWriter}.
+ */
+@Slf4j
+@Component
+public class TxBroadcaster implements MeterBinder {
+
+  /** sends one transaction, visible for tests. */
+  interface Sender {
+    BroadCastResponse send(String host, String signedTx) throws Exception;
+  }
+
+  private static final Set<String> RETRYABLE_CODES = ImmutableSet.of(
+      "SERVER_BUSY", "NO_CONNECTION", "NOT_ENOUGH_EFFECTIVE_CONNECTION", "OTHER_ERROR");
+  // sent before, e.g. by a retry whose response was lost
+  private static final String DUPLICATE_CODE = "DUP_TRANSACTION_ERROR";
+
+  private final Sender sender;
+  private final JobRunWriter jobRunWriter;
+  private final double rate;
+  private final int maxRetries;
+  private final long retryBackoff;
+  private final BlockingQueue<Broadcast> queue;
+  private final ExecutorService broadcasters;
+  private final ScheduledExecutorService retryScheduler;
+  private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+  private volatile boolean running = true;
+
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong retried = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+
+  @Autowired
+  public TxBroadcaster(JobRunWriter jobRunWriter,
+      @Value("${node.broadcast.threads:#{4}}") int threads,
+      @Value("${node.broadcast.queueCapacity:#{10000}}") int queueCapacity,
+      @Value("${node.broadcast.rate:#{20}}") double rate,
+      @Value("${node.broadcast.maxRetries:#{3}}") int maxRetries,
+      @Value("${node.broadcast.retryBackoff:#{500}}") long retryBackoff) {
+    this(TxBroadcaster::broadcastHex, jobRunWriter, threads, queueCapacity, rate, maxRetries,
+        retryBackoff);
+  }
+
+  TxBroadcaster(Sender sender, JobRunWriter jobRunWriter, int threads, int queueCapacity,
+      double rate, int maxRetries, long retryBackoff) {
+    this.sender = sender;
+    this.jobRunWriter = jobRunWriter;
+    this.rate = rate;
+    this.maxRetries = maxRetries;
+    this.retryBackoff = retryBackoff;
+    this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    this.broadcasters = Executors.newFixedThreadPool(threads,
+        ThreadUtil.newThreadFactory("tx-broadcaster-", false));
+    for (int i = 0; i < threads; i++) {
+      broadcasters.execute(this::broadcastLoop);
+    }
+    this.retryScheduler = Executors.newSingleThreadScheduledExecutor(
+        ThreadUtil.newThreadFactory("tx-broadcast-retry-", false));
+    log.info("tx broadcaster started, threads: {}, queueCapacity: {}, rate: {}/s, maxRetries: {}",
+        threads, queueCapacity, rate, maxRetries);
+  }
+
+  /**
+   * @param signedTx hex of the signed transaction
+   * @return false if the queue is full and the transaction is not sent
+   */
+  public boolean submit(String txId, String signedTx) {
+    if (!queue.offer(new Broadcast(txId, signedTx, FULLNODE_HOST))) {
+      rejected.incrementAndGet();
+      log.error("broadcast queue is full, tx {} is not sent", txId);
+      return false;
+    }
+    return true;
+  }
+
+  public int getQueued() {
+    return queue.size();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    running = false;
+    retryScheduler.shutdownNow();
+    broadcasters.shutdownNow();
+    if (!queue.isEmpty()) {
+      log.warn("{} transactions are not broadcast at shutdown", queue.size());
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("tx.broadcast.queued", this, TxBroadcaster::getQueued)
+        .description("transactions waiting to be broadcast")
+        .register(registry);
+    counter(registry, "sent", sent);
+    counter(registry, "retried", retried);
+    counter(registry, "failed", failed);
+    counter(registry, "rejected", rejected);
+  }
+
+  private void counter(MeterRegistry registry, String result, AtomicLong value) {
+    FunctionCounter.builder("tx.broadcast", value, AtomicLong::get)
+        .tag("result", result)
+        .description("broadcasts of transactions by result")
+        .register(registry);
+  }
+
+  private void broadcastLoop() {
+    while (running) {
+      try {
+        send(queue.take());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Throwable t) {
+        log.error("Exception in tx broadcaster ", t);
+      }
+    }
+  }
+
+  void send(Broadcast broadcast) {
+    rateLimiters.computeIfAbsent(broadcast.host, host -> RateLimiter.create(rate)).acquire();
+    String error;
+    try {
+      BroadCastResponse response = sender.send(broadcast.host, broadcast.signedTx);
+      if (response != null && (response.isResult() || DUPLICATE_CODE.equals(response.getCode()))) {
+        sent.incrementAndGet();
+        log.info("tx {} broadcast, attempts: {}", broadcast.txId, broadcast.attempts + 1);
+        return;
+      }
+      error = response == null ? "empty response" : response.getCode();
+      if (response != null && !RETRYABLE_CODES.contains(response.getCode())) {
+        log.error("broadcast tx {} failed, code: {}, msg: {}", broadcast.txId,
+            response.getCode(), response.getMessage());
+        fail(broadcast);
+        return;
+      }
+    } catch (Exception e) {
+      error = e.getMessage();
+    }
+    retry(broadcast, error);
+  }
+
+  private void retry(Broadcast broadcast, String error) {
+    if (broadcast.attempts >= maxRetries) {
+      log.error("broadcast tx {} failed after {} attempts, error: {}", broadcast.txId,
+          broadcast.attempts + 1, error);
+      fail(broadcast);
+      return;
+    }
+    long delay = retryBackoff << broadcast.attempts;
+    broadcast.attempts++;
+    retried.incrementAndGet();
+    log.warn("broadcast tx {} failed, retry in {} ms, error: {}", broadcast.txId, delay, error);
+    retryScheduler.schedule(() -> {
+      if (!queue.offer(broadcast)) {
+        rejected.incrementAndGet();
+        log.error("broadcast queue is full, tx {} is not retried", broadcast.txId);
+        jobRunWriter.failTx(broadcast.txId);
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  private void fail(Broadcast broadcast) {
+    failed.incrementAndGet();
+    jobRunWriter.failTx(broadcast.txId);
+  }
+
+  private static BroadCastResponse broadcastHex(String host, String signedTx) throws Exception {
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("transaction", signedTx);
+    String response = HttpUtil.post("https", host, "/wallet/broadcasthex", params);
+    return JsonUtil.json2Obj(response, BroadCastResponse.class);
+  }
+
+  static class Broadcast {
+    private final String txId;
+    private final String signedTx;
+    private final String host;
+    private int attempts;
+
+    Broadcast(String txId, String signedTx, String host) {
+      this.txId = txId;
+      this.signedTx = signedTx;
+      this.host = host;
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package com.tron.common;
 
+import static com.tron.common.Constant.EVENT_SOURCE_TRONGRID;
+
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -16,6 +18,84 @@ public class Config {
   @Getter
   private static String usdtUsdAggregator;
 
+  @Getter
+  private static int httpMaxTotal = 200;
+
+  @Getter
+  private static int httpMaxPerRoute = 50;
+
+  @Getter
+  private static long httpKeepAlive = 30000L;
+
+  @Getter
+  private static long httpMaxIdleTime = 60000L;
+
+  @Getter
+  private static int httpConnectionRequestTimeout = 5000;
+
+  @Getter
+  private static boolean virtualThreads;
+
+  @Getter
+  private static int eventPollerThreads = 4;
+
+  @Getter
+  private static int eventPollerMaxConcurrent = 32;
+
+  @Getter
+  private static long eventPollerMinInterval = 1000L;
+
+  @Getter
+  private static long eventPollerMaxInterval = 3000L;
+
+  @Getter
+  private static String eventSource = EVENT_SOURCE_TRONGRID;
+
+  @Getter
+  private static long blockScannerInterval = 3000L;
+
+  @Getter
+  private static int blockScannerMaxBlocks = 20;
+
+  @Getter
+  private static int blockScannerConfirmations = 0;
+
+  @Getter
+  private static long priceCacheTtl = 1000L;
+
+  @Getter
+  private static long priceCacheMaxStale = 30000L;
+
+  @Getter
+  private static long priceCacheMaxSize = 10000L;
+
+  @Getter
+  private static boolean txLocalBuild = true;
+
+  @Getter
+  private static long txExpiration = 60000L;
+
+  @Getter
+  private static long txRefBlockInterval = 30000L;
+
+  @Getter
+  private static boolean vrfSelfVerify = false;
+
+  @Getter
+  private static long vrfBatchWindow = 10L;
+
+  @Getter
+  private static int vrfBatchSize = 64;
+
+  @Getter
+  private static long vrfTimeout = 30000L;
+
+  @Getter
+  private static long blockCacheMaxSize = 1024L;
+
+  @Getter
+  private static int aggregateThreads = 32;
+
   @Value("${node.minFeeLimit:#{10000000}}")
   public void setMinFeeLimit(long minFeeLimit) {
     Config.minFeeLimit = minFeeLimit;
@@ -30,4 +110,134 @@ public class Config {
   public void setUsdtUsdAggregator(String address) {
     Config.usdtUsdAggregator = address;
   }
+
+  @Value("${node.http.maxTotal:#{200}}")
+  public void setHttpMaxTotal(int maxTotal) {
+    Config.httpMaxTotal = maxTotal;
+  }
+
+  @Value("${node.http.maxPerRoute:#{50}}")
+  public void setHttpMaxPerRoute(int maxPerRoute) {
+    Config.httpMaxPerRoute = maxPerRoute;
+  }
+
+  @Value("${node.http.keepAlive:#{30000}}")
+  public void setHttpKeepAlive(long keepAlive) {
+    Config.httpKeepAlive = keepAlive;
+  }
+
+  @Value("${node.http.maxIdleTime:#{60000}}")
+  public void setHttpMaxIdleTime(long maxIdleTime) {
+    Config.httpMaxIdleTime = maxIdleTime;
+  }
+
+  @Value("${node.http.connectionRequestTimeout:#{5000}}")
+  public void setHttpConnectionRequestTimeout(int timeout) {
+    Config.httpConnectionRequestTimeout = timeout;
+  }
+
+  @Value("${node.virtualThreads:#{false}}")
+  public void setVirtualThreads(boolean virtualThreads) {
+    Config.virtualThreads = virtualThreads;
+  }
+
+  @Value("${node.eventPoller.threads:#{4}}")
+  public void setEventPollerThreads(int threads) {
+    Config.eventPollerThreads = threads;
+  }
+
+  @Value("${node.eventPoller.maxConcurrent:#{32}}")
+  public void setEventPollerMaxConcurrent(int maxConcurrent) {
+    Config.eventPollerMaxConcurrent = maxConcurrent;
+  }
+
+  @Value("${node.eventPoller.minInterval:#{1000}}")
+  public void setEventPollerMinInterval(long minInterval) {
+    Config.eventPollerMinInterval = minInterval;
+  }
+
+  @Value("${node.eventPoller.maxInterval:#{3000}}")
+  public void setEventPollerMaxInterval(long maxInterval) {
+    Config.eventPollerMaxInterval = maxInterval;
+  }
+
+  @Value("${node.eventSource:trongrid}")
+  public void setEventSource(String eventSource) {
+    Config.eventSource = eventSource;
+  }
+
+  @Value("${node.blockScanner.interval:#{3000}}")
+  public void setBlockScannerInterval(long interval) {
+    Config.blockScannerInterval = interval;
+  }
+
+  @Value("${node.blockScanner.maxBlocks:#{20}}")
+  public void setBlockScannerMaxBlocks(int maxBlocks) {
+    Config.blockScannerMaxBlocks = maxBlocks;
+  }
+
+  @Value("${node.blockScanner.confirmations:#{0}}")
+  public void setBlockScannerConfirmations(int confirmations) {
+    Config.blockScannerConfirmations = confirmations;
+  }
+
+  @Value("${node.priceCache.ttl:#{1000}}")
+  public void setPriceCacheTtl(long ttl) {
+    Config.priceCacheTtl = ttl;
+  }
+
+  @Value("${node.priceCache.maxStale:#{30000}}")
+  public void setPriceCacheMaxStale(long maxStale) {
+    Config.priceCacheMaxStale = maxStale;
+  }
+
+  @Value("${node.priceCache.maxSize:#{10000}}")
+  public void setPriceCacheMaxSize(long maxSize) {
+    Config.priceCacheMaxSize = maxSize;
+  }
+
+  @Value("${node.tx.localBuild:#{true}}")
+  public void setTxLocalBuild(boolean localBuild) {
+    Config.txLocalBuild = localBuild;
+  }
+
+  @Value("${node.tx.expiration:#{60000}}")
+  public void setTxExpiration(long expiration) {
+    Config.txExpiration = expiration;
+  }
+
+  @Value("${node.tx.refBlockInterval:#{30000}}")
+  public void setTxRefBlockInterval(long interval) {
+    Config.txRefBlockInterval = interval;
+  }
+
+  @Value("${node.vrf.selfVerify:#{false}}")
+  public void setVrfSelfVerify(boolean selfVerify) {
+    Config.vrfSelfVerify = selfVerify;
+  }
+
+  @Value("${node.vrf.batchWindow:#{10}}")
+  public void setVrfBatchWindow(long batchWindow) {
+    Config.vrfBatchWindow = batchWindow;
+  }
+
+  @Value("${node.vrf.batchSize:#{64}}")
+  public void setVrfBatchSize(int batchSize) {
+    Config.vrfBatchSize = batchSize;
+  }
+
+  @Value("${node.vrf.timeout:#{30000}}")
+  public void setVrfTimeout(long timeout) {
+    Config.vrfTimeout = timeout;
+  }
+
+  @Value("${node.blockCache.maxSize:#{1024}}")
+  public void setBlockCacheMaxSize(long maxSize) {
+    Config.blockCacheMaxSize = maxSize;
+  }
+
+  @Value("${node.aggregate.threads:#{32}}")
+  public void setAggregateThreads(int threads) {
+    Config.aggregateThreads = threads;
+  }
 }
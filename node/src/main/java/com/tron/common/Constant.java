@@ -43,11 +43,21 @@ public class Constant {
   public static final String TASK_TYPE_CACHE = "cache";
   public static final String TASK_TYPE_CONVERT_TRX = "converttrx";
   public static final String TASK_TYPE_RANDOM = "random";
+  public static final String TASK_TYPE_MEDIAN = "median";
+  public static final String TASK_TYPE_MEAN = "mean";
+  public static final String TASK_TYPE_AGGREGATE = "aggregate";
+
+  public static final String AGGREGATE_METHOD_MEDIAN = "median";
+  public static final String AGGREGATE_METHOD_TRIMMED_MEAN = "trimmedmean";
 
   // initiator type
   public static final String INITIATOR_TYPE_RUN_LOG = "runlog";
   public static final String INITIATOR_TYPE_RANDOMNESS_LOG = "randomnesslog";
 
+  // event source
+  public static final String EVENT_SOURCE_TRONGRID = "trongrid";
+  public static final String EVENT_SOURCE_FULLNODE = "fullnode";
+
   // pairs
   public static final String PAIR_TYPE_JUST_TRX = "jst-trx";
   public static final String PAIR_TYPE_SUN_TRX = "sun-trx";
@@ -0,0 +1,38 @@
+package com.tron.common.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import org.apache.http.pool.PoolStats;
+import org.springframework.stereotype.Component;
+
+/** Expose the shared http connection pools of {@link HttpUtil} through the actuator metrics. */
+@Component
+public class HttpPoolMetrics implements MeterBinder {
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    bindPool(registry, "blocking", HttpUtil::getPoolStats);
+    bindPool(registry, "async", HttpUtil::getAsyncPoolStats);
+  }
+
+  private void bindPool(MeterRegistry registry, String client, Supplier<PoolStats> stats) {
+    gauge(registry, client, "leased", stats, PoolStats::getLeased);
+    gauge(registry, client, "available", stats, PoolStats::getAvailable);
+    gauge(registry, client, "pending", stats, PoolStats::getPending);
+    gauge(registry, client, "max", stats, PoolStats::getMax);
+  }
+
+  private void gauge(MeterRegistry registry, String client, String state,
+      Supplier<PoolStats> stats, ToIntFunction<PoolStats> value) {
+    Gauge.builder("http.client.pool.connections", stats, s -> {
+      PoolStats current = s.get();
+      return current == null ? 0 : value.applyAsInt(current);
+    }).tag("client", client)
+        .tag("state", state)
+        .description("connections of the shared http client pool")
+        .register(registry);
+  }
+}
@@ -11,29 +11,142 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 
 @Slf4j
 public class HttpUtil {
 
-  private static RequestConfig requestConfig = RequestConfig.custom()
-    .setSocketTimeout(15000).setConnectTimeout(15000).build();
-  private static CloseableHttpClient client =
-    HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build();
+  private static volatile PoolingHttpClientConnectionManager connectionManager;
+  private static volatile CloseableHttpClient client;
+  private static volatile PoolingNHttpClientConnectionManager asyncConnectionManager;
+  private static volatile CloseableHttpAsyncClient asyncClient;
+
+  /** delays the retries of the async requests, the attempts themselves run on the I/O reactor. */
+  private static final ScheduledExecutorService retryScheduler =
+      Executors.newSingleThreadScheduledExecutor(ThreadUtil.newThreadFactory("http-retry-", false));
+
+  /**
+   * The shared client is built on first use so that the pool settings in {@link Config} have
+   * already been bound by spring. Connections are kept alive and reused across calls, idle ones
+   * are evicted in the background.
+   */
+  private static CloseableHttpClient getClient() {
+    if (client == null) {
+      synchronized (HttpUtil.class) {
+        if (client == null) {
+          PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
+          cm.setMaxTotal(Config.getHttpMaxTotal());
+          cm.setDefaultMaxPerRoute(Config.getHttpMaxPerRoute());
+          cm.setValidateAfterInactivity(2000);
+          connectionManager = cm;
+          client = HttpClientBuilder.create()
+            .setConnectionManager(cm)
+            .setDefaultRequestConfig(requestConfig())
+            .setKeepAliveStrategy(keepAliveStrategy())
+            .evictExpiredConnections()
+            .evictIdleConnections(Config.getHttpMaxIdleTime(), TimeUnit.MILLISECONDS)
+            .build();
+          log.info("http connection pool created, maxTotal: {}, maxPerRoute: {}",
+            Config.getHttpMaxTotal(), Config.getHttpMaxPerRoute());
+        }
+      }
+    }
+    return client;
+  }
+
+  /**
+   * The non-blocking client shares the pool settings of the blocking one, but its requests are
+   * multiplexed over a few I/O reactor threads instead of pinning one thread per request.
+   */
+  private static CloseableHttpAsyncClient getAsyncClient() throws IOReactorException {
+    if (asyncClient == null) {
+      synchronized (HttpUtil.class) {
+        if (asyncClient == null) {
+          IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+            .setSoTimeout(15000).setConnectTimeout(15000).build();
+          PoolingNHttpClientConnectionManager cm =
+            new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+          cm.setMaxTotal(Config.getHttpMaxTotal());
+          cm.setDefaultMaxPerRoute(Config.getHttpMaxPerRoute());
+          CloseableHttpAsyncClient c = HttpAsyncClientBuilder.create()
+            .setConnectionManager(cm)
+            .setDefaultRequestConfig(requestConfig())
+            .setKeepAliveStrategy(keepAliveStrategy())
+            .build();
+          c.start();
+          asyncConnectionManager = cm;
+          asyncClient = c;
+          log.info("async http client started, maxTotal: {}, maxPerRoute: {}",
+            Config.getHttpMaxTotal(), Config.getHttpMaxPerRoute());
+        }
+      }
+    }
+    return asyncClient;
+  }
+
+  private static RequestConfig requestConfig() {
+    return RequestConfig.custom()
+      .setSocketTimeout(15000).setConnectTimeout(15000)
+      .setConnectionRequestTimeout(Config.getHttpConnectionRequestTimeout()).build();
+  }
+
+  private static ConnectionKeepAliveStrategy keepAliveStrategy() {
+    long keepAlive = Config.getHttpKeepAlive();
+    return (response, context) -> {
+      long duration =
+        DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+      return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+    };
+  }
+
+  /**
+   * @return statistics of the shared connection pool, or null if no request has been made yet
+   */
+  public static PoolStats getPoolStats() {
+    PoolingHttpClientConnectionManager cm = connectionManager;
+    return cm == null ? null : cm.getTotalStats();
+  }
+
+  /**
+   * @return statistics of the non-blocking connection pool, or null if it has not been started
+   */
+  public static PoolStats getAsyncPoolStats() {
+    PoolingNHttpClientConnectionManager cm = asyncConnectionManager;
+    return cm == null ? null : cm.getTotalStats();
+  }
 
   public static String get(String scheme, String host, String path, Map<String, String> paramMap)
     throws IOException {
@@ -53,19 +166,15 @@ public class HttpUtil {
       return null;
     }
 
-    CloseableHttpClient client =
-      HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build();
     HttpGet httpGet = new HttpGet(uri);
     httpGet.setHeader("TRON_PRO_API_KEY", Config.getApiKey());
-    try (CloseableHttpResponse response = client.execute(httpGet)) {
+    try (CloseableHttpResponse response = getClient().execute(httpGet)) {
       String result = EntityUtils.toString(response.getEntity());
       log.info("Get event from trongrid: {} | {}", uri, result);
       return result;
     } catch (IOException e) {
       e.printStackTrace();
       throw e;
-    } finally {
-      client.close();
     }
   }
 
@@ -86,19 +195,15 @@ public class HttpUtil {
       throw e;
     }
 
-    CloseableHttpClient client =
-      HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build();
     HttpPost httpPost = new HttpPost(uri);
     httpPost.setEntity(entity);
     httpPost.setHeader("Content-Type", "application/json;charset=utf8");
     httpPost.setHeader("TRON_PRO_API_KEY", Config.getApiKey());
-    try (CloseableHttpResponse response = client.execute(httpPost)) {
+    try (CloseableHttpResponse response = getClient().execute(httpPost)) {
       return EntityUtils.toString(response.getEntity());
     } catch (IOException e) {
       e.printStackTrace();
       throw e;
-    } finally {
-      client.close();
     }
   }
 
@@ -111,30 +216,22 @@ public class HttpUtil {
       return null;
     }
 
-//    CloseableHttpClient client =
-//            HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build();
     HttpGet httpGet = new HttpGet(uri);
     httpGet.setHeader("TRON_PRO_API_KEY", Config.getApiKey());
-    try (CloseableHttpResponse response = client.execute(httpGet)) {
+    try (CloseableHttpResponse response = getClient().execute(httpGet)) {
       return EntityUtils.toString(response.getEntity());
     } catch (IOException e) {
       e.printStackTrace();
       throw e;
-    } finally {
-      //client.close();
     }
   }
 
   public static String requestWithRetry(String url) throws IOException {
-    CloseableHttpClient client =
-      HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build();
     try {
-      return requestHandleTimeout(client, url);
+      return requestHandleTimeout(getClient(), url);
     } catch (Exception e) {
       log.error("Http Exception: {}", e.getMessage(), e);
       return null;
-    } finally {
-      client.close();
     }
   }
 
@@ -183,6 +280,8 @@ public class HttpUtil {
         if (retry > HTTP_MAX_RETRY_TIME) {
           break;
         }
+        // release the pooled connection before asking for another one
+        EntityUtils.consumeQuietly(response.getEntity());
         try {
           Thread.sleep(100 * retry);
         } catch (InterruptedException e) {
@@ -203,4 +302,157 @@ public class HttpUtil {
     return EntityUtils.toString(response.getEntity());
   }
 
+  public static CompletableFuture<String> getAsync(String scheme, String host, String path,
+    Map<String, String> paramMap) {
+    List<NameValuePair> params = new ArrayList<>();
+    paramMap.forEach((k, v) -> params.add(new BasicNameValuePair(k, v)));
+    URI uri;
+    try {
+      uri = new URIBuilder().setScheme(scheme).setHost(host).setPath(path)
+        .setParameters(params)
+        .build();
+    } catch (URISyntaxException e) {
+      return failed(e);
+    }
+
+    HttpGet httpGet = new HttpGet(uri);
+    httpGet.setHeader("TRON_PRO_API_KEY", Config.getApiKey());
+    return executeAsync(httpGet);
+  }
+
+  public static CompletableFuture<String> postAsync(String scheme, String host, String path,
+    Map<String, Object> paramMap) {
+    URI uri;
+    StringEntity entity;
+    try {
+      entity = new StringEntity(new ObjectMapper().writeValueAsString(paramMap), "UTF-8");
+      uri = new URIBuilder()
+        .setScheme(scheme)
+        .setHost(host)
+        .setPath(path)
+        .build();
+    } catch (IOException | URISyntaxException e) {
+      return failed(e);
+    }
+
+    HttpPost httpPost = new HttpPost(uri);
+    httpPost.setEntity(entity);
+    httpPost.setHeader("Content-Type", "application/json;charset=utf8");
+    httpPost.setHeader("TRON_PRO_API_KEY", Config.getApiKey());
+    return executeAsync(httpPost);
+  }
+
+  /** async {@link #requestWithRetry}: 503 responses and failed requests are retried after a delay. */
+  public static CompletableFuture<String> requestWithRetryAsync(String url) {
+    return requestWithRetryAsync(url, 1);
+  }
+
+  private static CompletableFuture<String> requestWithRetryAsync(String url, int retry) {
+    HttpGet httpGet;
+    try {
+      httpGet = new HttpGet(new URI(url));
+    } catch (URISyntaxException e) {
+      return failed(e);
+    }
+    httpGet.setHeader("TRON_PRO_API_KEY", Config.getApiKey());
+    return sendAsync(httpGet)
+        .handle((response, t) -> {
+          boolean unavailable = t == null
+              && response.getStatusLine().getStatusCode() == HttpStatus.SC_SERVICE_UNAVAILABLE;
+          if ((t == null && !unavailable) || retry > HTTP_MAX_RETRY_TIME) {
+            if (t != null) {
+              log.error("Max http retry reached, url: {}", url);
+              return HttpUtil.<String>failed(t);
+            }
+            return CompletableFuture.completedFuture(response).thenApply(HttpUtil::body);
+          }
+          if (unavailable) {
+            EntityUtils.consumeQuietly(response.getEntity());
+          }
+          log.info("Number {} retry for {}", retry, url);
+          return retryLater(() -> requestWithRetryAsync(url, retry + 1), 100L * retry);
+        })
+        .thenCompose(Function.identity());
+  }
+
+  /** runs the attempt after the delay, without holding a thread while waiting. */
+  public static <T> CompletableFuture<T> retryLater(Supplier<CompletableFuture<T>> attempt,
+      long delayMillis) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    retryScheduler.schedule(() -> {
+      try {
+        attempt.get().whenComplete((result, t) -> {
+          if (t != null) {
+            future.completeExceptionally(t);
+          } else {
+            future.complete(result);
+          }
+        });
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+    return future;
+  }
+
+  public static CompletableFuture<String> getByUriAsync(String uriStr) {
+    URI uri;
+    try {
+      uri = new URI(uriStr);
+    } catch (URISyntaxException e) {
+      return failed(e);
+    }
+
+    HttpGet httpGet = new HttpGet(uri);
+    httpGet.setHeader("TRON_PRO_API_KEY", Config.getApiKey());
+    return executeAsync(httpGet);
+  }
+
+  /**
+   * The returned future is completed on an I/O reactor thread, so callers should keep their
+   * dependent stages short or hand them over to their own executor with the *Async variants.
+   */
+  private static CompletableFuture<String> executeAsync(HttpUriRequest request) {
+    return sendAsync(request).thenApply(HttpUtil::body);
+  }
+
+  private static CompletableFuture<HttpResponse> sendAsync(HttpUriRequest request) {
+    CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+    try {
+      getAsyncClient().execute(request, new FutureCallback<HttpResponse>() {
+        @Override
+        public void completed(HttpResponse response) {
+          future.complete(response);
+        }
+
+        @Override
+        public void failed(Exception e) {
+          log.warn("async http request failed, uri: {}, err: {}", request.getURI(), e.getMessage());
+          future.completeExceptionally(e);
+        }
+
+        @Override
+        public void cancelled() {
+          future.cancel(false);
+        }
+      });
+    } catch (IOReactorException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private static String body(HttpResponse response) {
+    try {
+      return EntityUtils.toString(response.getEntity());
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  private static <T> CompletableFuture<T> failed(Throwable e) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(e);
+    return future;
+  }
 }
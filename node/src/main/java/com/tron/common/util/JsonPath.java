@@ -0,0 +1,132 @@
+package com.tron.common.util;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * A dot separated path into a json document, e.g. {@code data.0.price}, compiled once per task.
+ *
+ * <p>The value is read with a streaming reader: the members and elements before it are skipped
+ * token by token without being built, and reading stops as soon as it is found, so a large ticker
+ * list or order book is never turned into a tree. A numeric key is the index of an array, or the
+ * name of a member when the value is an object.
+ */
+public class JsonPath {
+
+  private final String path;
+  private final String[] keys;
+  private final int[] indexes;
+
+  private JsonPath(String path) {
+    this.path = path;
+    this.keys = path.split("\\.");
+    this.indexes = new int[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      indexes[i] = parseIndex(keys[i]);
+    }
+  }
+
+  public static JsonPath compile(String path) {
+    if (path == null || path.isEmpty()) {
+      throw new IllegalArgumentException("empty json path");
+    }
+    return new JsonPath(path);
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * @return the number, or the string holding a number, at the path
+   * @throws PathNotFoundException if the json is an object or array without a number at the path
+   * @throws IOException if the json is malformed
+   */
+  public double readDouble(String json) throws IOException {
+    return readDouble(new StringReader(json));
+  }
+
+  public double readDouble(Reader in) throws IOException {
+    try (JsonReader reader = new JsonReader(in)) {
+      reader.setLenient(true);
+      for (int i = 0; i < keys.length; i++) {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+          seekMember(reader, i);
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+          seekElement(reader, i);
+        } else if (i == 0) {
+          throw new IOException("not a json object or array: " + token);
+        } else {
+          throw notFound(i);
+        }
+      }
+      JsonToken token = reader.peek();
+      if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+        throw new PathNotFoundException("value at " + path + " is not a number: " + token);
+      }
+      try {
+        return Double.parseDouble(reader.nextString());
+      } catch (NumberFormatException e) {
+        throw new PathNotFoundException("value at " + path + " is not a number");
+      }
+    } catch (IllegalStateException e) {
+      // thrown by the reader for an unexpected token
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  private void seekMember(JsonReader reader, int i) throws IOException {
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (reader.nextName().equals(keys[i])) {
+        return;
+      }
+      reader.skipValue();
+    }
+    throw notFound(i);
+  }
+
+  private void seekElement(JsonReader reader, int i) throws IOException {
+    if (indexes[i] < 0) {
+      throw notFound(i);
+    }
+    reader.beginArray();
+    for (int skipped = 0; skipped < indexes[i]; skipped++) {
+      if (!reader.hasNext()) {
+        throw notFound(i);
+      }
+      reader.skipValue();
+    }
+    if (!reader.hasNext()) {
+      throw notFound(i);
+    }
+  }
+
+  private IOException notFound(int i) {
+    return new PathNotFoundException("json path " + path + " not found at " + keys[i]);
+  }
+
+  private static int parseIndex(String key) {
+    try {
+      return Integer.parseInt(key);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+
+  /** the json is well formed but has no number at the path. */
+  public static class PathNotFoundException extends IOException {
+    PathNotFoundException(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.tron.common.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.tron.common.Config;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Process-wide cache of the data the adapters fetch from outside, e.g. the response of a url or
+ * the price of a justswap pair, shared by all the jobs.
+ *
+ * <p>A value is served from the cache for {@code node.priceCache.ttl} ms. Once it has expired the
+ * next caller loads it again, and concurrent callers of the same key wait for that one load
+ * instead of sending their own request. If the load fails the expired value is served as long as
+ * it is younger than {@code node.priceCache.maxStale} ms, after that the caller gets the failure.
+ */
+@Slf4j
+public class PriceCache {
+
+  public interface Loader<T> {
+    /** @return the value, null if it could not be loaded */
+    T load() throws Exception;
+  }
+
+  private static volatile Cache<String, Entry> entries;
+  private static final ConcurrentHashMap<String, CompletableFuture<Object>> loading =
+      new ConcurrentHashMap<>();
+
+  private static final AtomicLong hits = new AtomicLong();
+  private static final AtomicLong loads = new AtomicLong();
+  private static final AtomicLong coalesced = new AtomicLong();
+  private static final AtomicLong stale = new AtomicLong();
+  private static final AtomicLong failures = new AtomicLong();
+
+  /**
+   * @param key the url, or the type of the data followed by its id
+   * @throws IOException if the value could not be loaded and there is no value to fall back to
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T get(String key, Loader<T> loader) throws IOException {
+    Entry entry = getEntries().getIfPresent(key);
+    if (entry != null && entry.age() < Config.getPriceCacheTtl()) {
+      hits.incrementAndGet();
+      return (T) entry.value;
+    }
+
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    CompletableFuture<Object> current = loading.putIfAbsent(key, future);
+    Object value;
+    try {
+      if (current != null) {
+        coalesced.incrementAndGet();
+        value = current.get();
+      } else {
+        loads.incrementAndGet();
+        value = load(key, loader, future);
+      }
+      return (T) value;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while loading " + key);
+    } catch (ExecutionException e) {
+      entry = getEntries().getIfPresent(key);
+      if (entry != null && entry.age() < Config.getPriceCacheMaxStale()) {
+        stale.incrementAndGet();
+        log.warn("load {} failed, use the value of {} ms ago, msg: {}", key, entry.age(),
+            e.getCause().getMessage());
+        return (T) entry.value;
+      }
+      Throwable cause = e.getCause();
+      throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    }
+  }
+
+  /** drop the value of the key, e.g. when it could not be parsed. */
+  public static void invalidate(String key) {
+    getEntries().invalidate(key);
+  }
+
+  public static long size() {
+    return entries == null ? 0 : entries.size();
+  }
+
+  public static long getHits() {
+    return hits.get();
+  }
+
+  public static long getLoads() {
+    return loads.get();
+  }
+
+  public static long getCoalesced() {
+    return coalesced.get();
+  }
+
+  public static long getStale() {
+    return stale.get();
+  }
+
+  public static long getFailures() {
+    return failures.get();
+  }
+
+  private static Object load(String key, Loader<?> loader, CompletableFuture<Object> future)
+      throws ExecutionException, InterruptedException {
+    try {
+      Object value = loader.load();
+      if (value == null) {
+        throw new IOException("no value for " + key);
+      }
+      getEntries().put(key, new Entry(value));
+      future.complete(value);
+    } catch (Throwable t) {
+      failures.incrementAndGet();
+      future.completeExceptionally(t);
+    } finally {
+      loading.remove(key, future);
+    }
+    return future.get();
+  }
+
+  private static Cache<String, Entry> getEntries() {
+    if (entries == null) {
+      synchronized (PriceCache.class) {
+        if (entries == null) {
+          entries = CacheBuilder.newBuilder()
+              .maximumSize(Config.getPriceCacheMaxSize())
+              .expireAfterWrite(Math.max(Config.getPriceCacheTtl(), Config.getPriceCacheMaxStale()),
+                  TimeUnit.MILLISECONDS)
+              .build();
+        }
+      }
+    }
+    return entries;
+  }
+
+  private static class Entry {
+    private final Object value;
+    private final long loadedAt = System.currentTimeMillis();
+
+    Entry(Object value) {
+      this.value = value;
+    }
+
+    long age() {
+      return System.currentTimeMillis() - loadedAt;
+    }
+  }
+}
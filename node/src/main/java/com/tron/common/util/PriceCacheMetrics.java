@@ -0,0 +1,35 @@
+package com.tron.common.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.function.ToDoubleFunction;
+import org.springframework.stereotype.Component;
+
+/** Expose the lookups of the shared {@link PriceCache} through the actuator metrics. */
+@Component
+public class PriceCacheMetrics implements MeterBinder {
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("price.cache.size", this, m -> PriceCache.size())
+        .description("values held by the price cache")
+        .register(registry);
+    lookups(registry, "hit", m -> PriceCache.getHits());
+    lookups(registry, "load", m -> PriceCache.getLoads());
+    lookups(registry, "coalesced", m -> PriceCache.getCoalesced());
+    lookups(registry, "stale", m -> PriceCache.getStale());
+    FunctionCounter.builder("price.cache.load.failures", this, m -> PriceCache.getFailures())
+        .description("loads of the price cache which failed")
+        .register(registry);
+  }
+
+  private void lookups(MeterRegistry registry, String result,
+      ToDoubleFunction<PriceCacheMetrics> count) {
+    FunctionCounter.builder("price.cache.lookups", this, count)
+        .tag("result", result)
+        .description("lookups of the price cache by how they were answered")
+        .register(registry);
+  }
+}
@@ -0,0 +1,63 @@
+package com.tron.common.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Thread factories for the node's worker threads.
+ *
+ * <p>Virtual threads are looked up reflectively so the node still builds for Java 8 and simply
+ * falls back to platform threads when the running JVM does not provide them (before Java 21).
+ */
+@Slf4j
+public class ThreadUtil {
+
+  private static final Method OF_VIRTUAL;
+  private static final Method BUILDER_NAME;
+  private static final Method BUILDER_FACTORY;
+
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method factory = null;
+    try {
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      name = builder.getMethod("name", String.class, long.class);
+      factory = builder.getMethod("factory");
+    } catch (ReflectiveOperationException e) {
+      // not supported by this JVM
+    }
+    OF_VIRTUAL = ofVirtual;
+    BUILDER_NAME = name;
+    BUILDER_FACTORY = factory;
+  }
+
+  public static boolean isVirtualThreadSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * @param prefix thread name prefix, a sequence number is appended
+   * @param virtual create virtual threads if the JVM supports them
+   */
+  public static ThreadFactory newThreadFactory(String prefix, boolean virtual) {
+    if (virtual) {
+      if (isVirtualThreadSupported()) {
+        try {
+          Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+          return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+          log.warn("create virtual thread factory failed, use platform threads, msg: {}",
+              e.getMessage());
+        }
+      } else {
+        log.warn("virtual threads are not supported by java {}, use platform threads",
+            System.getProperty("java.version"));
+      }
+    }
+    return new ThreadFactoryBuilder().setNameFormat(prefix + "%d").setDaemon(true).build();
+  }
+}
@@ -0,0 +1,141 @@
+package com.tron.crypto;
+
+import java.math.BigInteger;
+import org.bouncycastle.math.ec.custom.sec.SecP256K1Field;
+import org.bouncycastle.math.raw.Nat256;
+
+/**
+ * The arithmetic of the secp256k1 base field used by {@link VRF#hashToCurve}, on 8 x 32 bit
+ * limbs.
+ *
+ * <p>The square root is raised with the fixed addition chain of (p + 1) / 4, the same sequence of
+ * squarings and multiplications whatever the input, on scratch buffers kept per thread, so a
+ * candidate x costs no allocation but its conversion. As p = 3 mod 4, x³ + 7 is a square iff the
+ * square of that root gives it back, no separate Euler criterion is raised. The results are the
+ * same as the {@code BigInteger.modPow} ones.
+ */
+class Secp256k1Field {
+
+  private static final int[] SEVEN = Nat256.fromBigInteger(BigInteger.valueOf(7));
+
+  private static final ThreadLocal<Secp256k1Field> SCRATCH =
+      ThreadLocal.withInitial(Secp256k1Field::new);
+
+  private final int[] a = Nat256.create();
+  private final int[] x2 = Nat256.create();
+  private final int[] x3 = Nat256.create();
+  private final int[] x6 = Nat256.create();
+  private final int[] x22 = Nat256.create();
+  private final int[] x88 = Nat256.create();
+  private final int[] x176 = Nat256.create();
+  private final int[] root = Nat256.create();
+  private final int[] check = Nat256.create();
+  private final int[] tt = Nat256.createExt();
+
+  /** x => x³ + 7 */
+  static BigInteger ySquare(BigInteger x) {
+    Secp256k1Field f = SCRATCH.get();
+    f.ySquare(f.load(x));
+    return Nat256.toBigInteger(f.a);
+  }
+
+  /** @return a^((p + 1) / 4), the square root of a if a is a square */
+  static BigInteger squareRoot(BigInteger a) {
+    Secp256k1Field f = SCRATCH.get();
+    f.sqrt(f.load(a));
+    return Nat256.toBigInteger(f.root);
+  }
+
+  /** @return true if a is the square of a non zero element */
+  static boolean isSquare(BigInteger a) {
+    Secp256k1Field f = SCRATCH.get();
+    return f.sqrt(f.load(a));
+  }
+
+  /** @return the even or odd root y of y² = x³ + 7, null if x is not the x ordinate of a point */
+  static BigInteger curveY(BigInteger x) {
+    Secp256k1Field f = SCRATCH.get();
+    f.ySquare(f.load(x));
+    if (!f.sqrt(f.a)) {
+      return null;
+    }
+    return Nat256.toBigInteger(f.root);
+  }
+
+  private int[] load(BigInteger value) {
+    if (value.signum() < 0 || value.compareTo(VRF.fieldSize) >= 0) {
+      value = value.mod(VRF.fieldSize);
+    }
+    return Nat256.fromBigInteger(value);
+  }
+
+  /** a = x³ + 7 */
+  private void ySquare(int[] x) {
+    square(x, a);
+    multiply(a, x, a);
+    SecP256K1Field.add(a, SEVEN, a);
+  }
+
+  /**
+   * root = in^((p + 1) / 4) = in^(2^254 - 2^30 - 244), the exponent is in binary
+   * { 223 1s } { 1 0s } { 22 1s } { 4 0s } { 2 1s } { 2 0s }, raised with the chain
+   * 1, [2], 3, 6, 9, 11, [22], 44, 88, 176, 220, [223].
+   *
+   * @return true if root² = in and in is not zero
+   */
+  private boolean sqrt(int[] in) {
+    square(in, x2);
+    multiply(x2, in, x2);
+    square(x2, x3);
+    multiply(x3, in, x3);
+    squareN(x3, 3, x6);
+    multiply(x6, x3, x6);
+    int[] x9 = x6;
+    squareN(x6, 3, x9);
+    multiply(x9, x3, x9);
+    int[] x11 = x9;
+    squareN(x9, 2, x11);
+    multiply(x11, x2, x11);
+    squareN(x11, 11, x22);
+    multiply(x22, x11, x22);
+    int[] x44 = x11;
+    squareN(x22, 22, x44);
+    multiply(x44, x22, x44);
+    squareN(x44, 44, x88);
+    multiply(x88, x44, x88);
+    squareN(x88, 88, x176);
+    multiply(x176, x88, x176);
+    int[] x220 = x88;
+    squareN(x176, 44, x220);
+    multiply(x220, x44, x220);
+    int[] x223 = x44;
+    squareN(x220, 3, x223);
+    multiply(x223, x3, x223);
+
+    squareN(x223, 23, root);
+    multiply(root, x22, root);
+    squareN(root, 6, root);
+    multiply(root, x2, root);
+    squareN(root, 2, root);
+
+    square(root, check);
+    return !Nat256.isZero(in) && Nat256.eq(in, check);
+  }
+
+  private void multiply(int[] x, int[] y, int[] z) {
+    Nat256.mul(x, y, tt);
+    SecP256K1Field.reduce(tt, z);
+  }
+
+  private void square(int[] x, int[] z) {
+    Nat256.square(x, tt);
+    SecP256K1Field.reduce(tt, z);
+  }
+
+  private void squareN(int[] x, int n, int[] z) {
+    square(x, z);
+    for (int i = 1; i < n; i++) {
+      square(z, z);
+    }
+  }
+}
@@ -15,7 +15,7 @@ import org.tron.common.utils.ByteArray;
 public class VRF {
 
   // Secp256k1 curve：y²=x³+7
-  private static ECKey ecKey;
+  private final ECKey ecKey;
   public static final ECPoint generator = ECKey.CURVE_SPEC.getG();
   // p = FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F
   // field num on Fp
@@ -27,7 +27,7 @@ public class VRF {
 
   //some predefine constant
   public final static int HashLength = 32;
-  private final BigInteger zero, one, two, three, four, seven, eulerCriterionPower, sqrtPower;
+  private final BigInteger zero, one, two, three, four;
   // some prefix, byte[32]
   private final byte[] hashToCurveHashPrefix; //1
   private final byte[] scalarFromCurveHashPrefix; //2
@@ -63,10 +63,6 @@ public class VRF {
     two = BigInteger.valueOf(2);
     three = BigInteger.valueOf(3);
     four = BigInteger.valueOf(4);
-    seven = BigInteger.valueOf(7);
-
-    eulerCriterionPower = fieldSize.subtract(one).divide(two); //  (p-1)/2
-    sqrtPower = fieldSize.add(one).divide(four); // (p+1)/4
 
     hashToCurveHashPrefix = bytesToHash(one.toByteArray());
     scalarFromCurveHashPrefix = bytesToHash(two.toByteArray());
@@ -208,14 +204,14 @@ public class VRF {
    * x => x^3 + 7，
    */
   public BigInteger ySquare(BigInteger x) {
-    return x.modPow(three, fieldSize).add(seven).mod(fieldSize);
+    return Secp256k1Field.ySquare(x);
   }
 
   /**
    * check whether a BigInteger is the square of some element on Fp.
    */
   public boolean isSquare(BigInteger x) {
-    return x.modPow(eulerCriterionPower, fieldSize).compareTo(one) == 0;
+    return Secp256k1Field.isSquare(x);
   }
 
   /**
@@ -229,7 +225,7 @@ public class VRF {
    * SquareRoot returns a s.t. a^2=x, as long as x is a square
    */
   public BigInteger squareRoot(BigInteger x) {
-    return x.modPow(sqrtPower, fieldSize);
+    return Secp256k1Field.squareRoot(x);
   }
 
   public BigInteger neg(BigInteger f) {
@@ -321,11 +317,11 @@ public class VRF {
 
     BigInteger x = fieldHash(merged);
 
-    while (!isCurveXOrdinate(x)) { // Hash recursively until x^3+7 is a square
+    BigInteger y;
+    // Hash recursively until x^3+7 is a square, its root is found by the same check
+    while ((y = Secp256k1Field.curveY(x)) == null) {
       x = fieldHash(bytesToHash(BigIntegers.asUnsignedByteArray(x)));
     }
-    BigInteger y_2 = ySquare(x);
-    BigInteger y = squareRoot(y_2);
     ECPoint rv = setCoordinates(x, y);
 
     // Negate response if y odd
@@ -0,0 +1,150 @@
+package com.tron.crypto;
+
+import com.tron.common.Config;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.FixedPointUtil;
+import org.bouncycastle.util.BigIntegers;
+import org.tron.common.utils.ByteArray;
+
+/**
+ * Generates the VRF proofs of one VRF key, in the form of {@link VRF#marshalForSolidityVerifier},
+ * byte for byte the same as the {@link VRF} steps with the same nonce.
+ *
+ * <p>The key state is built once per key and shared by the requests: the secret scalar, the
+ * public key and the fixed-base comb tables of the generator and the public key. The products
+ * by the hash point use the windowed-NAF multiplier of the curve (GLV on secp256k1), whose table
+ * of the point is built once and reused for the three products of a proof. The products computed
+ * for the zero-knowledge check, [c]·gamma and [s]·hash, are the witnesses of the solidity
+ * verifier and are not computed again.
+ *
+ * <p>The proof is verified after generation only if {@code node.vrf.selfVerify} is set, the
+ * coordinator verifies it on chain anyway.
+ */
+@Slf4j
+public class VRFEngine {
+
+  private static final Map<String, VRFEngine> ENGINES = new ConcurrentHashMap<>();
+  private static final SecureRandom RANDOM = new SecureRandom();
+  private static final ECMultiplier FIXED_POINT_MULTIPLIER = new FixedPointCombMultiplier();
+
+  static {
+    FixedPointUtil.precompute(VRF.generator);
+  }
+
+  private final VRF vrf;
+  private final BigInteger privateKey;
+  private final BigInteger secretKey;
+  private final ECPoint publicKey;
+
+  private VRFEngine(String privateKey) {
+    this.vrf = new VRF(privateKey);
+    this.privateKey = new BigInteger(1, ByteArray.fromHexString(privateKey));
+    this.secretKey = this.privateKey.mod(VRF.groupOrder);
+    this.publicKey = FIXED_POINT_MULTIPLIER.multiply(VRF.generator, secretKey).normalize();
+    FixedPointUtil.precompute(publicKey);
+  }
+
+  /** @return the engine of the key, built on first use */
+  public static VRFEngine forKey(String privateKey) {
+    return ENGINES.computeIfAbsent(privateKey, VRFEngine::new);
+  }
+
+  public VRF getVrf() {
+    return vrf;
+  }
+
+  public ECPoint getPublicKey() {
+    return publicKey;
+  }
+
+  /**
+   * @param seed byte[HashLength] that user inputs
+   * @return the marshaled proof, ProofLength bytes
+   */
+  public byte[] prove(byte[] seed) throws VRFException {
+    BigInteger seedValue = new BigInteger(1, seed);
+    while (true) {
+      try {
+        return vrf.marshalForSolidityVerifier(prove(seedValue, randomNonce()));
+      } catch (ErrCGammaEqualsSHash e) {
+        log.error("", e);
+      }
+    }
+  }
+
+  /** same as {@link VRF#generateProofWithNonce} followed by {@link VRF#solidityPrecalculations}. */
+  SolidityProof prove(BigInteger seed, BigInteger nonce)
+      throws VRFException, ErrCGammaEqualsSHash {
+    if (!(privateKey.compareTo(VRF.groupOrder) < 0
+        && BigIntegers.asUnsignedByteArray(nonce).length <= VRF.HashLength)) {
+      throw new VRFException("badly-formatted key or seed");
+    }
+    ECPoint h = vrf.hashToCurve(publicKey, seed).normalize();
+    ECPoint gamma = h.multiply(secretKey).normalize();
+
+    BigInteger sm = nonce.mod(VRF.groupOrder);
+    ECPoint u = FIXED_POINT_MULTIPLIER.multiply(VRF.generator, sm).normalize();
+    byte[] uWitness = vrf.getLast160BitOfPoint(u);
+    ECPoint v = h.multiply(sm).normalize();
+
+    BigInteger c = vrf.scalarFromCurvePoints(h, publicKey, gamma, uWitness, v);
+    BigInteger s = nonce.subtract(c.multiply(secretKey)).mod(VRF.groupOrder);
+
+    ECPoint cGammaWitness = gamma.multiply(c.mod(VRF.groupOrder)).normalize();
+    ECPoint sHashWitness = h.multiply(s).normalize();
+    if (cGammaWitness.equals(sHashWitness)) {
+      throw new ErrCGammaEqualsSHash("c*γ = s*hash (disallowed in solidity verifier)");
+    }
+
+    Proof proof = new Proof(publicKey, gamma, c, s, seed, output(gamma));
+    if (Config.isVrfSelfVerify() && !verify(proof, h, cGammaWitness, sHashWitness)) {
+      throw new VRFException("constructed invalid proof");
+    }
+
+    BigInteger[] pArray = vrf.ProjectiveECAdd(cGammaWitness, sHashWitness);
+    BigInteger zInv = pArray[2].modInverse(VRF.fieldSize);
+    return new SolidityProof(proof, uWitness, cGammaWitness, sHashWitness, zInv);
+  }
+
+  /** {@link VRF#verifyVRFProof} on the products already computed by the generation. */
+  private boolean verify(Proof proof, ECPoint h, ECPoint cGammaWitness, ECPoint sHashWitness)
+      throws VRFException {
+    if (!proof.wellFormed()) {
+      throw new VRFException("badly-formatted proof");
+    }
+    // u = [c]·Q + [s]·G
+    ECPoint uPrime = FIXED_POINT_MULTIPLIER.multiply(publicKey, proof.C)
+        .add(FIXED_POINT_MULTIPLIER.multiply(VRF.generator, proof.S))
+        .normalize();
+    // v = [c]·γ + [s]·h
+    ECPoint vPrime = cGammaWitness.add(sHashWitness).normalize();
+    BigInteger cPrime = vrf.scalarFromCurvePoints(h, publicKey, proof.Gamma,
+        vrf.getLast160BitOfPoint(uPrime), vPrime);
+    return proof.C.compareTo(cPrime) == 0;
+  }
+
+  private BigInteger output(ECPoint gamma) {
+    byte[] gammaRepresent = VRF.longMarshal(gamma);
+    byte[] prefixAndGamma = new byte[vrf.vrfRandomOutputHashPrefix.length + gammaRepresent.length];
+    System.arraycopy(vrf.vrfRandomOutputHashPrefix, 0, prefixAndGamma, 0,
+        vrf.vrfRandomOutputHashPrefix.length);
+    System.arraycopy(gammaRepresent, 0, prefixAndGamma, vrf.vrfRandomOutputHashPrefix.length,
+        gammaRepresent.length);
+    return new BigInteger(1, VRF.mustHash(prefixAndGamma));
+  }
+
+  private static BigInteger randomNonce() {
+    BigInteger a;
+    do {
+      a = new BigInteger(VRF.groupOrder.bitLength(), RANDOM);
+    } while (a.compareTo(VRF.groupOrder) >= 0);
+    return a;
+  }
+}
@@ -1,33 +1,42 @@
 package com.tron.job;
 
-import com.beust.jcommander.internal.Sets;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.tron.common.Constant;
-import com.tron.job.adapters.AdapterManager;
-import com.tron.job.adapters.BaseAdapter;
-import com.tron.web.common.util.R;
+import com.tron.common.util.ThreadUtil;
+import com.tron.web.common.util.JsonUtil;
 import com.tron.web.entity.JobSpec;
+import com.tron.web.entity.TaskParams;
 import com.tron.web.entity.TaskSpec;
-import com.tron.web.service.JobSpecsService;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Keeps the last {@code node.cacheCount} results of the jobs with a cache task, the cache task
+ * then replaces the result of a run by their average, or their median if its method is median.
+ *
+ * <p>Every cached job is refreshed on its own schedule, every {@code interval} ms of its cache
+ * task or {@code node.cacheInterval} by default, and up to {@code node.cacheThreads} jobs are
+ * refreshed at the same time.
+ */
 @Slf4j
 @Component
-public class JobCache {
+public class JobCache implements JobSpecRegistry.Listener {
 
+  private static final long EXPIRE = TimeUnit.MINUTES.toMillis(30);
+
+  @Autowired
+  private JobSpecRegistry jobSpecRegistry;
+  @Autowired
+  private JobCompiler jobCompiler;
   @Autowired
-  private JobSpecsService jobSpecsService;
+  private TaskLevelExecutor taskLevelExecutor;
 
   @Value("${node.cacheEnable:#{false}}")
   private Boolean cacheEnable;
@@ -35,23 +44,22 @@ public class JobCache {
   @Value("${node.cacheCount:#{5}}")
   private int cacheCount;
 
-  private Set<String> jobList = Sets.newHashSet();
-  private Cache<String, Queue<Long>> jobResultCache = CacheBuilder.newBuilder().maximumSize(10000)
-      .expireAfterWrite(30, TimeUnit.MINUTES).build();
+  @Value("${node.cacheInterval:#{60000}}")
+  private long cacheInterval;
+
+  @Value("${node.cacheThreads:#{4}}")
+  private int cacheThreads;
+
+  private final ConcurrentHashMap<String, CachedJob> jobs = new ConcurrentHashMap<>();
 
-  private ScheduledExecutorService cacheExecutor = Executors.newSingleThreadScheduledExecutor();
+  private volatile ScheduledExecutorService cacheExecutor;
 
   public void run() {
     if (cacheEnable) {
+      cacheExecutor = Executors.newScheduledThreadPool(cacheThreads,
+          ThreadUtil.newThreadFactory("job-cache-", false));
+      jobSpecRegistry.addListener(this);
       init();
-      cacheExecutor.scheduleWithFixedDelay(()->{
-        try {
-          System.out.println("test!!!");
-          cache();
-        } catch (Throwable e) {
-          log.warn("cache schedule run error, error msg:" + e.getMessage());
-        }
-      }, 0, 1, TimeUnit.MINUTES);
     } else {
       System.out.println("cache schedule has been closed!");
       log.info("cache schedule has been closed!");
@@ -59,101 +67,146 @@ public class JobCache {
   }
 
   private void init() {
-    List<JobSpec> jobSpecs = jobSpecsService.getAllJob();
-    for (JobSpec jobSpec : jobSpecs) {
-      if (jobSpec.getDeletedAt() != null) {
-        continue;
-      }
-      List<TaskSpec> taskSpecs = jobSpecsService.getTasksByJobId(jobSpec.getId());
-      for (TaskSpec taskSpec : taskSpecs) {
-        if (taskSpec.getType().equals(Constant.TASK_TYPE_CACHE)) {
-          addToCacheList(jobSpec.getId());
-        }
+    for (JobSpec jobSpec : jobSpecRegistry.getActiveJobs()) {
+      onJobAdded(jobSpec);
+    }
+  }
+
+  @Override
+  public void onJobAdded(JobSpec jobSpec) {
+    for (TaskSpec taskSpec : jobSpec.getTaskSpecs()) {
+      if (taskSpec.getType().equals(Constant.TASK_TYPE_CACHE)) {
+        schedule(jobSpec.getId(), taskSpec);
+        return;
       }
     }
   }
 
-  private void cache() {
-    jobList.forEach(
-        jobId->{
-          try {
-            R ret = getJobResultById(jobId);
-            if (ret.get("code").equals(0)) {
-              cachePut(jobId, (Long)ret.get("result"));
-            }
-          } catch (Exception e) {
-            log.warn("cache job {} failed", jobId);
-          }
-        }
-    );
+  @Override
+  public void onJobDeleted(JobSpec jobSpec) {
+    CachedJob job = jobs.remove(jobSpec.getId());
+    if (job != null && job.refresh != null) {
+      job.refresh.cancel(false);
+    }
   }
 
-  public Boolean addToCacheList(String jobId) {
+  private void schedule(String jobId, TaskSpec cacheTask) {
+    TaskParams params = JsonUtil.json2Obj(cacheTask.getParams(), TaskParams.class);
+    long interval = params != null && params.getInterval() != null
+        ? params.getInterval() : cacheInterval;
+    boolean median = params != null
+        && Constant.AGGREGATE_METHOD_MEDIAN.equalsIgnoreCase(params.getMethod());
+
+    CachedJob job = jobs.compute(jobId, (id, current) -> {
+      CachedJob next = new CachedJob(current != null ? current.window : newWindow(), median);
+      if (current != null && current.refresh != null) {
+        current.refresh.cancel(false);
+      }
+      ScheduledExecutorService executor = cacheExecutor;
+      if (executor != null) {
+        next.refresh = executor.scheduleWithFixedDelay(() -> refresh(id), 0, interval,
+            TimeUnit.MILLISECONDS);
+      }
+      return next;
+    });
+    log.info("cache job {} every {} ms, median: {}, scheduled: {}", jobId, interval, median,
+        job.refresh != null);
+  }
+
+  private void refresh(String jobId) {
     try {
-      jobList.add(jobId);
+      RunContext ret = getJobResultById(jobId);
+      if (ret.isOk()) {
+        cachePut(jobId, ret.getLongResult());
+      }
+    } catch (Throwable e) {
+      log.warn("cache job {} failed, error msg: {}", jobId, e.getMessage());
+    }
+  }
+
+  /** start refreshing the job if it has a cache task. */
+  public Boolean addToCacheList(String jobId) {
+    CachedJob job = jobs.get(jobId);
+    if (job != null && job.refresh != null) {
       return true;
-    } catch (Exception e) {
+    }
+    JobSpec jobSpec = jobSpecRegistry.getJob(jobId);
+    if (jobSpec == null || jobSpec.archived()) {
       return false;
     }
+    onJobAdded(jobSpec);
+    return jobs.containsKey(jobId);
   }
 
   public void cachePut(String jobId, Long value) {
-    Queue<Long> valueList = jobResultCache.getIfPresent(jobId);
-    if (valueList == null) {
-      valueList = new LinkedList<>();
-      addToCacheList(jobId);
-    }
-    valueList.offer(value);
-
-    while (valueList.size() > cacheCount) {
-      valueList.poll();
+    CachedJob job = jobs.get(jobId);
+    if (job == null) {
+      job = jobs.computeIfAbsent(jobId, id -> new CachedJob(newWindow(), false));
     }
-    jobResultCache.put(jobId, valueList);
+    job.window.add(value);
   }
 
+  /** @return the average or the median of the cached results, null if there is none */
   public Long cacheGet(String jobId) {
-    Queue<Long> valueList = jobResultCache.getIfPresent(jobId);
-    if (valueList != null) {
-      double average = valueList.stream().mapToLong(v->v).average().orElse(0.0);
-      return Math.round(average);
-    } else {
+    CachedJob job = jobs.get(jobId);
+    if (job == null) {
       return null;
     }
+    return job.median ? job.window.median() : job.window.average();
   }
 
-  public R getJobResultById(String jobId) {
-    JobSpec job = jobSpecsService.getById(jobId);
+  public RunContext getJobResultById(String jobId) {
+    JobPipeline pipeline = jobCompiler.getPipeline(jobId);
 
-    R preTaskResult = new R();
-    preTaskResult.put("result", null);
-    for (TaskSpec taskSpec : job.getTaskSpecs()) {
-      if (taskSpec.getType().equals(Constant.TASK_TYPE_TRON_TX) ||
-          taskSpec.getType().equals(Constant.TASK_TYPE_CACHE)) {
+    RunContext context = new RunContext("", null);
+    for (List<JobPipeline.Stage> level : pipeline.getLevels()) {
+      String type = level.get(0).getTaskSpec().getType();
+      if (type.equals(Constant.TASK_TYPE_TRON_TX) || type.equals(Constant.TASK_TYPE_CACHE)) {
         break;
       }
-      log.info("{} Task executing: {}", jobId, taskSpec.getType());
-
-      BaseAdapter adapter = AdapterManager.getAdapter(taskSpec);
-      R r = adapter.perform(preTaskResult);
-      log.info("{} Task executed: {} | Result: {}", jobId, taskSpec.getType(), r);
-      if (r.get("code").equals(0)) {
-        preTaskResult.replace("result", r.get("result"));
-      } else {
-        log.error(taskSpec.getType() + " run failed when get job result, job id: {}, msg: {}", jobId, r.get("msg"));
-        preTaskResult.replace("code", r.get("code"));
-        preTaskResult.replace("msg", r.get("msg"));
+      taskLevelExecutor.run(level, context, (stage, ctx) -> {
+        TaskSpec taskSpec = stage.getTaskSpec();
+        log.info("{} Task executing: {}", jobId, taskSpec.getType());
+
+        stage.getAdapter().perform(ctx);
+        log.info("{} Task executed: {} | Result: {}", jobId, taskSpec.getType(), ctx);
+        if (!ctx.isOk()) {
+          log.error(taskSpec.getType() + " run failed when get job result, job id: {}, msg: {}", jobId, ctx.getMsg());
+        }
+      });
+      if (!context.isOk()) {
         break;
       }
     }
 
-    return preTaskResult;
+    return context;
   }
 
   public Boolean isCacheEnable() {
     return cacheEnable;
   }
 
-  public Queue<Long> getValueListByJobId(String jobId) {
-    return jobResultCache.getIfPresent(jobId);
+  /** @return the cached results from the oldest to the newest, null if the job is not cached */
+  public long[] getValuesByJobId(String jobId) {
+    CachedJob job = jobs.get(jobId);
+    if (job == null || job.window.size() == 0) {
+      return null;
+    }
+    return job.window.values();
+  }
+
+  private RollingWindow newWindow() {
+    return new RollingWindow(cacheCount, EXPIRE);
+  }
+
+  private static class CachedJob {
+    private final RollingWindow window;
+    private final boolean median;
+    private ScheduledFuture<?> refresh;
+
+    CachedJob(RollingWindow window, boolean median) {
+      this.window = window;
+      this.median = median;
+    }
   }
 }
@@ -0,0 +1,84 @@
+package com.tron.job;
+
+import com.tron.job.adapters.AdapterManager;
+import com.tron.job.adapters.BaseAdapter;
+import com.tron.web.entity.JobSpec;
+import com.tron.web.entity.TaskSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns a job spec into a {@link JobPipeline} once, so the task params are parsed and the adapters
+ * created when the job is first run instead of for every task run. The pipeline is dropped as
+ * soon as the job spec changes in the {@link JobSpecRegistry}. The task params were validated when
+ * the job was created, compiling only fails for jobs stored by an older node.
+ */
+@Slf4j
+@Component
+public class JobCompiler implements JobSpecRegistry.Listener {
+
+  @Autowired
+  private JobSpecRegistry jobSpecRegistry;
+
+  private final ConcurrentHashMap<String, JobPipeline> pipelines = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    jobSpecRegistry.addListener(this);
+  }
+
+  /**
+   * @return the pipeline of the job
+   * @throws IllegalArgumentException if the job does not exist or one of its tasks is invalid
+   */
+  public JobPipeline getPipeline(String jobId) {
+    JobPipeline pipeline = pipelines.get(jobId);
+    if (pipeline != null) {
+      return pipeline;
+    }
+    return pipelines.computeIfAbsent(jobId, this::compile);
+  }
+
+  @Override
+  public void onJobAdded(JobSpec jobSpec) {
+    pipelines.remove(jobSpec.getId());
+  }
+
+  @Override
+  public void onJobDeleted(JobSpec jobSpec) {
+    pipelines.remove(jobSpec.getId());
+  }
+
+  private JobPipeline compile(String jobId) {
+    JobSpec jobSpec = jobSpecRegistry.getJob(jobId);
+    if (jobSpec == null) {
+      throw new IllegalArgumentException("job not found: " + jobId);
+    }
+    List<JobPipeline.Stage> stages = new ArrayList<>();
+    for (TaskSpec taskSpec : jobSpec.getTaskSpecs()) {
+      stages.add(new JobPipeline.Stage(taskSpec, createAdapter(jobId, taskSpec)));
+    }
+    log.info("job {} compiled with {} tasks", jobId, stages.size());
+    return new JobPipeline(jobId, stages);
+  }
+
+  private static BaseAdapter createAdapter(String jobId, TaskSpec taskSpec) {
+    BaseAdapter adapter;
+    try {
+      adapter = AdapterManager.getAdapter(taskSpec);
+    } catch (Exception e) {
+      throw new IllegalArgumentException(String.format("invalid params of task %s, job: %s",
+          taskSpec.getType(), jobId), e);
+    }
+    if (adapter == null) {
+      throw new IllegalArgumentException(String.format("unsupported task %s, job: %s",
+          taskSpec.getType(), jobId));
+    }
+    return adapter;
+  }
+}
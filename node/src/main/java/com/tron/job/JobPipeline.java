@@ -0,0 +1,103 @@
+package com.tron.job;
+
+import com.tron.common.Constant;
+import com.tron.job.adapters.BaseAdapter;
+import com.tron.web.entity.TaskSpec;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * The adapters of a job, created once from its task specs and shared by all its runs.
+ *
+ * <p>The adapters only keep the task params and hold no state between two {@code perform} calls,
+ * so one instance serves concurrent runs.
+ *
+ * <p>The stages are grouped in levels which run one after the other. A job with a median or mean
+ * task is leveled: the tasks of the same level run concurrently and the combine task of the next
+ * level merges their results. Any other job keeps running its tasks one by one.
+ */
+public class JobPipeline {
+
+  @Getter
+  private final String jobId;
+  @Getter
+  private final List<Stage> stages;
+  @Getter
+  private final List<List<Stage>> levels;
+  private final Map<Long, Stage> stagesByTaskId = new HashMap<>();
+
+  JobPipeline(String jobId, List<Stage> stages) {
+    this.jobId = jobId;
+    this.stages = Collections.unmodifiableList(stages);
+    List<List<Stage>> grouped = new ArrayList<>();
+    List<TaskSpec> taskSpecs = new ArrayList<>();
+    for (Stage stage : stages) {
+      stagesByTaskId.put(stage.getTaskSpec().getId(), stage);
+      taskSpecs.add(stage.getTaskSpec());
+    }
+    for (List<TaskSpec> level : groupByLevel(taskSpecs)) {
+      List<Stage> group = new ArrayList<>();
+      for (TaskSpec taskSpec : level) {
+        group.add(stagesByTaskId.get(taskSpec.getId()));
+      }
+      grouped.add(Collections.unmodifiableList(group));
+    }
+    this.levels = Collections.unmodifiableList(grouped);
+  }
+
+  /** @return the stage of the task spec, null if the task is not part of the job */
+  public Stage getStage(Long taskSpecId) {
+    return stagesByTaskId.get(taskSpecId);
+  }
+
+  public static boolean isCombine(TaskSpec taskSpec) {
+    return Constant.TASK_TYPE_MEDIAN.equals(taskSpec.getType())
+        || Constant.TASK_TYPE_MEAN.equals(taskSpec.getType());
+  }
+
+  /** @return true if the tasks of the same level run concurrently */
+  public static boolean isLeveled(List<TaskSpec> taskSpecs) {
+    for (TaskSpec taskSpec : taskSpecs) {
+      if (isCombine(taskSpec)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param taskSpecs sorted by level, as they are read from the database
+   * @return the tasks to run together, one task per group if the job is not leveled
+   */
+  public static List<List<TaskSpec>> groupByLevel(List<TaskSpec> taskSpecs) {
+    boolean leveled = isLeveled(taskSpecs);
+    List<List<TaskSpec>> levels = new ArrayList<>();
+    List<TaskSpec> current = null;
+    for (TaskSpec taskSpec : taskSpecs) {
+      if (current == null || !leveled
+          || !Objects.equals(current.get(0).getLevel(), taskSpec.getLevel())) {
+        current = new ArrayList<>();
+        levels.add(current);
+      }
+      current.add(taskSpec);
+    }
+    return levels;
+  }
+
+  public static class Stage {
+    @Getter
+    private final TaskSpec taskSpec;
+    @Getter
+    private final BaseAdapter adapter;
+
+    Stage(TaskSpec taskSpec, BaseAdapter adapter) {
+      this.taskSpec = taskSpec;
+      this.adapter = adapter;
+    }
+  }
+}
@@ -0,0 +1,273 @@
+package com.tron.job;
+
+import com.tron.common.util.ThreadUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executes job runs on a fixed pool of named worker threads.
+ *
+ * <p>Accepted runs wait in a priority queue (VRF first, then request fulfilments, then flux
+ * rounds, FIFO inside the same priority). The number of waiting runs is bounded by
+ * {@code node.jobRun.queueCapacity}; once full, the run is rejected (abort, the default) or
+ * executed by the submitting thread (callerRuns), which slows down the event listener and skips
+ * the priority order. Runs of the same job beyond {@code node.jobRun.maxConcurrentPerJob} are
+ * parked until a run of that job finishes, so one busy job cannot occupy every worker; an
+ * overflowing run is counted against the same limit and rejected when its job has no free slot.
+ *
+ * <p>With {@code node.virtualThreads} enabled the workers are virtual threads and the pool size is
+ * {@code node.jobRun.virtualThreads}, since a run is mostly blocked on http calls.
+ */
+@Slf4j
+@Component
+public class JobRunExecutor implements MeterBinder {
+
+  public enum Priority {
+    VRF, FULFIL, ROUND
+  }
+
+  public enum RejectPolicy {
+    CALLER_RUNS, ABORT;
+
+    static RejectPolicy of(String name) {
+      return "callerRuns".equalsIgnoreCase(name) ? CALLER_RUNS : ABORT;
+    }
+  }
+
+  private final int queueCapacity;
+  private final int maxConcurrentPerJob;
+  private final RejectPolicy rejectPolicy;
+  private final long shutdownTimeout;
+  private final ThreadPoolExecutor executor;
+
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicLong sequence = new AtomicLong();
+  private final ConcurrentHashMap<String, JobSlot> jobSlots = new ConcurrentHashMap<>();
+  private volatile boolean shuttingDown;
+
+  private volatile Timer waitTimer;
+  private volatile Timer executeTimer;
+  private volatile Counter rejectedCounter;
+
+  public JobRunExecutor(
+      @Value("${node.jobRun.threads:#{16}}") int threads,
+      @Value("${node.jobRun.queueCapacity:#{1000}}") int queueCapacity,
+      @Value("${node.jobRun.maxConcurrentPerJob:#{4}}") int maxConcurrentPerJob,
+      @Value("${node.jobRun.rejectPolicy:abort}") String rejectPolicy,
+      @Value("${node.jobRun.shutdownTimeout:#{30}}") long shutdownTimeout,
+      @Value("${node.virtualThreads:#{false}}") boolean virtualThreads,
+      @Value("${node.jobRun.virtualThreads:#{4096}}") int maxVirtualThreads) {
+    if (virtualThreads) {
+      threads = maxVirtualThreads;
+    }
+    this.queueCapacity = queueCapacity;
+    this.maxConcurrentPerJob = maxConcurrentPerJob;
+    this.rejectPolicy = RejectPolicy.of(rejectPolicy);
+    this.shutdownTimeout = shutdownTimeout;
+    // the queue is unbounded on purpose, the bound is enforced on submit where parked runs are
+    // counted as well
+    this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new PriorityBlockingQueue<>(),
+        ThreadUtil.newThreadFactory("ExecuteJobRun-", virtualThreads));
+    // idle virtual workers are not worth keeping
+    this.executor.allowCoreThreadTimeOut(virtualThreads);
+    log.info("job run executor created, threads: {}, virtual: {}, queueCapacity: {}, "
+            + "maxConcurrentPerJob: {}, rejectPolicy: {}", threads, virtualThreads, queueCapacity,
+        maxConcurrentPerJob, this.rejectPolicy);
+  }
+
+  /**
+   * @return false if the run was rejected and will not be executed
+   */
+  public boolean submit(String jobId, Priority priority, Runnable run) {
+    JobRunTask task = new JobRunTask(jobId, priority, sequence.getAndIncrement(), run);
+    if (shuttingDown || executor.isShutdown()) {
+      return reject(task);
+    }
+    if (queued.incrementAndGet() > queueCapacity) {
+      queued.decrementAndGet();
+      return reject(task);
+    }
+
+    JobSlot slot = jobSlots.computeIfAbsent(jobId, k -> new JobSlot());
+    synchronized (slot) {
+      if (slot.running >= maxConcurrentPerJob) {
+        slot.waiting.add(task);
+        return true;
+      }
+      slot.running++;
+    }
+    executor.execute(task);
+    return true;
+  }
+
+  private boolean reject(JobRunTask task) {
+    Counter counter = rejectedCounter;
+    if (counter != null) {
+      counter.increment();
+    }
+    if (rejectPolicy == RejectPolicy.CALLER_RUNS && !shuttingDown && !executor.isShutdown()
+        && acquire(task.jobId)) {
+      log.warn("job run queue is full, run job {} in the caller thread", task.jobId);
+      task.execute();
+      return true;
+    }
+    log.error("job run queue is full, reject the run of job {}", task.jobId);
+    return false;
+  }
+
+  // a slot of the job for a run which is not parked if the job has none
+  private boolean acquire(String jobId) {
+    JobSlot slot = jobSlots.computeIfAbsent(jobId, k -> new JobSlot());
+    synchronized (slot) {
+      if (slot.running >= maxConcurrentPerJob) {
+        return false;
+      }
+      slot.running++;
+      return true;
+    }
+  }
+
+  private void release(String jobId) {
+    JobSlot slot = jobSlots.get(jobId);
+    JobRunTask next;
+    synchronized (slot) {
+      next = slot.waiting.poll();
+      if (next == null) {
+        slot.running--;
+      }
+    }
+    if (next != null) {
+      try {
+        executor.execute(next);
+      } catch (RejectedExecutionException e) {
+        // parked after the waiting runs were drained on shutdown
+        queued.decrementAndGet();
+        synchronized (slot) {
+          slot.running--;
+        }
+        log.error("executor is shut down, drop the waiting run of job {}", jobId);
+      }
+    }
+  }
+
+  public int getQueueDepth() {
+    return queued.get();
+  }
+
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("job.run.queue.depth", queued, AtomicInteger::get)
+        .description("job runs accepted but not started yet")
+        .register(registry);
+    Gauge.builder("job.run.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("job runs being executed")
+        .register(registry);
+    rejectedCounter = Counter.builder("job.run.rejected")
+        .description("job runs rejected because the queue was full")
+        .register(registry);
+    waitTimer = Timer.builder("job.run.queue.latency")
+        .description("time between accepting a job run and starting it")
+        .register(registry);
+    executeTimer = Timer.builder("job.run.execution")
+        .description("execution time of a job run")
+        .register(registry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    shuttingDown = true;
+    // hand the parked runs to the executor, they cannot be started once it is shut down
+    for (JobSlot slot : jobSlots.values()) {
+      synchronized (slot) {
+        JobRunTask task;
+        while ((task = slot.waiting.poll()) != null) {
+          slot.running++;
+          executor.execute(task);
+        }
+      }
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(shutdownTimeout, TimeUnit.SECONDS)) {
+        log.warn("job runs are still running after {}s, {} waiting runs are dropped",
+            shutdownTimeout, queued.get());
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class JobSlot {
+    private int running;
+    private final PriorityQueue<JobRunTask> waiting = new PriorityQueue<>();
+  }
+
+  private class JobRunTask implements Runnable, Comparable<JobRunTask> {
+    private final String jobId;
+    private final Priority priority;
+    private final long seq;
+    private final Runnable run;
+    private final long acceptedAt = System.nanoTime();
+
+    JobRunTask(String jobId, Priority priority, long seq, Runnable run) {
+      this.jobId = jobId;
+      this.priority = priority;
+      this.seq = seq;
+      this.run = run;
+    }
+
+    @Override
+    public void run() {
+      queued.decrementAndGet();
+      execute();
+    }
+
+    // runs in the slot of the job, which is released afterwards
+    void execute() {
+      long startAt = System.nanoTime();
+      Timer timer = waitTimer;
+      if (timer != null) {
+        timer.record(startAt - acceptedAt, TimeUnit.NANOSECONDS);
+      }
+      try {
+        run.run();
+      } catch (Throwable t) {
+        log.error("job run of {} failed", jobId, t);
+      } finally {
+        timer = executeTimer;
+        if (timer != null) {
+          timer.record(System.nanoTime() - startAt, TimeUnit.NANOSECONDS);
+        }
+        release(jobId);
+      }
+    }
+
+    @Override
+    public int compareTo(JobRunTask o) {
+      int c = priority.compareTo(o.priority);
+      return c != 0 ? c : Long.compare(seq, o.seq);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package com.tron.job;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only local journal of the writes buffered by {@link JobRunWriter}.
+ *
+ * <p>The journal is split in numbered segment files. A flush of the buffered writes starts a new
+ * segment, and the older segments are deleted once the database has the flushed rows. Whatever is
+ * left in the directory at startup has not reached the database yet and is replayed.
+ *
+ * <p>With sync set, the records are forced to the disk by group commit: a writer waiting for its
+ * record forces every record written so far, and the writers that were waiting meanwhile find
+ * theirs already on the disk, so a burst of records costs one force instead of one each.
+ */
+@Slf4j
+class JobRunJournal {
+
+  private static final String PREFIX = "journal-";
+  private static final String SUFFIX = ".log";
+
+  private final File dir;
+  private final boolean sync;
+  private final Object syncLock = new Object();
+  private FileChannel channel;
+  private long segment;
+  private long written;
+  private volatile long synced;
+
+  /**
+   * @param sync force every record to the disk before {@link #await} returns, otherwise the
+   *     records written since the last os flush may be lost when the machine crashes
+   */
+  JobRunJournal(String dir, boolean sync) throws IOException {
+    this.dir = new File(dir);
+    this.sync = sync;
+    if (!this.dir.isDirectory() && !this.dir.mkdirs()) {
+      throw new IOException("can not create journal directory " + this.dir.getAbsolutePath());
+    }
+    for (long existing : segments()) {
+      segment = Math.max(segment, existing);
+    }
+    open(segment + 1);
+  }
+
+  /** @return the records of all the segments, oldest first */
+  synchronized List<String> readAll() throws IOException {
+    List<String> records = new ArrayList<>();
+    for (long existing : segments()) {
+      if (existing < segment) {
+        records.addAll(Files.readAllLines(file(existing).toPath(), StandardCharsets.UTF_8));
+      }
+    }
+    return records;
+  }
+
+  /** @return the ticket of the record to {@link #await}, it is not forced to the disk yet */
+  synchronized long append(String record) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    return ++written;
+  }
+
+  /** wait until the record of the ticket is on the disk, if sync is set. */
+  void await(long ticket) throws IOException {
+    if (!sync || ticket <= synced) {
+      return;
+    }
+    synchronized (syncLock) {
+      if (ticket <= synced) {
+        return;
+      }
+      long target;
+      FileChannel current;
+      synchronized (this) {
+        target = written;
+        current = channel;
+      }
+      // appends go on while forcing, the channel is only replaced under syncLock
+      current.force(false);
+      synced = target;
+    }
+  }
+
+  /** @return the new segment, all the records appended before are in lower segments */
+  long rotate() throws IOException {
+    synchronized (syncLock) {
+      synchronized (this) {
+        // the current segment is kept if the next one can not be opened
+        FileChannel next = openChannel(segment + 1);
+        FileChannel previous = channel;
+        channel = next;
+        segment++;
+        try {
+          if (sync) {
+            previous.force(false);
+            synced = written;
+          }
+        } catch (IOException e) {
+          log.warn("force journal segment {} failed, msg: {}", segment - 1, e.getMessage());
+        } finally {
+          previous.close();
+        }
+        return segment;
+      }
+    }
+  }
+
+  /** delete the segments below the given one. */
+  synchronized void deleteBefore(long before) {
+    for (long existing : segments()) {
+      if (existing < before && !file(existing).delete()) {
+        log.warn("can not delete journal segment {}", file(existing).getAbsolutePath());
+      }
+    }
+  }
+
+  void close() throws IOException {
+    synchronized (syncLock) {
+      synchronized (this) {
+        channel.close();
+      }
+    }
+  }
+
+  private void open(long next) throws IOException {
+    channel = openChannel(next);
+    segment = next;
+  }
+
+  private FileChannel openChannel(long seq) throws IOException {
+    return FileChannel.open(file(seq).toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+
+  private File file(long seq) {
+    return new File(dir, String.format("%s%019d%s", PREFIX, seq, SUFFIX));
+  }
+
+  private long[] segments() {
+    String[] names = dir.list((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+    if (names == null) {
+      return new long[0];
+    }
+    long[] seqs = new long[names.length];
+    for (int i = 0; i < names.length; i++) {
+      seqs[i] = Long.parseLong(
+          names[i].substring(PREFIX.length(), names[i].length() - SUFFIX.length()));
+    }
+    Arrays.sort(seqs);
+    return seqs;
+  }
+}
@@ -0,0 +1,504 @@
+package com.tron.job;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.tron.common.Constant;
+import com.tron.common.util.ThreadUtil;
+import com.tron.web.entity.JobRun;
+import com.tron.web.entity.TaskRun;
+import com.tron.web.entity.TronTx;
+import com.tron.web.service.JobRunsService;
+import com.tron.web.service.TronTxService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind persistence of the job runs, task runs and txes of the run path.
+ *
+ * <p>Every write records a copy of the whole row, the copies of a row are merged in memory and
+ * written every {@code node.persist.flushInterval} ms with one multi-row upsert per table, so a
+ * job run costs a few statements shared with the other runs of the interval instead of 2N+3
+ * round-trips. Before a write returns, its copy is appended to a local journal, which is replayed
+ * at startup; a crash between two flushes does not lose the rows.
+ *
+ * <p>When a multi-row statement fails while the database is reachable, its rows are written one
+ * by one, so a row the database refuses does not hold back the others. Such a row is tried again
+ * by the next flushes, up to {@code node.persist.maxRetries} times, and then logged as a dead
+ * letter and dropped. When the database is not reachable, the flush stops and every row waits for
+ * the next one.
+ *
+ * <p>A tx the fullnode refused is marked failed by its surrogate id, after the insert of its row
+ * in the same flush, or on the row itself if it is not written yet.
+ *
+ * <p>The rows are visible to the database readers (the web api, the resender) up to one interval
+ * later. The run path keeps working on its own objects and never reads them back.
+ */
+@Slf4j
+@Component
+public class JobRunWriter implements MeterBinder {
+
+  private static final char JOB_RUN = 'J';
+  private static final char TASK_RUN = 'T';
+  private static final char TX = 'X';
+  private static final char TX_FAILED = 'F';
+
+  private final JobRunsService jobRunsService;
+  private final TronTxService tronTxService;
+  private final int batchSize;
+  private final int maxRetries;
+  private final JobRunJournal journal;
+  private final ScheduledExecutorService flushExecutor;
+
+  private final Object lock = new Object();
+  private Map<String, JobRun> jobRuns = new LinkedHashMap<>();
+  private Map<String, TaskRun> taskRuns = new LinkedHashMap<>();
+  private List<TronTx> txes = new ArrayList<>();
+  private Set<String> failedTxes = new LinkedHashSet<>();
+  // failed writes of the rows, by table and key, only touched by the flush
+  private final Map<String, Integer> rowFailures = new HashMap<>();
+
+  private final AtomicLong flushFailures = new AtomicLong();
+  private final AtomicLong deadLetters = new AtomicLong();
+
+  @Autowired
+  public JobRunWriter(JobRunsService jobRunsService, TronTxService tronTxService,
+      @Value("${node.persist.flushInterval:#{200}}") long flushInterval,
+      @Value("${node.persist.batchSize:#{500}}") int batchSize,
+      @Value("${node.persist.journalDir:#{'journal'}}") String journalDir,
+      @Value("${node.persist.journalSync:#{true}}") boolean journalSync,
+      @Value("${node.persist.maxRetries:#{3}}") int maxRetries) throws IOException {
+    this.jobRunsService = jobRunsService;
+    this.tronTxService = tronTxService;
+    this.batchSize = batchSize;
+    this.maxRetries = maxRetries;
+    this.journal = new JobRunJournal(journalDir, journalSync);
+    replay();
+    flushExecutor = Executors.newSingleThreadScheduledExecutor(
+        ThreadUtil.newThreadFactory("job-run-flush-", false));
+    flushExecutor.scheduleWithFixedDelay(() -> {
+      try {
+        flush();
+      } catch (Throwable t) {
+        log.error("Exception in job run flush ", t);
+      }
+    }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+  }
+
+  public void insert(JobRun jobRun, List<TaskRun> taskRunList) {
+    Date now = new Date();
+    jobRun.setCreatedAt(now);
+    jobRun.setUpdatedAt(now);
+    long ticket;
+    synchronized (lock) {
+      ticket = put(jobRun);
+      for (TaskRun taskRun : taskRunList) {
+        taskRun.setCreatedAt(now);
+        taskRun.setUpdatedAt(now);
+        ticket = Math.max(ticket, put(taskRun));
+      }
+    }
+    await(ticket);
+  }
+
+  /** same as {@link JobRunsService#updateJobResult}, empty result and error are not written. */
+  public void updateJobResult(JobRun jobRun, int status, String result, String error) {
+    jobRun.setStatus(status);
+    if (!Strings.isNullOrEmpty(result)) {
+      jobRun.setResult(result);
+    }
+    if (!Strings.isNullOrEmpty(error)) {
+      jobRun.setError(error);
+    }
+    jobRun.setUpdatedAt(new Date());
+    long ticket;
+    synchronized (lock) {
+      ticket = put(jobRun);
+    }
+    await(ticket);
+  }
+
+  /** same as {@link JobRunsService#updateTaskResult}, empty result and error are not written. */
+  public void updateTaskResult(TaskRun taskRun, int status, String result, String error) {
+    taskRun.setStatus(status);
+    if (!Strings.isNullOrEmpty(result)) {
+      taskRun.setResult(result);
+    }
+    if (!Strings.isNullOrEmpty(error)) {
+      taskRun.setError(error);
+    }
+    taskRun.setUpdatedAt(new Date());
+    long ticket;
+    synchronized (lock) {
+      ticket = put(taskRun);
+    }
+    await(ticket);
+  }
+
+  /** the tx must not be modified afterwards. */
+  public void insertTx(TronTx tx) {
+    long ticket;
+    synchronized (lock) {
+      ticket = record(TX, addTx(tx));
+    }
+    await(ticket);
+  }
+
+  /** marks the tx failed, e.g. when the fullnode refused it or it was never sent. */
+  public void failTx(String surrogateId) {
+    long ticket;
+    synchronized (lock) {
+      ticket = record(TX_FAILED, surrogateId);
+      fail(surrogateId);
+    }
+    await(ticket);
+  }
+
+  public int getPending() {
+    synchronized (lock) {
+      return jobRuns.size() + taskRuns.size() + txes.size() + failedTxes.size();
+    }
+  }
+
+  public void flush() {
+    Map<String, JobRun> jobRunBatch;
+    Map<String, TaskRun> taskRunBatch;
+    List<TronTx> txBatch;
+    Set<String> failedTxBatch;
+    long segment;
+    synchronized (lock) {
+      if (jobRuns.isEmpty() && taskRuns.isEmpty() && txes.isEmpty() && failedTxes.isEmpty()) {
+        return;
+      }
+      jobRunBatch = jobRuns;
+      taskRunBatch = taskRuns;
+      txBatch = txes;
+      failedTxBatch = failedTxes;
+      jobRuns = new LinkedHashMap<>();
+      taskRuns = new LinkedHashMap<>();
+      txes = new ArrayList<>();
+      failedTxes = new LinkedHashSet<>();
+      try {
+        segment = journal.rotate();
+      } catch (IOException e) {
+        // keep the segment, it is deleted by the next flush that rotates
+        segment = -1;
+        log.error("rotate job run journal failed, msg: {}", e.getMessage());
+      }
+    }
+
+    List<JobRun> jobRunRetries = new ArrayList<>();
+    List<TaskRun> taskRunRetries = new ArrayList<>();
+    List<TronTx> txRetries = new ArrayList<>();
+    List<String> failedTxRetries = new ArrayList<>();
+    boolean written = write("job_runs", new ArrayList<>(jobRunBatch.values()),
+        jobRunsService::batchUpsert, JobRun::getId, jobRunRetries)
+        && write("task_runs", new ArrayList<>(taskRunBatch.values()),
+        jobRunsService::batchUpsertTaskRuns, TaskRun::getId, taskRunRetries)
+        && write("txes", txBatch, tronTxService::batchInsert, TronTx::getTaskRunId, txRetries)
+        && write("failed txes", new ArrayList<>(failedTxBatch),
+        ids -> tronTxService.batchUpdateConfirmed(Constant.TronTxFatalError, ids), id -> id,
+        failedTxRetries);
+    if (!written) {
+      flushFailures.incrementAndGet();
+      // the upserts are idempotent, write the whole batch again with the newer copies
+      synchronized (lock) {
+        jobRunBatch.putAll(jobRuns);
+        jobRuns = jobRunBatch;
+        taskRunBatch.putAll(taskRuns);
+        taskRuns = taskRunBatch;
+        txBatch.addAll(txes);
+        txes = txBatch;
+        failedTxBatch.addAll(failedTxes);
+        failedTxes = failedTxBatch;
+      }
+      return;
+    }
+    if (!jobRunRetries.isEmpty() || !taskRunRetries.isEmpty() || !txRetries.isEmpty()
+        || !failedTxRetries.isEmpty()) {
+      // journal them again, their records are in the segments deleted below
+      long ticket = 0;
+      synchronized (lock) {
+        for (JobRun jobRun : jobRunRetries) {
+          if (!jobRuns.containsKey(jobRun.getId())) {
+            ticket = Math.max(ticket, put(jobRun));
+          }
+        }
+        for (TaskRun taskRun : taskRunRetries) {
+          if (!taskRuns.containsKey(taskRun.getId())) {
+            ticket = Math.max(ticket, put(taskRun));
+          }
+        }
+        for (TronTx tx : txRetries) {
+          ticket = Math.max(ticket, record(TX, addTx(tx)));
+        }
+        for (String surrogateId : failedTxRetries) {
+          ticket = Math.max(ticket, record(TX_FAILED, surrogateId));
+          fail(surrogateId);
+        }
+      }
+      await(ticket);
+    }
+    if (segment > 0) {
+      journal.deleteBefore(segment);
+    }
+  }
+
+  /**
+   * @return false if the database is not reachable, the rows are then all to write again;
+   *     otherwise the rows refused by the database are added to the retries
+   */
+  private <T> boolean write(String table, List<T> rows, Consumer<List<T>> upsert,
+      Function<T, String> keyOf, List<T> retries) {
+    for (List<T> part : Lists.partition(rows, batchSize)) {
+      try {
+        upsert.accept(part);
+        forget(table, part, keyOf);
+        continue;
+      } catch (Exception e) {
+        if (isUnavailable(e)) {
+          log.error("flush job runs failed, retry later, msg: {}", e.getMessage());
+          return false;
+        }
+        log.warn("write {} rows of {} failed, write them one by one, msg: {}", part.size(),
+            table, e.getMessage());
+      }
+      for (T row : part) {
+        try {
+          upsert.accept(Collections.singletonList(row));
+          forget(table, Collections.singletonList(row), keyOf);
+        } catch (Exception e) {
+          if (isUnavailable(e)) {
+            log.error("flush job runs failed, retry later, msg: {}", e.getMessage());
+            return false;
+          }
+          String key = table + ":" + keyOf.apply(row);
+          int failures = rowFailures.merge(key, 1, Integer::sum);
+          if (failures < maxRetries) {
+            retries.add(row);
+          } else {
+            rowFailures.remove(key);
+            deadLetters.incrementAndGet();
+            log.error("drop the row of {} after {} failed writes, row: {}, msg: {}", table,
+                failures, JSON.toJSONString(row), e.getMessage());
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  private <T> void forget(String table, List<T> rows, Function<T, String> keyOf) {
+    if (rowFailures.isEmpty()) {
+      return;
+    }
+    for (T row : rows) {
+      rowFailures.remove(table + ":" + keyOf.apply(row));
+    }
+  }
+
+  private static boolean isUnavailable(Exception e) {
+    return e instanceof DataAccessResourceFailureException
+        || e instanceof TransientDataAccessException
+        || e instanceof RecoverableDataAccessException;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    flushExecutor.shutdown();
+    try {
+      flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+    try {
+      journal.close();
+    } catch (IOException e) {
+      log.warn("close job run journal failed, msg: {}", e.getMessage());
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("job.run.writer.pending", this, JobRunWriter::getPending)
+        .description("rows waiting to be written to the database")
+        .register(registry);
+    FunctionCounter.builder("job.run.writer.flush.failures", flushFailures, AtomicLong::get)
+        .description("flushes of the job runs which failed and were retried")
+        .register(registry);
+    FunctionCounter.builder("job.run.writer.dead.letters", deadLetters, AtomicLong::get)
+        .description("rows dropped after failing every write")
+        .register(registry);
+  }
+
+  private long put(JobRun jobRun) {
+    JobRun copy = copyOf(jobRun);
+    jobRuns.put(copy.getId(), copy);
+    return record(JOB_RUN, copy);
+  }
+
+  private long put(TaskRun taskRun) {
+    TaskRun copy = copyOf(taskRun);
+    taskRuns.put(copy.getId(), copy);
+    return record(TASK_RUN, copy);
+  }
+
+  private TronTx addTx(TronTx tx) {
+    TronTx row = failedTxes.contains(tx.getSurrogateId()) ? failedCopyOf(tx) : tx;
+    txes.add(row);
+    return row;
+  }
+
+  private void fail(String surrogateId) {
+    failedTxes.add(surrogateId);
+    for (int i = 0; i < txes.size(); i++) {
+      if (surrogateId.equals(txes.get(i).getSurrogateId())) {
+        txes.set(i, failedCopyOf(txes.get(i)));
+      }
+    }
+  }
+
+  /**
+   * The record is written under the lock, so the journal keeps the order of the copies of a row
+   * and a rotation splits it at the flushed batch, then forced to the disk outside of it.
+   *
+   * @return the journal ticket, 0 if the append failed
+   */
+  private long record(char type, Object row) {
+    try {
+      return journal.append(type + JSON.toJSONString(row));
+    } catch (IOException e) {
+      log.error("append job run journal failed, the row is only kept in memory, msg: {}",
+          e.getMessage());
+      return 0;
+    }
+  }
+
+  private void await(long ticket) {
+    if (ticket <= 0) {
+      return;
+    }
+    try {
+      journal.await(ticket);
+    } catch (IOException e) {
+      log.error("sync job run journal failed, the row may be lost by a crash, msg: {}",
+          e.getMessage());
+    }
+  }
+
+  private void replay() throws IOException {
+    int count = 0;
+    for (String record : journal.readAll()) {
+      if (record.isEmpty()) {
+        continue;
+      }
+      try {
+        String json = record.substring(1);
+        switch (record.charAt(0)) {
+          case JOB_RUN:
+            JobRun jobRun = JSON.parseObject(json, JobRun.class);
+            jobRuns.put(jobRun.getId(), jobRun);
+            break;
+          case TASK_RUN:
+            TaskRun taskRun = JSON.parseObject(json, TaskRun.class);
+            taskRuns.put(taskRun.getId(), taskRun);
+            break;
+          case TX:
+            addTx(JSON.parseObject(json, TronTx.class));
+            break;
+          case TX_FAILED:
+            fail(JSON.parseObject(json, String.class));
+            break;
+          default:
+            log.warn("unknown job run journal record: {}", record);
+            continue;
+        }
+        count++;
+      } catch (Exception e) {
+        // the last record of a crash may be cut
+        log.warn("skip broken job run journal record: {}", record);
+      }
+    }
+    if (count > 0) {
+      log.info("replay {} job run journal records", count);
+    }
+  }
+
+  private static JobRun copyOf(JobRun jobRun) {
+    JobRun copy = new JobRun();
+    copy.setId(jobRun.getId());
+    copy.setJobSpecID(jobRun.getJobSpecID());
+    copy.setRequestId(jobRun.getRequestId());
+    copy.setParams(jobRun.getParams());
+    copy.setResult(jobRun.getResult());
+    copy.setError(jobRun.getError());
+    copy.setStatus(jobRun.getStatus());
+    copy.setInitiatorId(jobRun.getInitiatorId());
+    copy.setCreationHeight(jobRun.getCreationHeight());
+    copy.setPayment(jobRun.getPayment());
+    copy.setCreatedAt(jobRun.getCreatedAt());
+    copy.setUpdatedAt(jobRun.getUpdatedAt());
+    return copy;
+  }
+
+  private static TronTx failedCopyOf(TronTx tx) {
+    TronTx copy = new TronTx();
+    copy.setId(tx.getId());
+    copy.setTaskRunId(tx.getTaskRunId());
+    copy.setSurrogateId(tx.getSurrogateId());
+    copy.setFrom(tx.getFrom());
+    copy.setTo(tx.getTo());
+    copy.setData(tx.getData());
+    copy.setValue(tx.getValue());
+    copy.setHash(tx.getHash());
+    copy.setConfirmed(Constant.TronTxFatalError);
+    copy.setSentAt(tx.getSentAt());
+    copy.setSignedRawTx(tx.getSignedRawTx());
+    copy.setCreatedAt(tx.getCreatedAt());
+    copy.setUpdatedAt(tx.getUpdatedAt());
+    return copy;
+  }
+
+  private static TaskRun copyOf(TaskRun taskRun) {
+    TaskRun copy = new TaskRun();
+    copy.setId(taskRun.getId());
+    copy.setJobRunID(taskRun.getJobRunID());
+    copy.setTaskSpecId(taskRun.getTaskSpecId());
+    copy.setLevel(taskRun.getLevel());
+    copy.setStatus(taskRun.getStatus());
+    copy.setResult(taskRun.getResult());
+    copy.setError(taskRun.getError());
+    copy.setMinimumConfirmations(taskRun.getMinimumConfirmations());
+    copy.setConfirmations(taskRun.getConfirmations());
+    copy.setCreatedAt(taskRun.getCreatedAt());
+    copy.setUpdatedAt(taskRun.getUpdatedAt());
+    return copy;
+  }
+}
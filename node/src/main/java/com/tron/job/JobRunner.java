@@ -1,23 +1,20 @@
 package com.tron.job;
 
-import com.google.common.collect.Maps;
+import com.tron.client.ReSender;
 import com.tron.common.Constant;
-import com.tron.job.adapters.AdapterManager;
-import com.tron.job.adapters.BaseAdapter;
-import com.tron.web.common.util.R;
 import com.tron.web.entity.Initiator;
 import com.tron.web.entity.JobRun;
 import com.tron.web.entity.JobSpec;
 import com.tron.web.entity.TaskRun;
 import com.tron.web.entity.TaskSpec;
-import com.tron.web.entity.TronTx;
 import com.tron.web.service.HeadService;
-import com.tron.web.service.JobRunsService;
-import com.tron.web.service.JobSpecsService;
 import com.tron.client.EventRequest;
+import com.tron.client.RoundEventRequest;
+import com.tron.client.VrfEventRequest;
 import com.tron.web.service.TronTxService;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -30,59 +27,77 @@ import org.springframework.stereotype.Component;
 @Component
 public class JobRunner {
   @Autowired
-  JobSpecsService jobSpecsService;
+  private JobSpecRegistry jobSpecRegistry;
   @Autowired
-  public JobRunsService jobRunsService;
+  private JobCompiler jobCompiler;
   @Autowired
   public TronTxService tronTxService;
   @Autowired
   private JobCache jobCache;
   @Autowired
   public HeadService headService;
+  @Autowired
+  private JobRunExecutor jobRunExecutor;
+  @Autowired
+  private RequestIdIndex requestIdIndex;
+  @Autowired
+  private JobRunWriter jobRunWriter;
+  @Autowired
+  private TaskLevelExecutor taskLevelExecutor;
+  @Autowired
+  private ReSender reSender;
 
   @Value("${node.minPayment:#{'100000'}}")
   private String nodeMinPayment;
 
   public List<Initiator> getAllJobInitiatorList() {
     List<Initiator> initiators = new ArrayList<>();
-    List<JobSpec> jobSpecs = jobSpecsService.getAllJob();
-    for (JobSpec jobSpec : jobSpecs) {
-      if (jobSpec.getDeletedAt() != null) {
-        continue;
-      }
-      List<Initiator> jobInitiators = jobSpecsService.getInitiatorsByJobId(jobSpec.getId());
-      initiators.add(jobInitiators.get(0));
+    for (JobSpec jobSpec : jobSpecRegistry.getActiveJobs()) {
+      initiators.add(jobSpec.getInitiators().get(0));
     }
     return initiators;
   }
 
-  public void addJobRun(String eventParams) {
+  public void addJobRun(EventRequest event) {
+    addJobRun(event, event.getJobId(), event.getRequestId(), event.getBlockNum(),
+        event.getContractAddr(), event.getPayment());
+  }
+
+  public void addJobRun(VrfEventRequest event) {
+    addJobRun(event, event.getJobId(), event.getRequestId(), event.getBlockNum(),
+        event.getContractAddr(), event.getPayment());
+  }
+
+  private void addJobRun(Object event, String jobId, String requestId, long blockNum,
+      String contractAddr, BigInteger payment) {
 
     try {
-      Map<String, Object> eventMap = com.tron.web.common.util.JsonUtil.json2Map(eventParams);
-      JobSpec job = jobSpecsService.getById(eventMap.get("jobId").toString());
+      JobSpec job = jobSpecRegistry.getJob(jobId);
 
       // check run
-      boolean checkResult = validateRun(job, eventParams);
+      boolean checkResult = validateRun(job, jobId, requestId, contractAddr, payment);
 
       if (checkResult) {
         JobRun jobRun = new JobRun();
         String jobRunId = UUID.randomUUID().toString();
         jobRunId = jobRunId.replaceAll("-", "");
         jobRun.setId(jobRunId);
-        jobRun.setJobSpecID(eventMap.get("jobId").toString());
-        jobRun.setRequestId(eventMap.get("requestId").toString());
+        jobRun.setJobSpecID(jobId);
+        jobRun.setRequestId(requestId);
         jobRun.setStatus(1);
-        jobRun.setCreationHeight(new Long(eventMap.get("blockNum").toString()));
+        jobRun.setCreationHeight(blockNum);
         jobRun.setPayment(0L);  // todo
         jobRun.setInitiatorId(job.getInitiators().get(0).getId());
-        jobRun.setParams(eventParams);
+        jobRun.setParams(com.tron.web.common.util.JsonUtil.obj2String(event));
 
-        jobRunsService.insert(jobRun);
+        List<TaskRun> taskRuns = newTaskRuns(jobRunId, job.getTaskSpecs());
+        jobRunWriter.insert(jobRun, taskRuns);
+        requestIdIndex.add(jobRun.getRequestId());
 
-        insertTaskRuns(jobRunId, job.getTaskSpecs());
-
-        run(jobRun, eventParams);
+        JobRunExecutor.Priority priority = Constant.INITIATOR_TYPE_RANDOMNESS_LOG.equals(
+            job.getInitiators().get(0).getType())
+            ? JobRunExecutor.Priority.VRF : JobRunExecutor.Priority.FULFIL;
+        run(jobRun, taskRuns, event, priority);
       }
     } catch (Exception e) {
       log.error("add job run failed, error msg:" + e.getMessage());
@@ -90,7 +105,9 @@ public class JobRunner {
     }
   }
 
-  private void insertTaskRuns(String jobRunId, List<TaskSpec> taskSpecs) {
+  /** @return the task runs in the order of the task specs, which is the execution order */
+  private List<TaskRun> newTaskRuns(String jobRunId, List<TaskSpec> taskSpecs) {
+    List<TaskRun> taskRuns = new ArrayList<>(taskSpecs.size());
     for (TaskSpec task : taskSpecs) {
       TaskRun taskRun = new TaskRun();
       String taskRunId = UUID.randomUUID().toString();
@@ -99,19 +116,20 @@ public class JobRunner {
       taskRun.setJobRunID(jobRunId);
       taskRun.setTaskSpecId(task.getId());
       taskRun.setLevel(task.getLevel());
-      jobRunsService.insertTaskRun(taskRun);
+      taskRuns.add(taskRun);
     }
+    return taskRuns;
   }
 
   public void addJobRunV2(String addr, long roundId, String startBy, long startAt, BigInteger payment) {
 
     try {
-      Initiator initiator = jobSpecsService.getInitiatorByAddress(addr);
+      Initiator initiator = jobSpecRegistry.getInitiatorByAddress(addr);
       if (initiator == null) {
         log.warn("initiator is not exist, address:{}", addr);
         return;
       }
-      JobSpec job = jobSpecsService.getById(initiator.getJobSpecID());
+      JobSpec job = jobSpecRegistry.getJob(initiator.getJobSpecID());
 
       // check run
       boolean checkResult = validateRunV2(job, initiator.getJobSpecID(), payment);
@@ -128,19 +146,13 @@ public class JobRunner {
         jobRun.setPayment(0L);  // todo
         jobRun.setInitiatorId(job.getInitiators().get(0).getId());
 
-        Map<String, Object> params = Maps.newHashMap();
-        params.put("roundId", roundId);
-        params.put("startBy", startBy);
-        params.put("startAt", startAt);
-        params.put("address", addr);
-        String paramsStr = com.tron.web.common.util.JsonUtil.obj2String(params);
-        jobRun.setParams(paramsStr);
-
-        jobRunsService.insert(jobRun);
+        RoundEventRequest event = new RoundEventRequest(roundId, startBy, startAt, addr);
+        jobRun.setParams(com.tron.web.common.util.JsonUtil.obj2String(event));
 
-        insertTaskRuns(jobRunId, job.getTaskSpecs());
+        List<TaskRun> taskRuns = newTaskRuns(jobRunId, job.getTaskSpecs());
+        jobRunWriter.insert(jobRun, taskRuns);
 
-        run(jobRun, paramsStr);
+        run(jobRun, taskRuns, event, JobRunExecutor.Priority.ROUND);
       }
     } catch (Exception e) {
       log.error("add job run failed, error msg:" + e.getMessage());
@@ -148,57 +160,58 @@ public class JobRunner {
     }
   }
 
-  private void run(JobRun jobRun, String params) {
-    new Thread(() -> {
+  private void run(JobRun jobRun, List<TaskRun> taskRuns, Object event,
+      JobRunExecutor.Priority priority) {
+    boolean accepted = jobRunExecutor.submit(jobRun.getJobSpecID(), priority, () -> {
       try {
-        execute(jobRun.getId(), params);
+        execute(jobRun, taskRuns, event);
       } catch (Exception e) {
         //TODO
         e.printStackTrace();
       }
-    }, "ExecuteJobRun").start();
+    });
+    if (!accepted) {
+      jobRunWriter.updateJobResult(jobRun, 3, null, "job run queue is full");
+    }
   }
 
-  private void execute(String runId, String params) {
+  private void execute(JobRun jobRun, List<TaskRun> taskRuns, Object event) {
     try {
-      JobRun jobRun = jobRunsService.getById(runId);
-      List<TaskRun> taskRuns = jobRunsService.getTaskRunsByJobRunId(runId);
-      jobRun.setTaskRuns(taskRuns);
-
-      R preTaskResult = new R();
-      preTaskResult.put("params", params);
-      preTaskResult.put("result", null);
-      preTaskResult.put("jobRunId", runId);
-      preTaskResult.put("taskRunId", "");
-      for (TaskRun taskRun : taskRuns) {
-        preTaskResult.replace("taskRunId", taskRun.getId());
-        TaskSpec taskSpec = jobSpecsService.getTasksById(taskRun.getTaskSpecId());
-        R result = null;
-        if (jobCache.isCacheEnable() && taskSpec.getType().equals(Constant.TASK_TYPE_CACHE)) {
-          result = new R();
-          jobCache.cachePut(jobRun.getJobSpecID(), (long)preTaskResult.get("result"));
-          long value = jobCache.cacheGet(jobRun.getJobSpecID());
-          result.put("result", value);
-        } else {
-          result = executeTask(taskRun, taskSpec, preTaskResult);
-        }
+      JobPipeline pipeline = jobCompiler.getPipeline(jobRun.getJobSpecID());
 
+      Map<Long, TaskRun> taskRunsBySpec = new HashMap<>();
+      for (TaskRun taskRun : taskRuns) {
+        taskRunsBySpec.put(taskRun.getTaskSpecId(), taskRun);
+      }
 
-        if (result.get("code").equals(0)) {
-          preTaskResult.replace("result", result.get("result"));
-        } else {
-          log.error(taskSpec.getType() + " run failed");
-          preTaskResult.replace("code", result.get("code"));
-          preTaskResult.replace("msg", result.get("msg"));
+      RunContext context = new RunContext(jobRun.getId(), event);
+      for (List<JobPipeline.Stage> level : pipeline.getLevels()) {
+        taskLevelExecutor.run(level, context, (stage, ctx) -> {
+          TaskRun taskRun = taskRunsBySpec.get(stage.getTaskSpec().getId());
+          ctx.startTask(taskRun.getId());
+          TaskSpec taskSpec = stage.getTaskSpec();
+          if (jobCache.isCacheEnable() && taskSpec.getType().equals(Constant.TASK_TYPE_CACHE)) {
+            jobCache.cachePut(jobRun.getJobSpecID(), ctx.getLongResult());
+            long value = jobCache.cacheGet(jobRun.getJobSpecID());
+            ctx.setResult(value);
+          } else {
+            executeTask(taskRun, stage, ctx);
+          }
+          if (!ctx.isOk()) {
+            log.error(taskSpec.getType() + " run failed");
+          }
+        });
+
+        if (!context.isOk()) {
           break;
         }
       }
 
       // update job run
-      if (preTaskResult.get("code").equals(0)) {
-        jobRunsService.updateJobResult(runId, 2, null, null);
+      if (context.isOk()) {
+        jobRunWriter.updateJobResult(jobRun, 2, null, null);
       } else {
-        jobRunsService.updateJobResult(runId, 3, null, String.valueOf(preTaskResult.get("msg")));
+        jobRunWriter.updateJobResult(jobRun, 3, null, context.getMsg());
       }
     } catch (Exception e) {
       log.error("execute job run error, msg:" + e.getMessage());
@@ -206,34 +219,32 @@ public class JobRunner {
     }
   }
 
-  private R executeTask(TaskRun taskRun, TaskSpec taskSpec, R input) {
-    BaseAdapter adapter = AdapterManager.getAdapter(taskSpec);
-    R result = adapter.perform(input);
+  private void executeTask(TaskRun taskRun, JobPipeline.Stage stage, RunContext context) {
+    TaskSpec taskSpec = stage.getTaskSpec();
+    stage.getAdapter().perform(context);
 
     // update task run
-    if (result.get("code").equals(0)) {
-      String resultStr = String.valueOf(result.get("result"));
-      jobRunsService.updateTaskResult(taskRun.getId(), 2, resultStr, null);
+    if (context.isOk()) {
+      jobRunWriter.updateTaskResult(taskRun, 2, context.resultToString(), null);
 
       if (taskSpec.getType().equals(Constant.TASK_TYPE_TRON_TX)) {
-        tronTxService.insert((TronTx)result.get("tx"));
+        jobRunWriter.insertTx(context.getTx());
+        reSender.track(context.getTx());
       }
     } else {
-      jobRunsService.updateTaskResult(taskRun.getId(), 3, null, String.valueOf(result.get("msg")));
+      jobRunWriter.updateTaskResult(taskRun, 3, null, context.getMsg());
       //
       if (taskSpec.getType().equals(Constant.TASK_TYPE_TRON_TX)) {
-        if (result.get("tx") != null) { // for VRF resend
-          tronTxService.insert((TronTx) result.get("tx"));
+        if (context.getTx() != null) { // for VRF resend
+          jobRunWriter.insertTx(context.getTx());
+          reSender.track(context.getTx());
         }
       }
     }
-
-    return result;
   }
 
-  private boolean validateRun(JobSpec jobSpec, String eventParams) {
-    Map<String, Object> eventMap = com.tron.web.common.util.JsonUtil.json2Map(eventParams);
-    String jobId = eventMap.get("jobId").toString();
+  private boolean validateRun(JobSpec jobSpec, String jobId, String requestId,
+      String contractAddr, BigInteger fee) {
     if (jobSpec == null) {
       log.warn("failed to find job spec, ID: " + jobId);
       return false;
@@ -243,7 +254,6 @@ public class JobRunner {
       log.warn("Trying to run archived job " + jobSpec.getId());
       return false;
     }
-    String contractAddr = eventMap.get("contractAddr").toString();
     if (!contractAddr.equals(jobSpec.getInitiators().get(0).getAddress())) {
       log.error("Contract address({}) in event do not match the log subscriber address({})",
               contractAddr, jobSpec.getInitiators().get(0).getAddress());
@@ -258,17 +268,13 @@ public class JobRunner {
 //    }
     minPayment = new BigInteger(nodeMinPayment);
 
-    BigInteger fee = new BigInteger(eventMap.get("payment").toString());
-
     if (fee.compareTo(new BigInteger("0")) > 0 && minPayment.compareTo(fee) > 0) {
       log.warn("rejecting job {} with payment {} below minimum threshold ({})", jobId, fee, minPayment);
       return false;
     }
 
-    String requestId = eventMap.get("requestId").toString();
     // repeated requestId check
-    String runId = jobRunsService.getByRequestId(requestId);
-    if (runId != null) {
+    if (requestIdIndex.isDuplicate(requestId)) {
       log.warn("event repeated request id {}", requestId);
       return false;
     }
@@ -299,7 +305,7 @@ public class JobRunner {
   }
 
 
-  public R getJobResultById(String jobId) {
+  public RunContext getJobResultById(String jobId) {
     return jobCache.getJobResultById(jobId);
   }
 }
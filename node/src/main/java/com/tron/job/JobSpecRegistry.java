@@ -0,0 +1,148 @@
+package com.tron.job;
+
+import com.tron.web.entity.Initiator;
+import com.tron.web.entity.JobSpec;
+import com.tron.web.entity.TaskSpec;
+import com.tron.web.service.JobSpecsService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory snapshot of the job specs with their initiators and task specs, so that resolving a
+ * spec on the job run path never touches the database.
+ *
+ * <p>The snapshot is loaded on first use and replaced as a whole whenever a job is created or
+ * deleted through the job api; readers always see a consistent snapshot without locking. The
+ * returned entities are shared and must not be modified.
+ */
+@Slf4j
+@Component
+public class JobSpecRegistry {
+
+  public interface Listener {
+    void onJobAdded(JobSpec jobSpec);
+
+    void onJobDeleted(JobSpec jobSpec);
+  }
+
+  @Autowired
+  private JobSpecsService jobSpecsService;
+
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private volatile Snapshot snapshot;
+
+  /** @return the job with its initiators and tasks, null if it does not exist */
+  public JobSpec getJob(String jobId) {
+    return snapshot().jobs.get(jobId);
+  }
+
+  public TaskSpec getTask(Long taskId) {
+    return snapshot().tasks.get(taskId);
+  }
+
+  /** @return the latest initiator of the address, same as the one of the initiators table */
+  public Initiator getInitiatorByAddress(String addr) {
+    return snapshot().initiators.get(addr);
+  }
+
+  /** @return the jobs which are not deleted */
+  public List<JobSpec> getActiveJobs() {
+    return snapshot().activeJobs;
+  }
+
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * re-read the job after it has been created or deleted, and notify the listeners. A job that
+   * does not exist is removed from the registry.
+   */
+  public void refresh(String jobId) {
+    JobSpec jobSpec;
+    synchronized (this) {
+      jobSpec = jobSpecsService.getById(jobId);
+      Map<String, JobSpec> jobs = new HashMap<>(snapshot().jobs);
+      if (jobSpec == null) {
+        // unknown job, nothing to notify
+        if (jobs.remove(jobId) != null) {
+          snapshot = new Snapshot(jobs.values());
+        }
+        return;
+      }
+      jobs.put(jobId, jobSpec);
+      snapshot = new Snapshot(jobs.values());
+    }
+    log.info("job spec {} refreshed, deleted: {}", jobId, jobSpec.archived());
+    for (Listener listener : listeners) {
+      try {
+        if (jobSpec.archived()) {
+          listener.onJobDeleted(jobSpec);
+        } else {
+          listener.onJobAdded(jobSpec);
+        }
+      } catch (Exception e) {
+        log.error("notify job spec change failed, job: {}, msg: {}", jobId, e.getMessage());
+      }
+    }
+  }
+
+  private Snapshot snapshot() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        current = snapshot;
+        if (current == null) {
+          current = load();
+          snapshot = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private Snapshot load() {
+    List<JobSpec> jobSpecs = jobSpecsService.getAllJob();
+    for (JobSpec jobSpec : jobSpecs) {
+      jobSpec.setInitiators(jobSpecsService.getInitiatorsByJobId(jobSpec.getId()));
+      jobSpec.setTaskSpecs(jobSpecsService.getTasksByJobId(jobSpec.getId()));
+    }
+    log.info("loaded {} job specs", jobSpecs.size());
+    return new Snapshot(jobSpecs);
+  }
+
+  private static class Snapshot {
+    private final Map<String, JobSpec> jobs = new HashMap<>();
+    private final Map<Long, TaskSpec> tasks = new HashMap<>();
+    private final Map<String, Initiator> initiators = new HashMap<>();
+    private final List<JobSpec> activeJobs;
+
+    Snapshot(Collection<JobSpec> jobSpecs) {
+      List<JobSpec> active = new ArrayList<>();
+      for (JobSpec jobSpec : jobSpecs) {
+        jobs.put(jobSpec.getId(), jobSpec);
+        if (!jobSpec.archived()) {
+          active.add(jobSpec);
+        }
+        for (TaskSpec taskSpec : jobSpec.getTaskSpecs()) {
+          tasks.put(taskSpec.getId(), taskSpec);
+        }
+        for (Initiator initiator : jobSpec.getInitiators()) {
+          Initiator latest = initiators.get(initiator.getAddress());
+          if (latest == null || latest.getId() < initiator.getId()) {
+            initiators.put(initiator.getAddress(), initiator);
+          }
+        }
+      }
+      this.activeJobs = Collections.unmodifiableList(active);
+    }
+  }
+}
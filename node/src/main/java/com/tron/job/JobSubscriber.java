@@ -6,7 +6,6 @@ import com.tron.client.FluxAggregator;
 import com.tron.client.OracleClient;
 import com.tron.client.message.OracleRoundState;
 import com.tron.keystore.KeyStore;
-import com.tron.web.common.util.R;
 import com.tron.web.entity.Initiator;
 import com.tron.web.entity.JobSpec;
 import java.util.ArrayList;
@@ -52,7 +51,7 @@ public class JobSubscriber {
     }
 
     log.info("event: " + event);
-    jobRunner.addJobRun(com.tron.web.common.util.JsonUtil.obj2String(event));
+    jobRunner.addJobRun(event);
   }
 
   public static void receiveVrfRequest(VrfEventRequest event) {
@@ -71,7 +70,7 @@ public class JobSubscriber {
     }
 
     log.info("VRF event: " + event);
-    jobRunner.addJobRun(com.tron.web.common.util.JsonUtil.obj2String(event));
+    jobRunner.addJobRun(event);
   }
 
   public static void receiveNewRoundLog(String addr, String startBy, long roundId, long startAt) {
@@ -104,9 +103,9 @@ public class JobSubscriber {
   }
 
   public static Long getJobResultById(String jobId) {
-    R result = jobRunner.getJobResultById(jobId);
-    if (result.get("code").equals(0)) {
-      return (Long) result.get("result");
+    RunContext result = jobRunner.getJobResultById(jobId);
+    if (result.isOk()) {
+      return result.hasResult() ? result.getLongResult() : null;
     } else {
       return 0L;
     }
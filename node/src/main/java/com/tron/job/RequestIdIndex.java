@@ -0,0 +1,136 @@
+package com.tron.job;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.tron.web.service.JobRunsService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells whether a request id was handled already without a database round-trip in the common
+ * case.
+ *
+ * <p>Every known request id is put into a bloom filter, the recent ones are also kept in a
+ * bounded cache. A request id unknown to the bloom filter is new for sure; a recent one is a
+ * duplicate for sure; only the ids the bloom filter might contain but the cache has evicted are
+ * confirmed with the {@code job_runs} table. The bloom filter is filled at startup with the
+ * request ids of the last {@code node.requestIndex.warmUpDays} days, until then every lookup that
+ * misses the cache goes to the database.
+ */
+@Slf4j
+@Component
+public class RequestIdIndex implements MeterBinder {
+
+  private final JobRunsService jobRunsService;
+  private final int warmUpDays;
+  private final BloomFilter<CharSequence> bloomFilter;
+  private final Cache<String, Boolean> recentIds;
+  private volatile boolean warmedUp;
+
+  private final AtomicLong absent = new AtomicLong();
+  private final AtomicLong recentHits = new AtomicLong();
+  private final AtomicLong dbHits = new AtomicLong();
+  private final AtomicLong falsePositives = new AtomicLong();
+
+  @Autowired
+  public RequestIdIndex(JobRunsService jobRunsService,
+      @Value("${node.requestIndex.expectedInsertions:#{10000000}}") long expectedInsertions,
+      @Value("${node.requestIndex.fpp:#{0.001}}") double fpp,
+      @Value("${node.requestIndex.recentSize:#{100000}}") long recentSize,
+      @Value("${node.requestIndex.warmUpDays:#{30}}") int warmUpDays) {
+    this.jobRunsService = jobRunsService;
+    this.warmUpDays = warmUpDays;
+    this.bloomFilter = BloomFilter.create(
+        Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, fpp);
+    this.recentIds = CacheBuilder.newBuilder()
+        .maximumSize(recentSize)
+        .expireAfterWrite(12, TimeUnit.HOURS)
+        .build();
+  }
+
+  @PostConstruct
+  public void init() {
+    Thread warmUp = new Thread(this::warmUp, "RequestIdWarmUp");
+    warmUp.setDaemon(true);
+    warmUp.start();
+  }
+
+  public void warmUp() {
+    long start = System.currentTimeMillis();
+    Date since = new Date(start - TimeUnit.DAYS.toMillis(warmUpDays));
+    AtomicLong count = new AtomicLong();
+    try {
+      jobRunsService.scanRequestIds(since, context -> {
+        bloomFilter.put(context.getResultObject());
+        count.incrementAndGet();
+      });
+      warmedUp = true;
+      log.info("request id index warmed up with {} ids in {}ms", count.get(),
+          System.currentTimeMillis() - start);
+    } catch (Exception e) {
+      log.error("warm up request id index failed, keep checking the db, msg: {}",
+          e.getMessage());
+    }
+  }
+
+  /** @return true if a job run of the request exists or the request was marked */
+  public boolean isDuplicate(String requestId) {
+    if (warmedUp && !bloomFilter.mightContain(requestId)) {
+      absent.incrementAndGet();
+      return false;
+    }
+    if (recentIds.getIfPresent(requestId) != null) {
+      recentHits.incrementAndGet();
+      return true;
+    }
+    if (!Strings.isNullOrEmpty(jobRunsService.getByRequestId(requestId))) {
+      dbHits.incrementAndGet();
+      recentIds.put(requestId, Boolean.TRUE);
+      return true;
+    }
+    if (warmedUp) {
+      falsePositives.incrementAndGet();
+    } else {
+      absent.incrementAndGet();
+    }
+    return false;
+  }
+
+  /** mark the request as handled. */
+  public void add(String requestId) {
+    bloomFilter.put(requestId);
+    recentIds.put(requestId, Boolean.TRUE);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    lookupCounter(registry, "absent", absent);
+    lookupCounter(registry, "recent", recentHits);
+    lookupCounter(registry, "db", dbHits);
+    lookupCounter(registry, "false_positive", falsePositives);
+    Gauge.builder("request.index.size", bloomFilter, BloomFilter::approximateElementCount)
+        .description("approximate number of request ids in the bloom filter")
+        .register(registry);
+  }
+
+  private void lookupCounter(MeterRegistry registry, String result, AtomicLong value) {
+    FunctionCounter.builder("request.index.lookups", value, AtomicLong::get)
+        .tag("result", result)
+        .description("request id duplicate checks by the way they were answered")
+        .register(registry);
+  }
+}
@@ -0,0 +1,135 @@
+package com.tron.job;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The last {@code capacity} values of a job, with their running sum and sorted order.
+ *
+ * <p>Every add builds a new immutable state from the current one and swaps it in with a CAS, so
+ * the result runs and the refresh threads may add concurrently while readers take the average and
+ * the median of a consistent window in O(1), without locking. A window is a handful of longs, the
+ * copy costs less than a lock. Values older than {@code maxAge} ms are dropped on the next add.
+ */
+public class RollingWindow {
+
+  private final int capacity;
+  private final long maxAge;
+  private final AtomicReference<State> state;
+
+  public RollingWindow(int capacity, long maxAge) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.maxAge = maxAge;
+    this.state = new AtomicReference<>(State.EMPTY);
+  }
+
+  public void add(long value) {
+    long now = System.currentTimeMillis();
+    State current;
+    State next;
+    do {
+      current = state.get();
+      next = (current.expired(now, maxAge) ? State.EMPTY : current).with(value, capacity, now);
+    } while (!state.compareAndSet(current, next));
+  }
+
+  /** @return the rounded average, null if the window is empty */
+  public Long average() {
+    State current = current();
+    if (current.size == 0) {
+      return null;
+    }
+    return Math.round((double) current.sum / current.size);
+  }
+
+  /** @return the median, the rounded mean of the two middle values for an even size */
+  public Long median() {
+    State current = current();
+    if (current.size == 0) {
+      return null;
+    }
+    int middle = current.size / 2;
+    if (current.size % 2 == 1) {
+      return current.sorted[middle];
+    }
+    return Math.round((current.sorted[middle - 1] + (double) current.sorted[middle]) / 2);
+  }
+
+  /** @return the values from the oldest to the newest */
+  public long[] values() {
+    State current = current();
+    long[] values = new long[current.size];
+    for (int i = 0; i < current.size; i++) {
+      values[i] = current.ring[(current.head + i) % current.ring.length];
+    }
+    return values;
+  }
+
+  public int size() {
+    return current().size;
+  }
+
+  private State current() {
+    State current = state.get();
+    return current.expired(System.currentTimeMillis(), maxAge) ? State.EMPTY : current;
+  }
+
+  private static class State {
+    private static final State EMPTY = new State(new long[0], 0, 0, 0, new long[0], 0);
+
+    private final long[] ring;
+    private final int head;
+    private final int size;
+    private final long sum;
+    private final long[] sorted;
+    private final long updatedAt;
+
+    State(long[] ring, int head, int size, long sum, long[] sorted, long updatedAt) {
+      this.ring = ring;
+      this.head = head;
+      this.size = size;
+      this.sum = sum;
+      this.sorted = sorted;
+      this.updatedAt = updatedAt;
+    }
+
+    boolean expired(long now, long maxAge) {
+      return size > 0 && now - updatedAt > maxAge;
+    }
+
+    State with(long value, int capacity, long now) {
+      long[] nextRing = ring.length == capacity ? ring.clone() : Arrays.copyOf(ring, capacity);
+      if (size < capacity) {
+        nextRing[(head + size) % capacity] = value;
+        return new State(nextRing, head, size + 1, sum + value, insert(sorted, value), now);
+      }
+      long evicted = nextRing[head];
+      nextRing[head] = value;
+      return new State(nextRing, (head + 1) % capacity, size, sum - evicted + value,
+          replace(sorted, evicted, value), now);
+    }
+
+    private static long[] insert(long[] sorted, long value) {
+      int index = Arrays.binarySearch(sorted, value);
+      if (index < 0) {
+        index = -index - 1;
+      }
+      long[] next = new long[sorted.length + 1];
+      System.arraycopy(sorted, 0, next, 0, index);
+      next[index] = value;
+      System.arraycopy(sorted, index, next, index + 1, sorted.length - index);
+      return next;
+    }
+
+    private static long[] replace(long[] sorted, long evicted, long value) {
+      int index = Arrays.binarySearch(sorted, evicted);
+      long[] next = new long[sorted.length - 1];
+      System.arraycopy(sorted, 0, next, 0, index);
+      System.arraycopy(sorted, index + 1, next, index, sorted.length - index - 1);
+      return insert(next, value);
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.tron.job;
+
+import com.tron.client.EventRequest;
+import com.tron.client.RoundEventRequest;
+import com.tron.client.VrfEventRequest;
+import com.tron.web.entity.TronTx;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The state passed from one task of a job run to the next.
+ *
+ * <p>The event that started the run is kept as the parsed request object, and the result of the
+ * previous task is kept in a primitive slot of its type, so the adapters neither parse the event
+ * params again nor box and cast the result. A context belongs to one job run and is only used by
+ * the thread executing it.
+ */
+public class RunContext {
+
+  public enum ResultType {
+    NONE, LONG, DOUBLE, STRING
+  }
+
+  @Getter
+  private final String jobRunId;
+  @Getter
+  private String taskRunId = "";
+  private final Object event;
+
+  @Getter
+  private ResultType resultType = ResultType.NONE;
+  private long longResult;
+  private double doubleResult;
+  private String stringResult;
+  /** the results of the concurrent tasks of the previous level, for the combine task. */
+  private double[] inputs;
+
+  @Getter
+  private int code;
+  @Getter
+  private String msg = "success";
+  /** the transaction sent by the current task, if any. */
+  @Getter
+  @Setter
+  private TronTx tx;
+
+  /**
+   * @param event the {@link EventRequest}, {@link VrfEventRequest} or {@link RoundEventRequest}
+   *     of the run, null when the job is run without an event
+   */
+  public RunContext(String jobRunId, Object event) {
+    this.jobRunId = jobRunId;
+    this.event = event;
+  }
+
+  /** @return a context for one of the concurrent tasks of a level, starting from this result */
+  public RunContext fork() {
+    RunContext child = new RunContext(jobRunId, event);
+    child.resultType = resultType;
+    child.longResult = longResult;
+    child.doubleResult = doubleResult;
+    child.stringResult = stringResult;
+    return child;
+  }
+
+  /** prepare the context for the next task. */
+  public void startTask(String taskRunId) {
+    this.taskRunId = taskRunId;
+    this.tx = null;
+  }
+
+  public EventRequest getEventRequest() {
+    return event(EventRequest.class);
+  }
+
+  public VrfEventRequest getVrfEventRequest() {
+    return event(VrfEventRequest.class);
+  }
+
+  public RoundEventRequest getRoundEventRequest() {
+    return event(RoundEventRequest.class);
+  }
+
+  public boolean isOk() {
+    return code == 0;
+  }
+
+  public void fail(String msg) {
+    this.code = 1;
+    this.msg = msg;
+  }
+
+  public boolean hasResult() {
+    return resultType != ResultType.NONE;
+  }
+
+  public void setResult(long value) {
+    resultType = ResultType.LONG;
+    longResult = value;
+    stringResult = null;
+    inputs = null;
+  }
+
+  public void setResult(double value) {
+    resultType = ResultType.DOUBLE;
+    doubleResult = value;
+    stringResult = null;
+    inputs = null;
+  }
+
+  public void setResult(String value) {
+    resultType = ResultType.STRING;
+    stringResult = value;
+    inputs = null;
+  }
+
+  public void clearResult() {
+    resultType = ResultType.NONE;
+    stringResult = null;
+    inputs = null;
+  }
+
+  /** @return the results of the previous level, null if it had a single task */
+  public double[] getInputs() {
+    return inputs;
+  }
+
+  public void setInputs(double[] inputs) {
+    this.inputs = inputs;
+  }
+
+  public long getLongResult() {
+    checkResultType(ResultType.LONG);
+    return longResult;
+  }
+
+  public double getDoubleResult() {
+    checkResultType(ResultType.DOUBLE);
+    return doubleResult;
+  }
+
+  /** @return the long or decimal result as a decimal */
+  public double getNumericResult() {
+    if (resultType == ResultType.LONG) {
+      return longResult;
+    }
+    checkResultType(ResultType.DOUBLE);
+    return doubleResult;
+  }
+
+  public String getStringResult() {
+    checkResultType(ResultType.STRING);
+    return stringResult;
+  }
+
+  /** @return the result as it is stored in the task run, "null" if there is none */
+  public String resultToString() {
+    switch (resultType) {
+      case LONG:
+        return String.valueOf(longResult);
+      case DOUBLE:
+        return String.valueOf(doubleResult);
+      case STRING:
+        return stringResult;
+      default:
+        return "null";
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RunContext{jobRunId=" + jobRunId + ", taskRunId=" + taskRunId + ", code=" + code
+        + ", msg=" + msg + ", result=" + resultToString() + "}";
+  }
+
+  private void checkResultType(ResultType expected) {
+    if (resultType != expected) {
+      throw new IllegalStateException("result is " + resultType + ", expected " + expected);
+    }
+  }
+
+  private <T> T event(Class<T> type) {
+    if (!type.isInstance(event)) {
+      throw new IllegalStateException("run is not started by a " + type.getSimpleName());
+    }
+    return type.cast(event);
+  }
+}
@@ -0,0 +1,93 @@
+package com.tron.job;
+
+import com.tron.common.Config;
+import com.tron.common.util.ThreadUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the tasks of one level of a {@link JobPipeline}.
+ *
+ * <p>A single task runs on the calling thread with the run context. Several tasks run
+ * concurrently, each on a fork of the context, so the level takes as long as its slowest task.
+ * Their results are then left in the context as the inputs of the combine task of the next level.
+ * The level fails if half of its tasks or more fail.
+ */
+@Slf4j
+@Component
+public class TaskLevelExecutor {
+
+  private final ExecutorService executor;
+
+  public TaskLevelExecutor(@Value("${node.jobRun.taskThreads:#{32}}") int taskThreads) {
+    executor = Executors.newFixedThreadPool(taskThreads,
+        ThreadUtil.newThreadFactory("job-task-", Config.isVirtualThreads()));
+  }
+
+  /**
+   * @param runner runs one stage with the given context, marking the context failed on error
+   */
+  public void run(List<JobPipeline.Stage> level, RunContext context,
+      BiConsumer<JobPipeline.Stage, RunContext> runner) {
+    if (level.size() == 1) {
+      runner.accept(level.get(0), context);
+      return;
+    }
+
+    List<RunContext> forks = new ArrayList<>(level.size());
+    List<CompletableFuture<Void>> futures = new ArrayList<>(level.size());
+    for (JobPipeline.Stage stage : level) {
+      RunContext fork = context.fork();
+      forks.add(fork);
+      futures.add(CompletableFuture.runAsync(() -> runner.accept(stage, fork), executor));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(ex -> null)
+        .join();
+
+    double[] inputs = new double[forks.size()];
+    int count = 0;
+    String failure = null;
+    for (int i = 0; i < forks.size(); i++) {
+      RunContext fork = forks.get(i);
+      if (futures.get(i).isCompletedExceptionally()) {
+        failure = failure != null ? failure : level.get(i).getTaskSpec().getType() + " failed";
+        continue;
+      }
+      if (!fork.isOk()) {
+        failure = failure != null ? failure : fork.getMsg();
+        continue;
+      }
+      try {
+        inputs[count] = fork.getNumericResult();
+        count++;
+      } catch (IllegalStateException e) {
+        failure = failure != null ? failure : level.get(i).getTaskSpec().getType()
+            + " result is not a number";
+      }
+    }
+    if (count * 2 <= forks.size()) {
+      context.fail(failure != null ? failure : "too many tasks failed");
+      return;
+    }
+    if (failure != null) {
+      log.warn("{} of {} tasks failed, job run: {}, msg: {}", forks.size() - count, forks.size(),
+          context.getJobRunId(), failure);
+    }
+    double[] values = new double[count];
+    System.arraycopy(inputs, 0, values, 0, count);
+    context.setInputs(values);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
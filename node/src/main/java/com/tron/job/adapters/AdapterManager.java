@@ -2,8 +2,12 @@ package com.tron.job.adapters;
 
 import com.tron.common.Constant;
 import com.tron.web.common.util.JsonUtil;
+import com.tron.web.entity.AggregateSource;
 import com.tron.web.entity.TaskParams;
 import com.tron.web.entity.TaskSpec;
+import com.tron.web.entity.TaskSpecRequest;
+import java.util.ArrayList;
+import java.util.List;
 
 public class AdapterManager {
 
@@ -54,10 +58,43 @@ public class AdapterManager {
       case Constant.TASK_TYPE_RANDOM:
         adapter = new RandomAdapter(params.getPublicKey());
         break;
+      case Constant.TASK_TYPE_MEDIAN:
+      case Constant.TASK_TYPE_MEAN:
+        adapter = new CombineAdapter(taskSpec.getType());
+        break;
+      case Constant.TASK_TYPE_AGGREGATE:
+        adapter = newAggregateAdapter(taskSpec, params);
+        break;
       default:
         break;
     }
 
     return adapter;
   }
+
+  private static AggregateAdapter newAggregateAdapter(TaskSpec taskSpec, TaskParams params) {
+    List<AggregateAdapter.Source> sources = new ArrayList<>();
+    if (params != null && params.getSources() != null) {
+      for (int i = 0; i < params.getSources().size(); i++) {
+        AggregateSource source = params.getSources().get(i);
+        List<BaseAdapter> tasks = new ArrayList<>();
+        if (source.getTasks() != null) {
+          for (TaskSpecRequest task : source.getTasks()) {
+            TaskSpec sourceTask = new TaskSpec();
+            sourceTask.setType(task.getType() == null ? null : task.getType().toLowerCase());
+            sourceTask.setParams(JsonUtil.obj2String(task.getParams()));
+            tasks.add(getAdapter(sourceTask));
+          }
+        }
+        String name = source.getName() != null ? source.getName() : "source" + i;
+        sources.add(new AggregateAdapter.Source(name, tasks, taskSpec.getJobSpecID(),
+            taskSpec.getId()));
+      }
+    }
+    if (params == null) {
+      return new AggregateAdapter(sources, null, null, null, null);
+    }
+    return new AggregateAdapter(sources, params.getQuorum(), params.getTimeout(),
+        params.getMethod(), params.getTrim());
+  }
 }
@@ -0,0 +1,244 @@
+package com.tron.job.adapters;
+
+import com.google.common.base.Strings;
+import com.tron.common.Config;
+import com.tron.common.Constant;
+import com.tron.common.util.ThreadUtil;
+import com.tron.job.RunContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fetches the same price from several sources concurrently and merges them into their median or
+ * trimmed mean, so one slow or wrong exchange api neither delays nor moves the result.
+ *
+ * <p>A source is a short chain of tasks run on a fork of the context, e.g. an httpget, or an
+ * httpget followed by a converttrx. The result is computed as soon as {@code quorum} sources
+ * answered, the others are cancelled; sources which have not answered within {@code timeout} ms
+ * are left behind and the task fails if fewer than {@code quorum} sources answered. The sources
+ * run on a pool of {@code node.aggregate.threads} threads shared by the jobs.
+ */
+@Slf4j
+public class AggregateAdapter extends BaseAdapter {
+
+  /** tasks which may be chained in a source */
+  public static final List<String> SOURCE_TASK_TYPES = Arrays.asList(
+      Constant.TASK_TYPE_HTTP_GET, Constant.TASK_TYPE_JUST_SWAP, Constant.TASK_TYPE_CONVERT_TRX,
+      Constant.TASK_TYPE_MULTIPLY, Constant.TASK_TYPE_RECIPROCAL, Constant.TASK_TYPE_CONVERT_USD,
+      Constant.TASK_TYPE_TRX_TO_USDT);
+
+  public static final long DEFAULT_TIMEOUT = 5000L;
+  public static final double DEFAULT_TRIM = 0.2;
+
+  @Getter
+  private final List<Source> sources;
+  @Getter
+  private final int quorum;
+  @Getter
+  private final long timeout;
+  @Getter
+  private final String method;
+  @Getter
+  private final double trim;
+
+  /**
+   * @param quorum null for a majority of the sources
+   * @param timeout ms, null for {@link #DEFAULT_TIMEOUT}
+   * @param method null for the median
+   * @param trim share of the values dropped at each end by the trimmed mean, null for
+   *     {@link #DEFAULT_TRIM}
+   */
+  public AggregateAdapter(List<Source> sources, Integer quorum, Long timeout, String method,
+      Double trim) {
+    this.sources = sources;
+    this.quorum = quorum != null ? quorum : sources.size() / 2 + 1;
+    this.timeout = timeout != null ? timeout : DEFAULT_TIMEOUT;
+    this.method = method != null ? method.toLowerCase() : Constant.AGGREGATE_METHOD_MEDIAN;
+    this.trim = trim != null ? trim : DEFAULT_TRIM;
+  }
+
+  @Override
+  public String taskType() {
+    return Constant.TASK_TYPE_AGGREGATE;
+  }
+
+  @Override
+  public void perform(RunContext context) {
+    int size = sources.size();
+    Double[] answers = new Double[size];
+    AtomicInteger answered = new AtomicInteger();
+    AtomicInteger finished = new AtomicInteger();
+    CompletableFuture<Void> quorumReached = new CompletableFuture<>();
+    List<Future<?>> tasks = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      int index = i;
+      Source source = sources.get(i);
+      RunContext fork = context.fork();
+      tasks.add(SourceExecutor.INSTANCE.submit(() -> {
+        Double value = source.fetch(fork);
+        synchronized (answers) {
+          answers[index] = value;
+        }
+        boolean enough = value != null && answered.incrementAndGet() >= quorum;
+        // done once the quorum answered, or once every source finished without reaching it
+        if (finished.incrementAndGet() == size || enough) {
+          quorumReached.complete(null);
+        }
+      }));
+    }
+    boolean timedOut = false;
+    try {
+      quorumReached.get(timeout, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      timedOut = true;
+    } catch (ExecutionException e) {
+      // never completed exceptionally
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    double[] values = new double[size];
+    int count = 0;
+    synchronized (answers) {
+      for (int i = 0; i < size; i++) {
+        if (answers[i] != null) {
+          values[count++] = answers[i];
+        }
+      }
+    }
+    // the sources still running are not waited for, the http client timeout closes their sockets
+    for (int i = 0; i < size; i++) {
+      if (tasks.get(i).isDone()) {
+        continue;
+      }
+      tasks.get(i).cancel(true);
+      if (timedOut) {
+        sources.get(i).meters().timeouts.increment();
+        log.warn("aggregate source {} timed out after {} ms", sources.get(i).getName(), timeout);
+      }
+    }
+
+    if (count < quorum) {
+      context.fail(String.format("aggregate failed, %d of %d sources answered, quorum: %d",
+          count, size, quorum));
+      log.error("aggregate failed, {} of {} sources answered, quorum: {}", count, size, quorum);
+      return;
+    }
+    values = Arrays.copyOf(values, count);
+    context.setResult(Constant.AGGREGATE_METHOD_TRIMMED_MEAN.equals(method)
+        ? trimmedMean(values, trim) : CombineAdapter.median(values));
+  }
+
+  static double trimmedMean(double[] values, double trim) {
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    int cut = (int) (sorted.length * trim);
+    if (sorted.length - 2 * cut < 1) {
+      cut = (sorted.length - 1) / 2;
+    }
+    return CombineAdapter.mean(Arrays.copyOfRange(sorted, cut, sorted.length - cut));
+  }
+
+  public static class Source {
+    @Getter
+    private final String name;
+    @Getter
+    private final List<BaseAdapter> tasks;
+    private final String jobId;
+    private final Long taskId;
+    private volatile Meters meters;
+
+    /**
+     * @param jobId the job and task of the aggregate, they tag the meters of the source with
+     *     its name, so the default names of the sources of different tasks do not share them
+     */
+    public Source(String name, List<BaseAdapter> tasks, String jobId, Long taskId) {
+      this.name = name;
+      this.tasks = tasks;
+      this.jobId = jobId;
+      this.taskId = taskId;
+    }
+
+    /** @return the price, null if one of the tasks failed */
+    Double fetch(RunContext context) {
+      long start = System.nanoTime();
+      try {
+        for (BaseAdapter task : tasks) {
+          task.perform(context);
+          if (!context.isOk()) {
+            meters().failures.increment();
+            log.warn("aggregate source {} failed, msg: {}", name, context.getMsg());
+            return null;
+          }
+        }
+        return context.getNumericResult();
+      } catch (Exception e) {
+        meters().failures.increment();
+        log.warn("aggregate source {} failed, msg: {}", name, e.getMessage());
+        return null;
+      } finally {
+        meters().latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    // registered on the first run, the adapters built to validate a job spec have none
+    private Meters meters() {
+      Meters current = meters;
+      if (current == null) {
+        synchronized (this) {
+          current = meters;
+          if (current == null) {
+            current = new Meters(Tags.of("job", Strings.nullToEmpty(jobId),
+                "task", taskId == null ? "" : taskId.toString(), "source", name));
+            meters = current;
+          }
+        }
+      }
+      return current;
+    }
+  }
+
+  private static class Meters {
+    private final Timer latency;
+    private final Counter failures;
+    private final Counter timeouts;
+
+    Meters(Tags tags) {
+      latency = Timer.builder("job.aggregate.source.latency")
+          .description("time taken by an aggregate source to answer")
+          .tags(tags)
+          .register(Metrics.globalRegistry);
+      failures = errorCounter(tags, "failed");
+      timeouts = errorCounter(tags, "timeout");
+    }
+
+    private static Counter errorCounter(Tags tags, String reason) {
+      return Counter.builder("job.aggregate.source.errors")
+          .description("aggregate sources which failed or did not answer in time")
+          .tags(tags.and("reason", reason))
+          .register(Metrics.globalRegistry);
+    }
+  }
+
+  // created on first use, after the node config is loaded
+  private static class SourceExecutor {
+    private static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+        Config.getAggregateThreads(),
+        ThreadUtil.newThreadFactory("aggregate-source-", Config.isVirtualThreads()));
+  }
+}
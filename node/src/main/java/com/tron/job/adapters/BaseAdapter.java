@@ -1,9 +1,13 @@
 package com.tron.job.adapters;
 
-import com.tron.web.common.util.R;
+import com.tron.job.RunContext;
 
 public abstract class BaseAdapter {
   abstract public String taskType();
 
-  abstract public R perform(R input);
+  /**
+   * Read the result of the previous task from the context and put the own result into it, or mark
+   * the context failed and keep the previous result.
+   */
+  abstract public void perform(RunContext context);
 }
@@ -1,7 +1,7 @@
 package com.tron.job.adapters;
 
 import com.tron.common.Constant;
-import com.tron.web.common.util.R;
+import com.tron.job.RunContext;
 
 public class CacheAdapter extends BaseAdapter {
   @Override
@@ -10,7 +10,7 @@ public class CacheAdapter extends BaseAdapter {
   }
 
   @Override
-  public R perform(R input) {
-    return new R();
+  public void perform(RunContext context) {
+    context.clearResult();
   }
 }
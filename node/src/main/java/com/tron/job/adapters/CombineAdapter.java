@@ -0,0 +1,57 @@
+package com.tron.job.adapters;
+
+import com.tron.common.Constant;
+import com.tron.job.RunContext;
+import java.util.Arrays;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Merges the results of the tasks of the previous level into their median or mean. After a
+ * single task it passes its result on as a decimal.
+ */
+@Slf4j
+public class CombineAdapter extends BaseAdapter {
+
+  private final String type;
+
+  public CombineAdapter(String type) {
+    this.type = type;
+  }
+
+  @Override
+  public String taskType() {
+    return type;
+  }
+
+  @Override
+  public void perform(RunContext context) {
+    try {
+      double[] values = context.getInputs();
+      if (values == null) {
+        values = new double[] {context.getNumericResult()};
+      }
+      context.setResult(Constant.TASK_TYPE_MEAN.equals(type) ? mean(values) : median(values));
+    } catch (Exception e) {
+      context.fail(type + " failed");
+      log.warn("{} failed, error msg: {}", type, e.getMessage());
+    }
+  }
+
+  static double median(double[] values) {
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    int middle = sorted.length / 2;
+    if (sorted.length % 2 == 1) {
+      return sorted[middle];
+    }
+    return (sorted[middle - 1] + sorted[middle]) / 2;
+  }
+
+  static double mean(double[] values) {
+    double sum = 0;
+    for (double value : values) {
+      sum += value;
+    }
+    return sum / values.length;
+  }
+}
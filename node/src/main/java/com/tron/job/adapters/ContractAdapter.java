@@ -16,6 +16,9 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpResponse;
 import org.apache.http.util.EntityUtils;
@@ -47,6 +50,25 @@ public class ContractAdapter {
       response = HttpUtil.post("https", TRONGRID_HOST, GET_ACCOUNT, params);
       log.info("Get TRX balance - Request {} | Params {} | Response {}", "https://" + TRONGRID_HOST + GET_ACCOUNT, params, response);
     }
+    return parseBalance(response);
+  }
+
+  public static CompletableFuture<Long> getTRXBalanceAsync(String addr) {
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("address", addr);
+    params.put("visible", true);
+    return HttpUtil.postAsync("https", TRONGRID_HOST, GET_ACCOUNT, params)
+        .thenApply(response -> {
+          log.info("Get TRX balance - Request {} | Params {} | Response {}", "https://" + TRONGRID_HOST + GET_ACCOUNT, params, response);
+          try {
+            return parseBalance(response);
+          } catch (IOException e) {
+            throw new CompletionException(e);
+          }
+        });
+  }
+
+  private static long parseBalance(String response) throws IOException {
     ObjectMapper mapper = new ObjectMapper();
     assert response != null;
     Map<String, Object> result = mapper.readValue(response, Map.class);
@@ -68,15 +90,35 @@ public class ContractAdapter {
     if (!visible) {
       throw new UnsupportedOperationException("not supported yet");
     }
+    String response = HttpUtil.post(
+            "https", TRONGRID_HOST, TRIGGET_CONSTANT, balanceOfParams(ownerAddress, contractAddress));
+    return parseConstantResult(response);
+  }
+
+  public static CompletableFuture<BigInteger> balanceOfAsync(String ownerAddress, String contractAddress) {
+    return HttpUtil.postAsync(
+            "https", TRONGRID_HOST, TRIGGET_CONSTANT, balanceOfParams(ownerAddress, contractAddress))
+        .thenApply(response -> {
+          try {
+            return parseConstantResult(response);
+          } catch (IOException e) {
+            throw new CompletionException(e);
+          }
+        });
+  }
+
+  private static Map<String, Object> balanceOfParams(String ownerAddress, String contractAddress) {
     String param = AbiUtil.parseParameters(BALANCE_OF, Arrays.asList(ownerAddress));
     Map<String, Object> params = Maps.newHashMap();
     params.put("owner_address", ownerAddress);
     params.put("contract_address", contractAddress);
     params.put("function_selector", BALANCE_OF);
     params.put("parameter", param);
-    params.put("visible", visible);
-    String response = HttpUtil.post(
-            "https", TRONGRID_HOST, TRIGGET_CONSTANT, params);
+    params.put("visible", true);
+    return params;
+  }
+
+  private static BigInteger parseConstantResult(String response) throws IOException {
     ObjectMapper mapper = new ObjectMapper();
     assert response != null;
     Map<String, Object> result = mapper.readValue(response, Map.class);
@@ -96,25 +138,32 @@ public class ContractAdapter {
     if (!visible) {
       throw new UnsupportedOperationException("not supported yet");
     }
+    String response = HttpUtil.post(
+            "https", TRONGRID_HOST, TRIGGET_CONSTANT, decimalParams(contractAddress));
+    return parseConstantResult(response).intValue();
+  }
+
+  public static CompletableFuture<Integer> getDecimalAsync(String contractAddress) {
+    return HttpUtil.postAsync(
+            "https", TRONGRID_HOST, TRIGGET_CONSTANT, decimalParams(contractAddress))
+        .thenApply(response -> {
+          try {
+            return parseConstantResult(response).intValue();
+          } catch (IOException e) {
+            throw new CompletionException(e);
+          }
+        });
+  }
+
+  private static Map<String, Object> decimalParams(String contractAddress) {
     String param = AbiUtil.parseParameters(DECIMAL, "");
     Map<String, Object> params = Maps.newHashMap();
     params.put("owner_address", READONLY_ACCOUNT);
     params.put("contract_address", contractAddress);
     params.put("function_selector", DECIMAL);
     params.put("parameter", param);
-    params.put("visible", visible);
-    String response = HttpUtil.post(
-            "https", TRONGRID_HOST, TRIGGET_CONSTANT, params);
-    ObjectMapper mapper = new ObjectMapper();
-    assert response != null;
-    Map<String, Object> result = mapper.readValue(response, Map.class);
-    return Optional.ofNullable((List<String>)result.get("constant_result"))
-            .map(constantResult -> constantResult.get(0))
-            .map(Hex::decode)
-            .map(Hex::toHexString)
-            .map(str -> new BigInteger(str, 16))
-            .map(BigInteger::intValue)
-            .orElse(0);
+    params.put("visible", true);
+    return params;
   }
 
   // todo 1. rename  2. check handle exception when blance is 0
@@ -124,22 +173,43 @@ public class ContractAdapter {
   }
 
   public static double getTradePriceWithTRX(String poolAddr, String trc20Addr) throws Exception {
+    try {
+      return getTradePriceWithTRXAsync(poolAddr, trc20Addr).get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw cause instanceof Exception ? (Exception) cause : e;
+    }
+  }
+
+  /**
+   * The trx balance, the trc20 decimals and the trc20 balance of the pool are independent, so
+   * they are requested concurrently and the price is computed once all of them are back.
+   */
+  public static CompletableFuture<Double> getTradePriceWithTRXAsync(String poolAddr, String trc20Addr) {
     // 1. get trx balance
-    BigDecimal trxBalance = new BigDecimal(getTRXBalance(poolAddr));
-    trxBalance = trxBalance.divide(new BigDecimal(TRX_DECIMAL_STR), 4, RoundingMode.HALF_UP);
-    log.info("trxBalance: {}", trxBalance);
+    CompletableFuture<BigDecimal> trxBalanceFuture = getTRXBalanceAsync(poolAddr)
+        .thenApply(balance -> {
+          BigDecimal trxBalance = new BigDecimal(balance)
+              .divide(new BigDecimal(TRX_DECIMAL_STR), 4, RoundingMode.HALF_UP);
+          log.info("trxBalance: {}", trxBalance);
+          return trxBalance;
+        });
     // 2. get trc20 decimal
-    int decimals = getDecimal(trc20Addr);
-    StringBuilder strDecimals = new StringBuilder("1");
-    while (--decimals >= 0) {
-      strDecimals.append("0");
-    }
+    CompletableFuture<Integer> decimalsFuture = getDecimalAsync(trc20Addr);
     // 3. get trc20 balance
-    BigDecimal trc20balance = new BigDecimal(balanceOf(poolAddr, trc20Addr));
-    trc20balance = trc20balance.divide(new BigDecimal(strDecimals.toString()), 4, RoundingMode.HALF_UP);
-    log.info("trxBalance: {}", trc20balance);
-
-    return trxBalance.divide(trc20balance, 8, RoundingMode.HALF_UP).doubleValue();
+    CompletableFuture<BigInteger> trc20BalanceFuture = balanceOfAsync(poolAddr, trc20Addr);
+
+    CompletableFuture<BigDecimal> trc20BalanceWithDecimals = decimalsFuture.thenCombine(
+        trc20BalanceFuture, (decimals, balance) -> {
+          BigDecimal trc20balance = new BigDecimal(balance)
+              .divide(BigDecimal.TEN.pow(decimals), 4, RoundingMode.HALF_UP);
+          log.info("trc20Balance: {}", trc20balance);
+          return trc20balance;
+        });
+
+    return trxBalanceFuture.thenCombine(trc20BalanceWithDecimals,
+        (trxBalance, trc20balance) ->
+            trxBalance.divide(trc20balance, 8, RoundingMode.HALF_UP).doubleValue());
   }
 
   public enum TradePair {
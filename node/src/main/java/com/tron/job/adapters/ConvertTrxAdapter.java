@@ -1,11 +1,11 @@
 package com.tron.job.adapters;
 
 import com.google.common.base.Strings;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
 import com.tron.common.Constant;
 import com.tron.common.util.HttpUtil;
-import com.tron.web.common.util.R;
+import com.tron.common.util.JsonPath;
+import com.tron.common.util.PriceCache;
+import com.tron.job.RunContext;
 import java.io.IOException;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -20,10 +20,12 @@ public class ConvertTrxAdapter extends BaseAdapter {
   private String url;
   @Getter
   private String path;
+  private final JsonPath jsonPath;
 
   public ConvertTrxAdapter(String urlStr, String pathStr) {
     url = urlStr;
     path = pathStr;
+    jsonPath = pathStr == null || pathStr.isEmpty() ? null : JsonPath.compile(pathStr);
   }
   @Override
   public String taskType() {
@@ -31,11 +33,10 @@ public class ConvertTrxAdapter extends BaseAdapter {
   }
 
   @Override
-  public R perform(R input) {
-    R result  = new R();
+  public void perform(RunContext context) {
     String response = null;
     try {
-      response = HttpUtil.requestWithRetry(url);
+      response = PriceCache.get(url, () -> HttpUtil.requestWithRetry(url));
     } catch (IOException e) {
       log.warn("request failed, err:" + e.getMessage());
     }
@@ -43,37 +44,22 @@ public class ConvertTrxAdapter extends BaseAdapter {
     if (!Strings.isNullOrEmpty(response)) {
       try {
         log.info("Convert TRX Request: {} | Response {}", url, response);
-        JsonElement data = JsonParser.parseString(response);
-
-        String[] paths = path.split("\\.");
-        for (String key : paths) {
-          if (data.isJsonArray()) {
-            data = data.getAsJsonArray().get(Integer.parseInt(key));
-          } else {
-            data = data.getAsJsonObject().get(key);
-          }
-        }
-        double value = data.getAsDouble();
+        double value = jsonPath.readDouble(response);
 
         if (Math.abs(value) < 0.000000001) {
-          result.replace("code", 1);
-          result.replace("msg", "convert TRX failed");
+          context.fail("convert TRX failed");
           log.warn("convert TRX failed, value : " + value + ", url : " + url);
         } else {
-          value = (double) input.get("result") / value;
-          result.put("result", value);
+          value = context.getDoubleResult() / value;
+          context.setResult(value);
         }
       } catch (Exception e) {
-        result.replace("code", 1);
-        result.replace("msg", "convert TRX failed");
+        context.fail("convert TRX failed");
         log.warn("parse response failed, url:" + url);
       }
     } else {
-      result.replace("code", 1);
-      result.replace("msg", "convert TRX failed");
+      context.fail("convert TRX failed");
       log.warn("request failed, url:" + url);
     }
-
-    return result;
   }
 }
\ No newline at end of file
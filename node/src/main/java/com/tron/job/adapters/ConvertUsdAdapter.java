@@ -2,11 +2,13 @@ package com.tron.job.adapters;
 
 import com.tron.common.Config;
 import com.tron.common.Constant;
+import com.tron.common.util.PriceCache;
 import com.tron.job.JobSubscriber;
-import com.tron.web.common.util.R;
+import com.tron.job.RunContext;
 
 import com.tron.web.entity.Initiator;
 import com.tron.web.mapper.InitiatorMapper;
+import java.io.IOException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -35,13 +37,14 @@ public class ConvertUsdAdapter extends BaseAdapter {
   }
 
   @Override
-  public R perform(R input) {
-    R result  = new R();
-    double value = usdtUsdRate();
-    value = (long)input.get("result") * value;
-    result.put("result", Math.round(value));
-
-    return result;
+  public void perform(RunContext context) {
+    Double rate = usdtUsdRate();
+    if (rate == null) {
+      context.fail("get USDT/USD rate failed");
+      return;
+    }
+    double value = context.getLongResult() * rate;
+    context.setResult(Math.round(value));
   }
 
   public Double usdtUsdRate() {
@@ -50,8 +53,16 @@ public class ConvertUsdAdapter extends BaseAdapter {
       log.warn("USDT/USD job doesn't exist");
       return 1.0;
     }
-    Long value = JobSubscriber.getJobResultById(initiator.getJobSpecID());
-    log.info("Get USDT/USD rate job id: {} | aggregator address: {} | result: {}", initiator.getJobSpecID(), initiator.getAddress(), value);
-    return value / 1000000.0;
+    try {
+      // shared by all the jobs converting to USD, instead of running the USDT/USD job for each
+      return PriceCache.get(Constant.TASK_TYPE_CONVERT_USD + ":" + initiator.getJobSpecID(), () -> {
+        Long value = JobSubscriber.getJobResultById(initiator.getJobSpecID());
+        log.info("Get USDT/USD rate job id: {} | aggregator address: {} | result: {}", initiator.getJobSpecID(), initiator.getAddress(), value);
+        return value == null || value == 0 ? null : value / 1000000.0;
+      });
+    } catch (IOException e) {
+      log.warn("get USDT/USD rate failed, msg: {}", e.getMessage());
+      return null;
+    }
   }
 }
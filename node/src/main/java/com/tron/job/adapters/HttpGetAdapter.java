@@ -3,12 +3,12 @@ package com.tron.job.adapters;
 import static com.tron.common.Constant.HTTP_MAX_RETRY_TIME;
 
 import com.google.common.base.Strings;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
 import com.google.gson.stream.MalformedJsonException;
 import com.tron.common.Constant;
 import com.tron.common.util.HttpUtil;
-import com.tron.web.common.util.R;
+import com.tron.common.util.JsonPath;
+import com.tron.common.util.PriceCache;
+import com.tron.job.RunContext;
 import java.io.IOException;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -24,10 +24,12 @@ public class HttpGetAdapter extends BaseAdapter {
   private String url;
   @Getter
   private String path;
+  private final JsonPath jsonPath;
 
   public HttpGetAdapter(String urlStr, String pathStr) {
     url = urlStr;
     path = pathStr;
+    jsonPath = pathStr == null || pathStr.isEmpty() ? null : JsonPath.compile(pathStr);
   }
 
   @Override
@@ -36,16 +38,20 @@ public class HttpGetAdapter extends BaseAdapter {
   }
 
   @Override
-  public R perform(R input) {
-    R result  = new R();
+  public void perform(RunContext context) {
     String response = getByUrl();
     int retry = 1;
 
     if (!Strings.isNullOrEmpty(response)) {
       try {
-        result.put("result", parseResponse(response));
+        context.setResult(parseResponse(response));
+      } catch (JsonPath.PathNotFoundException e) {
+        // the cached response is shared with the jobs reading other paths of it, keep it
+        context.fail("parse response failed, url:" + url + ", msg:" + e.getMessage());
+        log.error("parse response from {} failed, msg: {}", url, e.getMessage());
+        return;
       } catch (Exception e) {
-        //Catch exception during response parsing and retry
+        //Catch exception during response parsing and retry, the malformed response is not reused
         log.info("{} when parsing response {} from {}", e.getClass().getSimpleName(), response, url);
         while (true) {
           if (retry > HTTP_MAX_RETRY_TIME) {
@@ -53,9 +59,10 @@ public class HttpGetAdapter extends BaseAdapter {
             break;
           }
           try {
+            PriceCache.invalidate(url);
             response = getByUrl();
-            result.put("result", parseResponse(response));
-            log.info("Number {} retry for {}, parsed response = {}", retry, url, result.get("result"));
+            context.setResult(parseResponse(response));
+            log.info("Number {} retry for {}, parsed response = {}", retry, url, context.resultToString());
             break;
           } catch (Exception ex) {
             log.info("{} encountered during retry", ex.getClass().getSimpleName());
@@ -64,17 +71,15 @@ public class HttpGetAdapter extends BaseAdapter {
         }
       }
     } else {
-      result.replace("code", 1);
-      result.replace("msg", "request failed, url:" + url);
+      context.fail("request failed, url:" + url);
       log.error("request failed, url:" + url);
     }
     log.info("{} result parsed with {} parsing retry", url, retry-1);
-    return result;
   }
 
   private String getByUrl() {
     try {
-      String response = HttpUtil.requestWithRetry(url);
+      String response = PriceCache.get(url, () -> HttpUtil.requestWithRetry(url));
       log.info("HttpGet Request: {} | Response: {}", url, response);
       return response;
     } catch (IOException e) {
@@ -84,16 +89,6 @@ public class HttpGetAdapter extends BaseAdapter {
   }
 
   private double parseResponse(String response) throws Exception {
-    JsonElement data = JsonParser.parseString(response);
-
-    String[] paths = path.split("\\.");
-    for (String key : paths) {
-      if (data.isJsonArray()) {
-        data = data.getAsJsonArray().get(Integer.parseInt(key));
-      } else {
-        data = data.getAsJsonObject().get(key);
-      }
-    }
-    return data.getAsDouble();
+    return jsonPath.readDouble(response);
   }
 }
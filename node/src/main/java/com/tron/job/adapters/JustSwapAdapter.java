@@ -1,8 +1,9 @@
 package com.tron.job.adapters;
 
 import com.tron.common.Constant;
+import com.tron.common.util.PriceCache;
 import com.tron.job.adapters.ContractAdapter.TradePair;
-import com.tron.web.common.util.R;
+import com.tron.job.RunContext;
 import java.io.IOException;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -28,21 +29,30 @@ public class JustSwapAdapter extends BaseAdapter {
   }
 
   @Override
-  public R perform(R input) {
-    R result = new R();
+  public void perform(RunContext context) {
     double value = getPairPrice();
     log.info("JustSwap Pair: {} | Result: {}", pair, value);
     if (Math.abs(value) > 0.000000001) {
-      result.put("result", value);
+      context.setResult(value);
     } else {
       log.error("get price from justswap failed, pair:" + pair);
-      return R.error(1, "get price from justswap failed, pair:" + pair);
+      context.fail("get price from justswap failed, pair:" + pair);
     }
-
-    return result;
   }
 
   private double getPairPrice() {
+    String key = Constant.TASK_TYPE_JUST_SWAP + ":"
+        + (pair == null || pair.isEmpty() ? pool + ":" + trc20 : pair);
+    try {
+      return PriceCache.get(key, this::loadPairPrice);
+    } catch (IOException e) {
+      log.error("get pair price failed! msg:" + e.getMessage());
+      return 0;
+    }
+  }
+
+  /** @return the price, null if it could not be read */
+  private Double loadPairPrice() {
     double result = 0;
 
     try {
@@ -79,6 +89,6 @@ public class JustSwapAdapter extends BaseAdapter {
       log.error("get pair price failed! msg:" + e.getMessage());
     }
 
-    return result;
+    return Math.abs(result) > 0.000000001 ? result : null;
   }
 }
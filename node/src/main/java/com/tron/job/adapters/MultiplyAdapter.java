@@ -1,7 +1,7 @@
 package com.tron.job.adapters;
 
 import com.tron.common.Constant;
-import com.tron.web.common.util.R;
+import com.tron.job.RunContext;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,16 +20,12 @@ public class MultiplyAdapter extends BaseAdapter {
   }
 
   @Override
-  public R perform(R input) {
-    R result = new R();
+  public void perform(RunContext context) {
     try {
-      result.put("result", Math.round((double)input.get("result") * times));
+      context.setResult(Math.round(context.getDoubleResult() * times));
     } catch (Exception e) {
-      result.replace("code", 1);
-      result.replace("msg", "multiply failed");
+      context.fail("multiply failed");
       log.warn("multiply failed, error msg: {}", e.getMessage());
     }
-
-    return result;
   }
 }
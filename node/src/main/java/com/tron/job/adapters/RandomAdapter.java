@@ -1,21 +1,16 @@
 package com.tron.job.adapters;
 
 import com.alibaba.fastjson.JSONObject;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
-import com.google.common.collect.Maps;
 import com.tron.client.EventRequest;
 import com.tron.client.VrfEventRequest;
+import com.tron.common.Config;
 import com.tron.common.Constant;
-import com.tron.common.util.AbiUtil;
-import com.tron.common.util.HttpUtil;
-import com.tron.crypto.Proof;
-import com.tron.crypto.SolidityProof;
 import com.tron.crypto.VRF;
+import com.tron.crypto.VRFEngine;
 import com.tron.crypto.VRFException;
 import com.tron.keystore.VrfKeyStore;
-import com.tron.web.common.util.JsonUtil;
-import com.tron.web.common.util.R;
+import com.tron.job.RunContext;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpResponse;
@@ -25,10 +20,10 @@ import org.bouncycastle.util.encoders.Hex;
 
 import java.io.IOException;
 import java.math.BigInteger;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.tron.common.Constant.*;
 import org.tron.common.crypto.Hash;
@@ -57,20 +52,12 @@ public class RandomAdapter extends BaseAdapter {
   }
 
   @Override
-  public R perform(R input) {
-    R result = new R();
+  public void perform(RunContext context) {
     try {
-      VrfEventRequest event = JsonUtil.fromJson((String)input.get("params"), VrfEventRequest.class);
+      VrfEventRequest event = context.getVrfEventRequest();
       String coordinatorAddress = event.getContractAddr();
 
-      // 1. checkFulfillment
-      boolean shouldFulfill = checkFulfillment(coordinatorAddress, event.getRequestId());
-      if (!shouldFulfill) {
-        log.error("randomness request already fulfilled");
-        throw new RuntimeException("randomness request already fulfilled");
-      }
-
-      // 2. getInputs and checkKeyHash
+      // 1. getInputs and checkKeyHash
       String inputKeyHash = event.getKeyHash();
       ECKey ecKey = ECKey.fromPublicOnly(ByteArray.fromHexString(strPublicKey));
       ECPoint taskPublicKey = ecKey.getPubKeyPoint();
@@ -94,59 +81,25 @@ public class RandomAdapter extends BaseAdapter {
         throw new RuntimeException("cannot find the private key for " + strPublicKey);
       }
 
-      // 3. generateProof
-      byte[] responseProof = GenerateProofResponse(privateKey, preSeed, blockNum, blockHash);
-      if (responseProof == null) {
-        throw new RuntimeException("generate vrf proof error!");
+      // 2. checkFulfillment and generateProof, batched with the other requests
+      CompletableFuture<byte[]> proof = VrfBatchProver.get().submit(coordinatorAddress,
+          event.getRequestId(), privateKey, preSeed, blockNum, blockHash);
+      byte[] responseProof;
+      try {
+        responseProof = proof.get(Config.getVrfTimeout(), TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // the prover skips the cancelled request
+        proof.cancel(false);
+        throw e;
       }
-      result.put("result", ByteArray.toHexString(responseProof));
+      context.setResult(ByteArray.toHexString(responseProof));
+    } catch (ExecutionException e) {
+      context.fail("generate VRF failed");
+      log.warn("generate VRF failed, error msg: {}", e.getCause().getMessage());
     } catch (Exception e) {
-      result.replace("code", 1);
-      result.replace("msg", "generate VRF failed");
+      context.fail("generate VRF failed");
       log.warn("generate VRF failed, error msg: {}", e.getMessage());
     }
-
-    return result;
-  }
-
-  // checkFulfillment checks to see if the randomness request has already been fulfilled or not
-  private boolean checkFulfillment(String contractAddr, String requestId) throws Exception {
-    if (Strings.isNullOrEmpty(contractAddr)) {
-      return true;
-    }
-
-    List<Object> parameters = Arrays.asList(requestId);
-    String param = com.tron.common.util.AbiUtil.parseParameters("callbacks(bytes32)", parameters);
-    Map<String, Object> params = Maps.newHashMap();
-    params.put("owner_address", READONLY_ACCOUNT);
-    params.put("contract_address", contractAddr);
-    params.put("function_selector", "callbacks(bytes32)");
-    params.put("parameter", param);
-    params.put("visible", true);
-    String response = null;
-    int i = 0;
-    while (i <= HTTP_MAX_RETRY_TIME && Strings.isNullOrEmpty(response)) {
-      try {
-        i++;
-        response = HttpUtil.post("https", FULLNODE_HOST, TRIGGET_CONSTANT_CONTRACT, params);
-      } catch (Exception ex) {
-        log.error("checkFulfillment failed:" + ex.getMessage() + ", num:" + i);
-        ex.printStackTrace();
-      }
-    }
-    ObjectMapper mapper = new ObjectMapper();
-    assert response != null;
-    Map<String, Object> result = mapper.readValue(response, Map.class);
-    boolean flag = Optional.ofNullable((List<String>)result.get("constant_result"))
-            .map(constantResult -> constantResult.get(0))
-            .map(str -> str.substring(128)) //seedAndBlockNum is the third element in the `Callback` struct.
-            .map(Hex::decode)
-            .map(Hex::toHexString)
-            .map(str -> new BigInteger(str, 16))
-            .map(value -> (value != null && !value.equals(BigInteger.ZERO)))
-            .orElseThrow(() -> new IllegalArgumentException("can not get the callbacks, contract:" + contractAddr));
-
-    return flag;
   }
 
   // GenerateProof is marshaled randomness proof given k and VRF input seed
@@ -166,23 +119,19 @@ public class RandomAdapter extends BaseAdapter {
 
   // GenerateProofResponse returns the marshaled proof of the VRF output given the
   // secretKey and the seed computed from the s.PreSeed and the s.BlockHash
-  private byte[] GenerateProofResponse(String priKey, String preSeed, long blockNum, String blockHash) {
-    VRF vrf = new VRF(priKey);
+  static byte[] GenerateProofResponse(String priKey, String preSeed, long blockNum, String blockHash) {
+    VRFEngine engine = VRFEngine.forKey(priKey);
     // 1. FinalSeed
-    byte[] finalSeed = vrf.mustHash(ByteUtil.merge(ByteArray.fromHexString(preSeed), ByteArray.fromHexString(blockHash)));
-    // 2. GenerateProof
-    Proof proof = vrf.generateProof(finalSeed);
-    // 3. Precalculation
-    SolidityProof solidityProof = vrf.solidityPrecalculations(proof);
+    byte[] finalSeed = VRF.mustHash(ByteUtil.merge(ByteArray.fromHexString(preSeed), ByteArray.fromHexString(blockHash)));
+    // 2. GenerateProof, 3. Precalculation and 4.1 Marshal
 
     // Overwrite seed input to the VRF proof generator with the seed the
     // VRFCoordinator originally requested, so that it can identify the request
     // corresponding to this response, and compute the final seed itself using the
     // blockhash it infers from the block number.
-    // 4.1 Marshal
     byte[] marshaledProof;
     try {
-      marshaledProof = vrf.marshalForSolidityVerifier(solidityProof);
+      marshaledProof = engine.prove(finalSeed);
     } catch (VRFException vrfException) {
       vrfException.printStackTrace();
       return null;
@@ -198,7 +147,7 @@ public class RandomAdapter extends BaseAdapter {
     byte[] solidityProofResponse = ByteUtil.merge(
             beforeSeed, preSeedBytes, afterSeed, ByteUtil.longTo32Bytes(blockNum));
 
-    if (solidityProofResponse.length != vrf.ProofLength+32) {
+    if (solidityProofResponse.length != VRF.ProofLength+32) {
       return null;
     }
 
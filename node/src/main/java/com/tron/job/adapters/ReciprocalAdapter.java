@@ -1,7 +1,7 @@
 package com.tron.job.adapters;
 
 import com.tron.common.Constant;
-import com.tron.web.common.util.R;
+import com.tron.job.RunContext;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -12,16 +12,12 @@ public class ReciprocalAdapter extends BaseAdapter {
   }
 
   @Override
-  public R perform(R input) {
-    R result = new R();
+  public void perform(RunContext context) {
     try{
-      result.put("result", (double)1/(double)input.get("result"));
+      context.setResult((double)1/context.getDoubleResult());
     } catch (Exception e) {
-      result.replace("code", 1);
-      result.replace("msg", "reciprocal failed");
+      context.fail("reciprocal failed");
       log.warn("reciprocal failed, error msg: {}", e.getMessage());
     }
-
-    return result;
   }
 }
@@ -7,11 +7,10 @@ import com.tron.client.FluxAggregator;
 import com.tron.client.VrfEventRequest;
 import com.tron.client.FulfillRequest;
 import com.tron.client.OracleClient;
+import com.tron.client.RoundEventRequest;
 import com.tron.common.Constant;
-import com.tron.web.common.util.JsonUtil;
-import com.tron.web.common.util.R;
+import com.tron.job.RunContext;
 import com.tron.web.entity.TronTx;
-import java.util.Map;
 import lombok.Getter;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -41,7 +40,7 @@ public class TronTxAdapter extends BaseAdapter {
   }
 
   @Override
-  public R perform(R input) {
+  public void perform(RunContext context) {
     // send tx
     try {
       int iLinkType = 0; // oracle:0, vrf:1,
@@ -56,7 +55,7 @@ public class TronTxAdapter extends BaseAdapter {
         case 0:
           TronTx tx = new TronTx();
           if (ver == null || ver == 1) {
-            EventRequest event = JsonUtil.fromJson((String)input.get("params"), EventRequest.class);
+            EventRequest event = context.getEventRequest();
             FulfillRequest fulfillRequest = new FulfillRequest(
                 event.getContractAddr(),
                 event.getRequestId(),
@@ -64,29 +63,29 @@ public class TronTxAdapter extends BaseAdapter {
                 event.getCallbackAddr(),
                 event.getCallbackFunctionId(),
                 event.getCancelExpiration(),
-                codecData((long)input.get("result")));
+                codecData(context.getLongResult()));
             //Long.toString((long)input.get("result")));
             //(Long) input.get("result"));
 
             OracleClient.fulfil(fulfillRequest, tx);
           } else {
-            Map<String, Object> params = JsonUtil.json2Map((String)input.get("params"));
-            long roundId = Long.parseLong(params.get("roundId").toString());
-            String addr = String.valueOf(params.get("address"));
+            RoundEventRequest round = context.getRoundEventRequest();
 
-            FluxAggregator.submit(addr, roundId, (long)input.get("result"), tx);
+            FluxAggregator.submit(round.getAddress(), round.getRoundId(), context.getLongResult(), tx);
           }
 
-          tx.setValue((long)input.get("result"));
+          tx.setValue(context.getLongResult());
           tx.setSentAt(System.currentTimeMillis());
-          tx.setTaskRunId((String)input.get("taskRunId"));
+          tx.setTaskRunId(context.getTaskRunId());
           //tx.setConfirmed(Constant.TronTxInProgress); // do not resend for oracle request
           log.info("tx id : " + tx.getSurrogateId());
 
-          return R.ok().put("result", tx.getSurrogateId()).put("tx", tx);
+          context.setResult(tx.getSurrogateId());
+          context.setTx(tx);
+          return;
         case 1:
-          String proof = (String)input.get("result");
-          VrfEventRequest vrfEvent = JsonUtil.fromJson((String)input.get("params"), VrfEventRequest.class);
+          String proof = context.getStringResult();
+          VrfEventRequest vrfEvent = context.getVrfEventRequest();
           FulfillRequest vrfFulfillRequest = new FulfillRequest(
               vrfEvent.getContractAddr(),
               vrfEvent.getRequestId(),
@@ -111,27 +110,31 @@ public class TronTxAdapter extends BaseAdapter {
             }
             vrfTx.setValue(0L);
             vrfTx.setSentAt(System.currentTimeMillis());
-            vrfTx.setTaskRunId((String)input.get("taskRunId"));
+            vrfTx.setTaskRunId(context.getTaskRunId());
             vrfTx.setConfirmed(Constant.TronTxInProgress);
             log.info("vrfFulFil exception vrfTx id : " + vrfTx.getSurrogateId());
-            return R.error(1, "vrf fulfillRequest failed")
-                .put("result", vrfTx.getSurrogateId()).put("tx", vrfTx);
+            context.fail("vrf fulfillRequest failed");
+            context.setTx(vrfTx);
+            return;
           }
           vrfTx.setValue(0L);
           vrfTx.setSentAt(System.currentTimeMillis());
-          vrfTx.setTaskRunId((String)input.get("taskRunId"));
+          vrfTx.setTaskRunId(context.getTaskRunId());
           vrfTx.setConfirmed(Constant.TronTxInProgress);
           log.info("vrfTx id : " + vrfTx.getSurrogateId());
 
-          return R.ok().put("result", vrfTx.getSurrogateId()).put("tx", vrfTx);
+          context.setResult(vrfTx.getSurrogateId());
+          context.setTx(vrfTx);
+          return;
         default:
           log.error("unsupported linkType neither oracle nor vrf: " + linkType);
-          return R.error(1, "unsupported linkType fulfillRequest failed");
+          context.fail("unsupported linkType fulfillRequest failed");
+          return;
       }
 
     } catch (Exception e) {
       log.error("fulfil failed :" + e.getMessage());
-      return R.error(1, "fulfillRequest failed");
+      context.fail("fulfillRequest failed");
     }
 
   }
@@ -0,0 +1,245 @@
+package com.tron.job.adapters;
+
+import static com.tron.common.Constant.FULLNODE_HOST;
+import static com.tron.common.Constant.HTTP_MAX_RETRY_TIME;
+import static com.tron.common.Constant.READONLY_ACCOUNT;
+import static com.tron.common.Constant.TRIGGET_CONSTANT_CONTRACT;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+import com.tron.common.Config;
+import com.tron.common.util.AbiUtil;
+import com.tron.common.util.HttpUtil;
+import com.tron.common.util.ThreadUtil;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Proves the randomness requests of the node in batches.
+ *
+ * <p>The requests submitted within {@code node.vrf.batchWindow} ms, at most
+ * {@code node.vrf.batchSize}, form a batch. The fulfilment states of the batch are checked
+ * together with concurrent asynchronous calls, and the proofs of the requests still to fulfil are
+ * generated in parallel on a fork-join pool sized to the cores, so a burst of requests keeps every
+ * core busy without the job-run threads competing for them. The fulfilment transactions are then
+ * sent by the tron tx task of each run through the broadcast queue of the node.
+ */
+@Slf4j
+public class VrfBatchProver {
+
+  /** checks whether a request is still to fulfil, visible for tests. */
+  public interface FulfillmentChecker {
+    CompletableFuture<Boolean> shouldFulfill(String contractAddr, String requestId);
+  }
+
+  private static volatile VrfBatchProver instance;
+
+  private final FulfillmentChecker checker;
+  private final long window;
+  private final int batchSize;
+  private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+  private final ForkJoinPool provers;
+  private final ExecutorService collector;
+
+  public VrfBatchProver(FulfillmentChecker checker, long window, int batchSize,
+      int parallelism) {
+    this.checker = checker;
+    this.window = window;
+    this.batchSize = batchSize;
+    this.provers = new ForkJoinPool(parallelism);
+    this.collector = Executors.newSingleThreadExecutor(
+        ThreadUtil.newThreadFactory("vrf-batch-", false));
+    collector.execute(this::collectLoop);
+  }
+
+  public static VrfBatchProver get() {
+    if (instance == null) {
+      synchronized (VrfBatchProver.class) {
+        if (instance == null) {
+          instance = new VrfBatchProver(VrfBatchProver::checkFulfillment,
+              Config.getVrfBatchWindow(), Config.getVrfBatchSize(),
+              Runtime.getRuntime().availableProcessors());
+          log.info("vrf batch prover started, window: {} ms, batchSize: {}",
+              Config.getVrfBatchWindow(), Config.getVrfBatchSize());
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * @return the marshaled response of the request, completed exceptionally if the request is
+   *     already fulfilled or the proof cannot be generated
+   */
+  public CompletableFuture<byte[]> submit(String contractAddr, String requestId,
+      String privateKey, String preSeed, long blockNum, String blockHash) {
+    Request request = new Request(contractAddr, requestId, privateKey, preSeed, blockNum,
+        blockHash);
+    queue.add(request);
+    return request.result;
+  }
+
+  public void shutdown() {
+    collector.shutdownNow();
+    provers.shutdownNow();
+  }
+
+  private void collectLoop() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        List<Request> batch = new ArrayList<>();
+        batch.add(queue.take());
+        long deadline = System.currentTimeMillis() + window;
+        while (batch.size() < batchSize) {
+          long wait = deadline - System.currentTimeMillis();
+          Request request = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : queue.poll();
+          if (request == null) {
+            break;
+          }
+          batch.add(request);
+        }
+        check(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Throwable t) {
+        log.error("Exception in vrf batch prover ", t);
+      }
+    }
+  }
+
+  private void check(List<Request> batch) {
+    log.debug("prove a batch of {} vrf requests", batch.size());
+    Map<String, CompletableFuture<Boolean>> checks = new HashMap<>();
+    for (Request request : batch) {
+      if (request.result.isDone()) {
+        // cancelled by the run which timed out
+        continue;
+      }
+      CompletableFuture<Boolean> check = checks.computeIfAbsent(
+          request.contractAddr + ":" + request.requestId,
+          k -> checker.shouldFulfill(request.contractAddr, request.requestId));
+      check.whenComplete((shouldFulfill, t) -> {
+        if (t != null) {
+          request.result.completeExceptionally(t);
+        } else if (!shouldFulfill) {
+          log.error("randomness request already fulfilled");
+          request.result.completeExceptionally(
+              new IllegalStateException("randomness request already fulfilled"));
+        } else {
+          provers.execute(() -> prove(request));
+        }
+      });
+    }
+  }
+
+  private void prove(Request request) {
+    if (request.result.isDone()) {
+      return;
+    }
+    try {
+      byte[] response = RandomAdapter.GenerateProofResponse(request.privateKey, request.preSeed,
+          request.blockNum, request.blockHash);
+      if (response == null) {
+        request.result.completeExceptionally(
+            new IllegalStateException("generate vrf proof error!"));
+      } else {
+        request.result.complete(response);
+      }
+    } catch (Throwable t) {
+      request.result.completeExceptionally(t);
+    }
+  }
+
+  // checkFulfillment checks to see if the randomness request has already been fulfilled or not
+  static CompletableFuture<Boolean> checkFulfillment(String contractAddr, String requestId) {
+    if (Strings.isNullOrEmpty(contractAddr)) {
+      return CompletableFuture.completedFuture(true);
+    }
+    List<Object> parameters = Arrays.asList(requestId);
+    String param = AbiUtil.parseParameters("callbacks(bytes32)", parameters);
+    Map<String, Object> params = Maps.newHashMap();
+    params.put("owner_address", READONLY_ACCOUNT);
+    params.put("contract_address", contractAddr);
+    params.put("function_selector", "callbacks(bytes32)");
+    params.put("parameter", param);
+    params.put("visible", true);
+    return post(params, 1).thenApply(response -> {
+      try {
+        return parseFulfillment(response, contractAddr);
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    });
+  }
+
+  private static CompletableFuture<String> post(Map<String, Object> params, int attempt) {
+    return HttpUtil.postAsync("https", FULLNODE_HOST, TRIGGET_CONSTANT_CONTRACT, params)
+        .thenApply(response -> {
+          if (Strings.isNullOrEmpty(response)) {
+            throw new CompletionException(new IOException("empty response"));
+          }
+          return CompletableFuture.completedFuture(response);
+        })
+        .exceptionally(t -> {
+          log.error("checkFulfillment failed:" + t.getMessage() + ", num:" + attempt);
+          if (attempt > HTTP_MAX_RETRY_TIME) {
+            throw t instanceof CompletionException
+                ? (CompletionException) t : new CompletionException(t);
+          }
+          return post(params, attempt + 1);
+        })
+        .thenCompose(Function.identity());
+  }
+
+  @SuppressWarnings("unchecked")
+  static boolean parseFulfillment(String response, String contractAddr) throws IOException {
+    Map<String, Object> result = new ObjectMapper().readValue(response, Map.class);
+    return Optional.ofNullable((List<String>) result.get("constant_result"))
+        .map(constantResult -> constantResult.get(0))
+        .map(str -> str.substring(128)) //seedAndBlockNum is the third element in the `Callback` struct.
+        .map(Hex::decode)
+        .map(Hex::toHexString)
+        .map(str -> new BigInteger(str, 16))
+        .map(value -> !value.equals(BigInteger.ZERO))
+        .orElseThrow(() -> new IllegalArgumentException(
+            "can not get the callbacks, contract:" + contractAddr));
+  }
+
+  private static class Request {
+    private final String contractAddr;
+    private final String requestId;
+    private final String privateKey;
+    private final String preSeed;
+    private final long blockNum;
+    private final String blockHash;
+    private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+    Request(String contractAddr, String requestId, String privateKey, String preSeed,
+        long blockNum, String blockHash) {
+      this.contractAddr = contractAddr;
+      this.requestId = requestId;
+      this.privateKey = privateKey;
+      this.preSeed = preSeed;
+      this.blockNum = blockNum;
+      this.blockHash = blockHash;
+    }
+  }
+}
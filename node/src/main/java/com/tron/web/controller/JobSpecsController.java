@@ -1,8 +1,8 @@
 package com.tron.web.controller;
 
-import com.tron.common.Constant;
 import com.tron.common.TronException;
 import com.tron.job.JobCache;
+import com.tron.job.JobSpecRegistry;
 import com.tron.job.JobSubscriber;
 import com.tron.web.common.ResultStatus;
 import com.tron.web.common.util.R;
@@ -10,12 +10,10 @@ import com.tron.web.entity.DetailActiveJob;
 import com.tron.web.entity.Initiator;
 import com.tron.web.entity.JobSpec;
 import com.tron.web.entity.JobSpecRequest;
-import com.tron.web.entity.TaskSpec;
 import com.tron.web.mapper.InitiatorMapper;
 import com.tron.web.service.JobSpecsService;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
@@ -39,6 +37,7 @@ public class JobSpecsController {
   private JobSpecsService jobSpecsService;
   private JobSubscriber jobSubscriber;
   private JobCache jobCache;
+  private JobSpecRegistry jobSpecRegistry;
   private InitiatorMapper initiatorMapper;
 
   @GetMapping("/specs")
@@ -78,15 +77,9 @@ public class JobSpecsController {
       JobSpec result = jobSpecsService.insert(jobSpecRequest);
 
       if (result != null){
+        // the cache list follows the registry
+        jobSpecRegistry.refresh(result.getId());
         jobSubscriber.addJob(result);
-
-        if (jobCache.isCacheEnable()) {
-          for (TaskSpec taskSpec : result.getTaskSpecs()) {
-            if (taskSpec.getType().equals(Constant.TASK_TYPE_CACHE)) {
-              jobCache.addToCacheList(result.getId());
-            }
-          }
-        }
         return R.ok().put("data", "");
       } else {
         return R.error(ResultStatus.CREATE_JOB_FAILED);
@@ -115,6 +108,7 @@ public class JobSpecsController {
   public R delete(@PathVariable("jobId") String jobId) {
     try {
       jobSpecsService.deleteJob(jobId);
+      jobSpecRegistry.refresh(jobId);
       return R.ok();
     } catch (Exception e) {
       log.error("delete job failed, error : " + e.getMessage());
@@ -138,17 +132,12 @@ public class JobSpecsController {
   @GetMapping(value = "/cache/{jobId}")
   public R getJobCache(@PathVariable("jobId") String jobId) {
     try {
-      Queue<Long> valueList = jobCache.getValueListByJobId(jobId);
-      if (valueList != null) {
-        return R.ok().put("data", valueList.toArray());
+      long[] values = jobCache.getValuesByJobId(jobId);
+      if (values != null) {
+        return R.ok().put("data", values);
       } else {
-        JobSpec jobSpec = jobSpecsService.getById(jobId);
         if (jobCache.isCacheEnable()) {
-          for (TaskSpec taskSpec : jobSpec.getTaskSpecs()) {
-            if (taskSpec.getType().equals(Constant.TASK_TYPE_CACHE)) {
-              jobCache.addToCacheList(jobId);
-            }
-          }
+          jobCache.addToCacheList(jobId);
         }
         return R.ok().put("data", new ArrayList<>());
       }
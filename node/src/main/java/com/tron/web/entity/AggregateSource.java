@@ -0,0 +1,10 @@
+package com.tron.web.entity;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class AggregateSource {
+  private String name;
+  private List<TaskSpecRequest> tasks;
+}
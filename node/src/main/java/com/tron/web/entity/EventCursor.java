@@ -0,0 +1,19 @@
+package com.tron.web.entity;
+
+import lombok.Data;
+import java.io.Serializable;
+import java.util.Date;
+
+@Data
+public class EventCursor implements Serializable {
+  private Long id;
+  private String address;
+  private String eventName;
+  private Long blockNumber;
+  private Long blockTimestamp;
+  // transactionId:eventIndex of the handled events at blockTimestamp, separated by commas
+  private String eventKeys;
+  private Date createdAt;
+  private Date updatedAt;
+
+}
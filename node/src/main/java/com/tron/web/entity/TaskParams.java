@@ -1,5 +1,6 @@
 package com.tron.web.entity;
 
+import java.util.List;
 import lombok.Data;
 
 @Data
@@ -13,4 +14,10 @@ public class TaskParams {
   private String publicKey;
   private String type;
   private Long version;
+  private List<AggregateSource> sources;
+  private Integer quorum;
+  private Long timeout;
+  private String method;
+  private Double trim;
+  private Long interval;
 }
@@ -9,5 +9,6 @@ public class TaskSpecRequest {
   private Long confirmations;
   private String type;
   private TaskParams params;
+  private Integer level;
 
 }
\ No newline at end of file
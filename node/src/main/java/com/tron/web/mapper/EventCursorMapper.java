@@ -0,0 +1,12 @@
+package com.tron.web.mapper;
+
+import com.tron.web.entity.EventCursor;
+import java.util.List;
+
+
+public interface EventCursorMapper {
+
+  int batchUpsert(List<EventCursor> cursors);
+
+  List<EventCursor> getAll();
+}
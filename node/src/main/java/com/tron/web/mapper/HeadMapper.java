@@ -12,4 +12,6 @@ public interface HeadMapper {
   int update(Head head);
 
   List<Head> getByAddress(@Param("address") String address);
+
+  int batchUpsert(List<Head> heads);
 }
@@ -1,15 +1,19 @@
 package com.tron.web.mapper;
 
 import com.tron.web.entity.JobRun;
+import java.util.Date;
 import java.util.List;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 @Mapper
 public interface JobRunsMapper {
 
   int insert(JobRun jobRun);
 
+  int batchUpsert(List<JobRun> jobRuns);
+
   JobRun getById(@Param("id") String id);
 
   List<JobRun> getList(@Param("offset") int offset, @Param("limit") int limit);
@@ -21,4 +25,6 @@ public interface JobRunsMapper {
   long getCount(@Param("jobId") String jobId);
 
   String getByRequestId(@Param("requestId") String requestId);
+
+  void scanRequestIds(@Param("since") Date since, ResultHandler<String> handler);
 }
@@ -8,6 +8,8 @@ public interface TaskRunsMapper {
 
   int insert(TaskRun taskRun);
 
+  int batchUpsert(List<TaskRun> taskRuns);
+
   TaskRun getById(@Param("id") String id);
 
   List<TaskRun> getByJobRunId(@Param("id") String id);
@@ -9,7 +9,11 @@ import java.util.Date;
 @Mapper
 public interface TxesMapper {
   int insert(TronTx tronTx);
+  int batchInsert(List<TronTx> tronTxes);
   int update(TronTx tronTx);
+  int batchUpdate(List<TronTx> tronTxes);
+  int batchUpdateConfirmed(@Param("confirmed") Long confirmed,
+      @Param("surrogateIds") List<String> surrogateIds);
 
   TronTx getById(@Param("id") Long id);
 
@@ -0,0 +1,9 @@
+package com.tron.web.service;
+
+import com.tron.web.entity.EventCursor;
+import java.util.List;
+
+public interface EventCursorService {
+  int batchUpsert(List<EventCursor> cursors);
+  List<EventCursor> getAll();
+}
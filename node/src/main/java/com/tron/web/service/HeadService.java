@@ -7,4 +7,5 @@ public interface HeadService {
   int insert(Head head);
   int update(Head head);
   List<Head> getByAddress(String address);
+  int batchUpsert(List<Head> heads);
 }
@@ -2,14 +2,20 @@ package com.tron.web.service;
 
 import com.tron.web.entity.JobRun;
 import com.tron.web.entity.TaskRun;
+import java.util.Date;
 import java.util.List;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 public interface JobRunsService {
   int insert(JobRun jobRun);
 
   int insertTaskRun(TaskRun taskRun);
 
+  int batchUpsert(List<JobRun> jobRuns);
+
+  int batchUpsertTaskRuns(List<TaskRun> taskRuns);
+
   JobRun getById(String id);
 
   List<JobRun> getRunList(int page, int size);
@@ -25,4 +31,6 @@ public interface JobRunsService {
   List<TaskRun> getTaskRunsByJobRunId(String id);
 
   String getByRequestId(String requestId);
+
+  void scanRequestIds(Date since, ResultHandler<String> handler);
 }
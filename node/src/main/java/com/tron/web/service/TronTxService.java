@@ -7,7 +7,10 @@ import java.util.List;
 
 public interface TronTxService {
   int insert(TronTx tronTx);
+  int batchInsert(List<TronTx> tronTxes);
   int update(TronTx tronTx);
+  int batchUpdate(List<TronTx> tronTxes);
+  int batchUpdateConfirmed(Long confirmed, List<String> surrogateIds);
   TronTx getById(Long id);
   TronTx getByTxId(String txId);
   List<TronTx> getByConfirmedAndDate(Long confirmed, Long sentAt);
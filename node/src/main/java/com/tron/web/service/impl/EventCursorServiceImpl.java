@@ -0,0 +1,26 @@
+package com.tron.web.service.impl;
+
+import com.tron.web.entity.EventCursor;
+import com.tron.web.mapper.EventCursorMapper;
+import com.tron.web.service.EventCursorService;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import java.util.List;
+
+@Lazy
+@Service
+@AllArgsConstructor
+public class EventCursorServiceImpl implements EventCursorService {
+  private EventCursorMapper eventCursorMapper;
+
+  @Override
+  public int batchUpsert(List<EventCursor> cursors) {
+    return eventCursorMapper.batchUpsert(cursors);
+  }
+
+  @Override
+  public List<EventCursor> getAll() {
+    return eventCursorMapper.getAll();
+  }
+}
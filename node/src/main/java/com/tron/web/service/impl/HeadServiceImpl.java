@@ -23,4 +23,9 @@ public class HeadServiceImpl implements HeadService {
   public List<Head> getByAddress(String address) {
     return headMapper.getByAddress(address);
   }
+
+  @Override
+  public int batchUpsert(List<Head> heads) {
+    return headMapper.batchUpsert(heads);
+  }
 }
@@ -7,10 +7,12 @@ import com.tron.web.mapper.JobRunsMapper;
 import com.tron.web.mapper.TaskRunsMapper;
 import com.tron.web.mapper.TaskSpecsMapper;
 import com.tron.web.service.JobRunsService;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import lombok.AllArgsConstructor;
+import org.apache.ibatis.session.ResultHandler;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
@@ -30,6 +32,14 @@ public class JobRunsServiceImpl implements JobRunsService {
     return taskRunsMapper.insert(taskRun);
   }
 
+  public int batchUpsert(List<JobRun> jobRuns) {
+    return jobRunsMapper.batchUpsert(jobRuns);
+  }
+
+  public int batchUpsertTaskRuns(List<TaskRun> taskRuns) {
+    return taskRunsMapper.batchUpsert(taskRuns);
+  }
+
   public JobRun getById(String id) {
     return jobRunsMapper.getById(id);
   }
@@ -80,4 +90,8 @@ public class JobRunsServiceImpl implements JobRunsService {
   public String getByRequestId(String requestId) {
     return jobRunsMapper.getByRequestId(requestId);
   }
+
+  public void scanRequestIds(Date since, ResultHandler<String> handler) {
+    jobRunsMapper.scanRequestIds(since, handler);
+  }
 }
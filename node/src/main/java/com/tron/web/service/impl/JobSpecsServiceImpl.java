@@ -2,17 +2,21 @@ package com.tron.web.service.impl;
 
 import com.tron.common.Constant;
 import com.tron.common.TronException;
+import com.tron.job.JobPipeline;
 import com.tron.job.adapters.AdapterManager;
+import com.tron.job.adapters.AggregateAdapter;
 import com.tron.job.adapters.BaseAdapter;
 import com.tron.job.adapters.HttpGetAdapter;
 import com.tron.job.adapters.JustSwapAdapter;
 import com.tron.job.adapters.MultiplyAdapter;
 import com.tron.web.common.util.JsonUtil;
+import com.tron.web.entity.AggregateSource;
 import com.tron.web.entity.DetailActiveJob;
 import com.tron.web.entity.Initiator;
 import com.tron.web.entity.InitiatorRequest;
 import com.tron.web.entity.JobSpec;
 import com.tron.web.entity.JobSpecRequest;
+import com.tron.web.entity.TaskParams;
 import com.tron.web.entity.TaskSpec;
 import com.tron.web.entity.TaskSpecRequest;
 import com.tron.web.mapper.InitiatorMapper;
@@ -20,6 +24,7 @@ import com.tron.web.mapper.JobSpecsMapper;
 import com.tron.web.mapper.TaskSpecsMapper;
 import com.tron.web.service.JobSpecsService;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
@@ -80,6 +85,9 @@ public class JobSpecsServiceImpl implements JobSpecsService {
 
   public JobSpec getById(String id) {
     JobSpec jobSpec = jobSpecsMapper.getById(id);
+    if (jobSpec == null) {
+      return null;
+    }
     List<Initiator> initiators = getInitiatorsByJobId(id);
     jobSpec.setInitiators(initiators);
     List<TaskSpec> taskSpecs = getTasksByJobId(id);
@@ -139,6 +147,7 @@ public class JobSpecsServiceImpl implements JobSpecsService {
       ts.setJobSpecID(jobId);
       ts.setType(tr.getType().toLowerCase());
       ts.setParams(JsonUtil.obj2String(tr.getParams()));
+      ts.setLevel(tr.getLevel() == null ? 0 : tr.getLevel());
       jobSpec.getTaskSpecs().add(ts);
     }
 
@@ -159,6 +168,32 @@ public class JobSpecsServiceImpl implements JobSpecsService {
     for (TaskSpec taskSpec : job.getTaskSpecs()) {
       checkTaskSpec(taskSpec);
     }
+    checkTaskLevels(job.getTaskSpecs());
+  }
+
+  // a job with a median or mean task runs the tasks of a level concurrently, several tasks of a
+  // level must be followed by one combine task. The tasks are checked in the order they are read
+  // back from the database, by level then by position in the request
+  private void checkTaskLevels(List<TaskSpec> taskSpecs) throws TronException {
+    if (!JobPipeline.isLeveled(taskSpecs)) {
+      return;
+    }
+    List<TaskSpec> sorted = new ArrayList<>(taskSpecs);
+    sorted.sort(Comparator.comparing(TaskSpec::getLevel));
+    List<List<TaskSpec>> levels = JobPipeline.groupByLevel(sorted);
+    for (int i = 0; i < levels.size(); i++) {
+      List<TaskSpec> level = levels.get(i);
+      boolean combine = JobPipeline.isCombine(level.get(0));
+      if (combine && (i == 0 || level.size() > 1)) {
+        throw new TronException(level.get(0).getType()
+            + " task must be alone on its level and follow the tasks it combines");
+      }
+      if (level.size() > 1 && (i == levels.size() - 1
+          || !JobPipeline.isCombine(levels.get(i + 1).get(0)))) {
+        throw new TronException("tasks of level " + level.get(0).getLevel()
+            + " must be followed by a median or mean task");
+      }
+    }
   }
 
   private void checkInitiator(Initiator initiator) throws TronException {
@@ -175,6 +210,9 @@ public class JobSpecsServiceImpl implements JobSpecsService {
   }
 
   private void checkTaskSpec(TaskSpec taskSpec) throws TronException {
+    if (Constant.TASK_TYPE_AGGREGATE.equals(taskSpec.getType())) {
+      checkAggregateParams(JsonUtil.json2Obj(taskSpec.getParams(), TaskParams.class));
+    }
     BaseAdapter adapter = AdapterManager.getAdapter(taskSpec);
     if (adapter == null) {
       throw new TronException("Type " + taskSpec.getType() + " dose dot support");
@@ -203,16 +241,64 @@ public class JobSpecsServiceImpl implements JobSpecsService {
           throw new TronException(Constant.TASK_TYPE_JUST_SWAP + " task's pair or addr parameters are required");
         }
         break;
+      case Constant.TASK_TYPE_CACHE:
+        TaskParams params = JsonUtil.json2Obj(taskSpec.getParams(), TaskParams.class);
+        if (params != null && params.getInterval() != null && params.getInterval() <= 0) {
+          throw new TronException(Constant.TASK_TYPE_CACHE + " task's interval must be positive");
+        }
+        break;
       case Constant.TASK_TYPE_TRON_TX:
       case Constant.TASK_TYPE_CONVERT_USD:
       case Constant.TASK_TYPE_RECIPROCAL:
       case Constant.TASK_TYPE_TRX_TO_USDT:
-      case Constant.TASK_TYPE_CACHE:
       case Constant.TASK_TYPE_CONVERT_TRX:
       case Constant.TASK_TYPE_RANDOM:
+      case Constant.TASK_TYPE_MEDIAN:
+      case Constant.TASK_TYPE_MEAN:
+      case Constant.TASK_TYPE_AGGREGATE:
         break;
       default:
         throw new TronException("Task type " + taskSpec.getType() + " dose dot support");
     }
   }
+
+  // the sources are checked like tasks, before the adapter is created from them
+  private void checkAggregateParams(TaskParams params) throws TronException {
+    if (params == null || params.getSources() == null || params.getSources().isEmpty()) {
+      throw new TronException(Constant.TASK_TYPE_AGGREGATE + " task's sources parameter is required");
+    }
+    for (AggregateSource source : params.getSources()) {
+      if (source.getTasks() == null || source.getTasks().isEmpty()) {
+        throw new TronException(Constant.TASK_TYPE_AGGREGATE + " task's source must have tasks");
+      }
+      for (TaskSpecRequest tr : source.getTasks()) {
+        if (tr.getType() == null
+            || !AggregateAdapter.SOURCE_TASK_TYPES.contains(tr.getType().toLowerCase())) {
+          throw new TronException("Task type " + tr.getType() + " can not be a "
+              + Constant.TASK_TYPE_AGGREGATE + " source");
+        }
+        TaskSpec ts = new TaskSpec();
+        ts.setType(tr.getType().toLowerCase());
+        ts.setParams(JsonUtil.obj2String(tr.getParams()));
+        checkTaskSpec(ts);
+      }
+    }
+    int count = params.getSources().size();
+    if (params.getQuorum() != null && (params.getQuorum() < 1 || params.getQuorum() > count)) {
+      throw new TronException(Constant.TASK_TYPE_AGGREGATE + " task's quorum must be between 1 and "
+          + count);
+    }
+    if (params.getTimeout() != null && params.getTimeout() <= 0) {
+      throw new TronException(Constant.TASK_TYPE_AGGREGATE + " task's timeout must be positive");
+    }
+    if (params.getMethod() != null
+        && !Constant.AGGREGATE_METHOD_MEDIAN.equalsIgnoreCase(params.getMethod())
+        && !Constant.AGGREGATE_METHOD_TRIMMED_MEAN.equalsIgnoreCase(params.getMethod())) {
+      throw new TronException(Constant.TASK_TYPE_AGGREGATE + " task's method must be "
+          + Constant.AGGREGATE_METHOD_MEDIAN + " or " + Constant.AGGREGATE_METHOD_TRIMMED_MEAN);
+    }
+    if (params.getTrim() != null && (params.getTrim() < 0 || params.getTrim() >= 0.5)) {
+      throw new TronException(Constant.TASK_TYPE_AGGREGATE + " task's trim must be in [0, 0.5)");
+    }
+  }
 }
@@ -20,10 +20,22 @@ public class TronTxServiceImpl implements TronTxService {
     return txesMapper.insert(tronTx);
   }
 
+  public int batchInsert(List<TronTx> tronTxes) {
+    return txesMapper.batchInsert(tronTxes);
+  }
+
   public int update(TronTx tronTx) {
     return txesMapper.update(tronTx);
   }
 
+  public int batchUpdate(List<TronTx> tronTxes) {
+    return txesMapper.batchUpdate(tronTxes);
+  }
+
+  public int batchUpdateConfirmed(Long confirmed, List<String> surrogateIds) {
+    return txesMapper.batchUpdateConfirmed(confirmed, surrogateIds);
+  }
+
   public TronTx getById(Long id) {
     return txesMapper.getById(id);
   }
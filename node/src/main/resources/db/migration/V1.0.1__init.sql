@@ -162,4 +162,18 @@ CREATE TABLE `heads`  (
   index `idx_heads_created_at` (`created_at`),
   unique index `heads_address_key` (`address`),
   index `idx_heads_address` (`address`)
-) ENGINE = InnoDB default charset=utf8;
\ No newline at end of file
+) ENGINE = InnoDB default charset=utf8;
+
+DROP TABLE IF EXISTS `event_cursors`;
+CREATE TABLE `event_cursors`  (
+  `id` INT UNSIGNED AUTO_INCREMENT,
+  `address` varchar(128) NOT NULL,
+  `event_name` varchar(64) NOT NULL,
+  `block_number` BIGINT NOT NULL,
+  `block_timestamp` BIGINT NOT NULL,
+  `event_keys` text,
+  `created_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  unique index `event_cursors_address_event_key` (`address`, `event_name`)
+) ENGINE = InnoDB default charset=utf8;
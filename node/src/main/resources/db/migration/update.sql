@@ -21,4 +21,18 @@ ALTER TABLE `task_runs` MODIFY `result` text;
 ALTER TABLE `txes` MODIFY `confirmed` tinyint DEFAULT 0
 COMMENT '0:init 101:unstarted 102:inprogress 103:fatalerror 104:outofenergy 105:confirmed';
 ALTER TABLE `txes` ADD INDEX `idx_confirmed` (`confirmed`);
-ALTER TABLE `txes` ADD INDEX `idx_sent_at` (`sent_at`);
\ No newline at end of file
+ALTER TABLE `txes` ADD INDEX `idx_sent_at` (`sent_at`);
+
+DROP TABLE IF EXISTS `event_cursors`;
+CREATE TABLE `event_cursors`  (
+  `id` INT UNSIGNED AUTO_INCREMENT,
+  `address` varchar(128) NOT NULL,
+  `event_name` varchar(64) NOT NULL,
+  `block_number` BIGINT NOT NULL,
+  `block_timestamp` BIGINT NOT NULL,
+  `event_keys` text,
+  `created_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  unique index `event_cursors_address_event_key` (`address`, `event_name`)
+) ENGINE = InnoDB default charset=utf8;
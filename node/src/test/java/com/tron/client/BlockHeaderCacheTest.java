@@ -0,0 +1,101 @@
+package com.tron.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class BlockHeaderCacheTest {
+
+  private static final String BLOCK = "{\"blockID\":"
+      + "\"0000000001a2b3c4d5e6f708192a3b4c5d6e7f8091a2b3c4d5e6f708192a3b4c\","
+      + "\"block_header\":{\"raw_data\":{\"number\":27440068,"
+      + "\"txTrieRoot\":\"0000000000000000000000000000000000000000000000000000000000000000\","
+      + "\"witness_address\":\"TXYZopYRdj2D9XRtbG411XZZ3kM5VkAeBf\","
+      + "\"parentHash\":\"0000000001a2b3c3aabbccddeeff00112233445566778899aabbccddeeff0011\","
+      + "\"version\":20,\"timestamp\":1612345678000},"
+      + "\"witness_signature\":\"00\"}}";
+
+  @After
+  public void tearDown() {
+    BlockHeaderCache.setFetcher(null);
+  }
+
+  @Test
+  public void parseTest() {
+    BlockHeaderCache.Header header = BlockHeaderCache.parse(BLOCK);
+    assertEquals(27440068L, header.getNumber());
+    assertEquals("0000000001a2b3c4d5e6f708192a3b4c5d6e7f8091a2b3c4d5e6f708192a3b4c",
+        header.getHash());
+    assertEquals("0000000001a2b3c3aabbccddeeff00112233445566778899aabbccddeeff0011",
+        header.getParentHash());
+    assertEquals(1612345678000L, header.getTimestamp());
+
+    assertNull(BlockHeaderCache.parse(""));
+    assertNull(BlockHeaderCache.parse("{}"));
+    assertNull(BlockHeaderCache.parse("<html>404 Not Found</html>"));
+  }
+
+  @Test
+  public void singleFetchTest() throws Exception {
+    AtomicInteger fetches = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    BlockHeaderCache.setFetcher(blockNum -> {
+      fetches.incrementAndGet();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      return new BlockHeaderCache.Header(blockNum, "hash" + blockNum, "parent", 1L);
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<BlockHeaderCache.Header>> lookups = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      lookups.add(executor.submit(() -> BlockHeaderCache.get(100L)));
+    }
+    release.countDown();
+    BlockHeaderCache.Header first = lookups.get(0).get(5, TimeUnit.SECONDS);
+    for (Future<BlockHeaderCache.Header> lookup : lookups) {
+      assertSame(first, lookup.get(5, TimeUnit.SECONDS));
+    }
+    assertSame(first, BlockHeaderCache.get(100L));
+    assertEquals(1, fetches.get());
+    assertEquals("hash100", first.getHash());
+    executor.shutdown();
+  }
+
+  @Test
+  public void failureNotCachedTest() throws Exception {
+    AtomicInteger fetches = new AtomicInteger();
+    BlockHeaderCache.setFetcher(blockNum -> {
+      if (fetches.incrementAndGet() == 1) {
+        throw new IOException("block " + blockNum + " not found");
+      }
+      return new BlockHeaderCache.Header(blockNum, "hash", "parent", 1L);
+    });
+
+    try {
+      BlockHeaderCache.get(200L);
+      fail();
+    } catch (IOException e) {
+      assertEquals("block 200 not found", e.getMessage());
+    }
+    assertEquals("hash", BlockHeaderCache.get(200L).getHash());
+    assertEquals(2, fetches.get());
+    assertEquals(1, BlockHeaderCache.size());
+  }
+}
@@ -0,0 +1,78 @@
+package com.tron.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.tron.client.message.EventData;
+import com.tron.web.entity.EventCursor;
+import com.tron.web.service.EventCursorService;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class EventCursorStoreTest {
+
+  private final List<EventCursor> stored = new ArrayList<>();
+
+  private final EventCursorService service = new EventCursorService() {
+    @Override
+    public int batchUpsert(List<EventCursor> cursors) {
+      stored.addAll(cursors);
+      return cursors.size();
+    }
+
+    @Override
+    public List<EventCursor> getAll() {
+      return new ArrayList<>();
+    }
+  };
+
+  private static EventData event(String txId, int index, int blockNum, long timestamp) {
+    EventData eventData = new EventData();
+    eventData.setEventName("OracleRequest");
+    eventData.setTransactionId(txId);
+    eventData.setEventIndex(index);
+    eventData.setBlockNumber(blockNum);
+    eventData.setBlockTimestamp(timestamp);
+    return eventData;
+  }
+
+  @Test
+  public void advanceTest() {
+    EventCursorStore store = new EventCursorStore(service, 60000, Long.MAX_VALUE);
+    String addr = "TAdvanceTest";
+    long now = System.currentTimeMillis();
+
+    assertEquals(0, EventCursorStore.getResumeTimestamp(addr, "OracleRequest"));
+    EventCursorStore.advance(addr, event("tx1", 0, 10, now));
+
+    assertTrue(EventCursorStore.isHandled(addr, event("tx1", 0, 10, now)));
+    // another event of the same block is not handled yet
+    assertFalse(EventCursorStore.isHandled(addr, event("tx2", 0, 10, now)));
+    assertFalse(EventCursorStore.isHandled(addr, event("tx3", 0, 11, now + 3000)));
+    assertTrue(EventCursorStore.isHandled(addr, event("tx0", 0, 9, now - 3000)));
+    assertEquals(now, EventCursorStore.getResumeTimestamp(addr, "OracleRequest"));
+    assertEquals(10, EventCursorStore.getResumeBlock(addr, "OracleRequest"));
+
+    EventCursorStore.advance(addr, event("tx2", 0, 10, now));
+    EventCursorStore.flush();
+    EventCursor cursor = stored.get(stored.size() - 1);
+    assertEquals(addr, cursor.getAddress());
+    assertEquals(Long.valueOf(10), cursor.getBlockNumber());
+    assertTrue(cursor.getEventKeys().contains("tx1:0"));
+    assertTrue(cursor.getEventKeys().contains("tx2:0"));
+    store.shutdown();
+  }
+
+  @Test
+  public void catchUpBoundTest() {
+    EventCursorStore store = new EventCursorStore(service, 60000, 60000);
+    String addr = "TCatchUpBoundTest";
+    EventCursorStore.advance(addr, event("tx1", 0, 10, 1000L));
+
+    long resume = EventCursorStore.getResumeTimestamp(addr, "OracleRequest");
+    assertTrue(resume >= System.currentTimeMillis() - 60000 - 1000);
+    store.shutdown();
+  }
+}
@@ -0,0 +1,77 @@
+package com.tron.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.tron.client.message.EventData;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class EventDecoderTest {
+
+  private static String word(String hex) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = hex.length(); i < 64; i++) {
+      sb.append('0');
+    }
+    return sb.append(hex).toString();
+  }
+
+  @Test
+  public void decodeOracleRequestTest() {
+    String specId = "3761643136393831653731303466373438653135626439633238626634313732";
+    String requestId = "ab".concat(word("1").substring(2));
+    String data = word(pad("aa"))           // requester
+        + requestId
+        + word("64")                          // payment 100
+        + word(pad("bb"))                     // callbackAddr
+        + "6a9705b4" + word("").substring(8)  // callbackFunctionId
+        + word("5f5e100")                     // cancelExpiration
+        + word("1")                           // dataVersion
+        + word("100")                         // offset of data
+        + word("3")
+        + "636261" + word("").substring(6);
+
+    EventData event = EventDecoder.decode(
+        Arrays.asList(EventDecoder.topicOf("OracleRequest"), specId), data);
+
+    assertEquals("OracleRequest", event.getEventName());
+    assertEquals(specId, event.getResult().get("specId"));
+    assertEquals("0x" + pad("aa"), event.getResult().get("requester"));
+    assertEquals(requestId, event.getResult().get("requestId"));
+    assertEquals("100", event.getResult().get("payment"));
+    assertEquals("0x" + pad("bb"), event.getResult().get("callbackAddr"));
+    assertEquals("6a9705b4", event.getResult().get("callbackFunctionId"));
+    assertEquals("100000000", event.getResult().get("cancelExpiration"));
+    assertEquals("1", event.getResult().get("dataVersion"));
+    assertEquals("636261", event.getResult().get("data"));
+  }
+
+  @Test
+  public void decodeNewRoundTest() {
+    EventData event = EventDecoder.decode(
+        Arrays.asList(EventDecoder.topicOf("NewRound"), word("7"), word(pad("cc"))),
+        word("5f5e100"));
+
+    assertEquals("NewRound", event.getEventName());
+    assertEquals("7", event.getResult().get("roundId"));
+    assertEquals("0x" + pad("cc"), event.getResult().get("startedBy"));
+    assertEquals("100000000", event.getResult().get("startedAt"));
+  }
+
+  @Test
+  public void unknownEventTest() {
+    assertNull(EventDecoder.decode(Collections.singletonList(word("1")), ""));
+    assertNull(EventDecoder.topicOf("Transfer"));
+  }
+
+  /** a 20 bytes address filled with the given byte. */
+  private static String pad(String b) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      sb.append(b);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,75 @@
+package com.tron.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.tron.client.message.EventData;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class EventPollerTest {
+
+  private static final String[] EVENTS = {"OracleRequest"};
+
+  @After
+  public void tearDown() {
+    EventPoller.unregister("TPollOnce");
+    EventPoller.setFetcher(null);
+  }
+
+  @Test
+  public void adaptTest() {
+    EventPoller.Target target = new EventPoller.Target("TAdapt", EVENTS);
+    assertEquals(1000, target.getInterval());
+
+    long before = System.currentTimeMillis();
+    target.adapt(false);
+    assertEquals(2000, target.getInterval());
+    assertTrue(target.getNextPollAt() >= before + 2000);
+    target.adapt(false);
+    assertEquals(3000, target.getInterval());
+    target.adapt(false);
+    assertEquals(3000, target.getInterval());
+
+    target.adapt(true);
+    assertEquals(1000, target.getInterval());
+    target.adapt(false);
+    assertEquals(2000, target.getInterval());
+  }
+
+  @Test
+  public void onePollPerAddressTest() throws Exception {
+    AtomicInteger polls = new AtomicInteger();
+    CompletableFuture<List<EventData>> pending = new CompletableFuture<>();
+    EventPoller.setFetcher((addr, filterEvents) -> {
+      polls.incrementAndGet();
+      return pending;
+    });
+    EventPoller.register("TPollOnce", EVENTS);
+    EventPoller.Target target = EventPoller.getTarget("TPollOnce");
+    for (int i = 0; i < 50 && polls.get() == 0; i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(1, polls.get());
+    assertTrue(target.isPolling());
+
+    // due again, but its poll is still running
+    for (int i = 0; i < 5; i++) {
+      EventPoller.tick();
+    }
+    Thread.sleep(500);
+    assertEquals(1, polls.get());
+
+    pending.complete(Collections.emptyList());
+    for (int i = 0; i < 50 && target.isPolling(); i++) {
+      Thread.sleep(100);
+    }
+    assertFalse(target.isPolling());
+    assertEquals(2000, target.getInterval());
+  }
+}
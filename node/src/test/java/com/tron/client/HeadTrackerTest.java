@@ -0,0 +1,105 @@
+package com.tron.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.tron.web.entity.Head;
+import com.tron.web.service.HeadService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class HeadTrackerTest {
+
+  private final List<Head> stored = new ArrayList<>();
+  private final AtomicInteger selects = new AtomicInteger();
+  private final AtomicInteger failures = new AtomicInteger();
+
+  private final HeadService service = new HeadService() {
+    @Override
+    public int insert(Head head) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int update(Head head) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Head> getByAddress(String address) {
+      selects.incrementAndGet();
+      if ("TStoredHead".equals(address)) {
+        Head head = new Head();
+        head.setAddress(address);
+        head.setNumber(50L);
+        head.setBlockTimestamp(5000L);
+        return Collections.singletonList(head);
+      }
+      return new ArrayList<>();
+    }
+
+    @Override
+    public int batchUpsert(List<Head> heads) {
+      if (failures.getAndDecrement() > 0) {
+        throw new IllegalStateException("connection lost");
+      }
+      stored.addAll(heads);
+      return heads.size();
+    }
+  };
+
+  @Test
+  public void advanceTest() {
+    HeadTracker tracker = new HeadTracker(service, 60000);
+    String addr = "TAdvanceHead";
+
+    assertNull(HeadTracker.getHead(addr));
+    HeadTracker.advance(addr, 10, "hash10", "hash9", 1000);
+    HeadTracker.advance(addr, 12, "hash12", "hash11", 1200);
+    HeadTracker.advance(addr, 11, "hash11", "hash10", 1100);
+    HeadTracker.advance(addr, 12, "other", "hash11", 1200);
+    assertEquals(12L, (long) HeadTracker.getHead(addr).getNumber());
+    assertEquals("hash12", HeadTracker.getHead(addr).getHash());
+    assertEquals(1, selects.get());
+
+    HeadTracker.flush();
+    assertEquals(1, stored.size());
+    assertEquals("hash12", stored.get(0).getHash());
+
+    // not moved, nothing to write
+    HeadTracker.advance(addr, 12, "hash12", "hash11", 1200);
+    HeadTracker.flush();
+    assertEquals(1, stored.size());
+    tracker.shutdown();
+  }
+
+  @Test
+  public void storedHeadTest() {
+    HeadTracker tracker = new HeadTracker(service, 60000);
+    String addr = "TStoredHead";
+
+    assertEquals(5000L, (long) HeadTracker.getHead(addr).getBlockTimestamp());
+    HeadTracker.advance(addr, 40, "hash40", "hash39", 4000);
+    assertEquals(50L, (long) HeadTracker.getHead(addr).getNumber());
+    HeadTracker.flush();
+    assertEquals(0, stored.size());
+    tracker.shutdown();
+  }
+
+  @Test
+  public void flushFailureTest() {
+    HeadTracker tracker = new HeadTracker(service, 60000);
+    String addr = "TFlushFailure";
+
+    failures.set(1);
+    HeadTracker.advance(addr, 20, "hash20", "hash19", 2000);
+    HeadTracker.flush();
+    assertEquals(0, stored.size());
+    tracker.shutdown();
+    assertEquals(1, stored.size());
+    assertEquals(20L, (long) stored.get(0).getNumber());
+  }
+}
@@ -37,7 +37,17 @@ import java.util.Map;
 import static com.tron.common.Constant.FULFIL_METHOD_SIGN;
 import java.util.List;
 
+import static com.tron.common.Constant.TronTxConfirmed;
+import static com.tron.common.Constant.TronTxFatalError;
 import static com.tron.common.Constant.TronTxInProgress;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.tron.web.service.TronTxService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.mockito.ArgumentCaptor;
 
 
 public class ReSenderTest {
@@ -64,5 +74,111 @@ public class ReSenderTest {
       Assert.assertEquals(param.getValue().toString(), mapFromStr.get(param.getKey()));
     }
   }
-}
 
+  @Test
+  public void trackTest() {
+    TronTxService tronTxService = mock(TronTxService.class);
+    AtomicInteger resends = new AtomicInteger();
+    ReSender reSender = new ReSender(tronTxService, null, new ReSender.Fullnode() {
+      @Override
+      public String getTransactionInfo(String txId) {
+        switch (txId) {
+          case "ok":
+            return "{\"id\":\"ok\",\"receipt\":{\"result\":\"SUCCESS\"}}";
+          case "revert":
+            return "{\"id\":\"revert\",\"receipt\":{\"result\":\"REVERT\"}}";
+          default:
+            return "{}\n";
+        }
+      }
+
+      @Override
+      public long getBalance() {
+        return Long.MAX_VALUE;
+      }
+
+      @Override
+      public TronTx resend(TronTx tx) {
+        resends.incrementAndGet();
+        TronTx resendTx = new TronTx();
+        resendTx.setTaskRunId(tx.getTaskRunId());
+        resendTx.setSurrogateId(tx.getSurrogateId() + "-2");
+        resendTx.setSentAt(System.currentTimeMillis());
+        resendTx.setConfirmed(TronTxInProgress);
+        return resendTx;
+      }
+    }, 0, 1000, 2, 10000);
+
+    reSender.track(tx("1", "ok", TronTxInProgress));
+    reSender.track(tx("2", "revert", TronTxInProgress));
+    reSender.track(tx("3", "lost", TronTxInProgress));
+    reSender.track(tx("4", "oracle", null)); // not resent
+    reSender.track(tx("1", "ok", TronTxInProgress)); // tracked once
+    Assert.assertEquals(3, reSender.getTracked());
+
+    reSender.poll();
+    ArgumentCaptor<List<TronTx>> captor = ArgumentCaptor.forClass(List.class);
+    verify(tronTxService).batchUpdate(captor.capture());
+    List<TronTx> written = captor.getValue();
+    Assert.assertEquals(3, written.size());
+    for (TronTx tx : written) {
+      switch (tx.getTaskRunId()) {
+        case "1":
+          Assert.assertEquals(TronTxConfirmed, tx.getConfirmed().longValue());
+          break;
+        case "2":
+          Assert.assertEquals(TronTxFatalError, tx.getConfirmed().longValue());
+          break;
+        default:
+          Assert.assertEquals("lost-2", tx.getSurrogateId());
+          Assert.assertEquals(TronTxInProgress, tx.getConfirmed().longValue());
+      }
+    }
+    Assert.assertEquals(1, resends.get());
+    // the resent tx is checked again
+    Assert.assertEquals(1, reSender.getTracked());
+    reSender.shutdown();
+  }
+
+  @Test
+  public void insufficientBalanceTest() {
+    new Config().setMinFeeLimit(10000000L);
+    TronTxService tronTxService = mock(TronTxService.class);
+    AtomicInteger balanceCalls = new AtomicInteger();
+    ReSender reSender = new ReSender(tronTxService, null, new ReSender.Fullnode() {
+      @Override
+      public String getTransactionInfo(String txId) {
+        return "{}";
+      }
+
+      @Override
+      public long getBalance() {
+        balanceCalls.incrementAndGet();
+        return 0;
+      }
+
+      @Override
+      public TronTx resend(TronTx tx) {
+        throw new AssertionError("resent without balance");
+      }
+    }, 0, 1000, 2, 60000);
+
+    reSender.track(tx("1", "a", TronTxInProgress));
+    reSender.track(tx("2", "b", TronTxInProgress));
+    reSender.poll();
+    verify(tronTxService, never()).batchUpdate(anyList());
+    // the balance is cached
+    Assert.assertEquals(1, balanceCalls.get());
+    Assert.assertEquals(2, reSender.getTracked());
+    reSender.shutdown();
+  }
+
+  private static TronTx tx(String taskRunId, String txId, Long confirmed) {
+    TronTx tx = new TronTx();
+    tx.setTaskRunId(taskRunId);
+    tx.setSurrogateId(txId);
+    tx.setSentAt(System.currentTimeMillis());
+    tx.setConfirmed(confirmed);
+    return tx;
+  }
+}
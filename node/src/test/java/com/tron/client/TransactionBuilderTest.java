@@ -0,0 +1,55 @@
+package com.tron.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+import org.tron.protos.Protocol;
+
+public class TransactionBuilderTest {
+
+  @Test
+  public void testParseRefBlock() {
+    String response = "{\"blockID\":\"0000000001a2b3c41122334455667788"
+        + "99aabbccddeeff001122334455667788\",\"block_header\":{\"raw_data\":"
+        + "{\"number\":27440068,\"timestamp\":1600000000000}}}";
+    TransactionBuilder.RefBlock ref = TransactionBuilder.parseRefBlock(response);
+    assertEquals(27440068L, ref.number);
+    assertArrayEquals(Hex.decode("b3c4"), ref.bytes.toByteArray());
+    assertArrayEquals(Hex.decode("1122334455667788"), ref.hash.toByteArray());
+  }
+
+  @Test
+  public void testBuildTrigger() {
+    Map<String, Object> params = new HashMap<>();
+    params.put("owner_address", "TYWY6L4mECH2Gtiq3sg4zY4fvD1XZpwGrb");
+    params.put("contract_address", "TR7NHqjeKQxGTCi8q8ZY4pL8otSzgjLj6t");
+    params.put("function_selector", "transfer(address,uint256)");
+    params.put("parameter", "000000000000000000000000f73f992b2f5124ec02864d7d637bae8c237d4f95"
+        + "00000000000000000000000000000000000000000000000000000000000f4240");
+    params.put("fee_limit", 50000000L);
+    params.put("call_value", 0);
+    TransactionBuilder.RefBlock ref = TransactionBuilder.parseRefBlock(
+        "{\"blockID\":\"0000000001a2b3c4112233445566778899aabbccddeeff001122334455667788\","
+            + "\"block_header\":{\"raw_data\":{\"number\":27440068}}}");
+
+    Protocol.Transaction.raw raw = TransactionBuilder.build(params, ref, 1600000000000L);
+    // raw_data_hex as /wallet/triggersmartcontract encodes it, assembled field by field
+    assertEquals("0a02b3c42208112233445566778840e0d4bdbbc82e5aae01081f12a9010a31747970652e676f6f67"
+        + "6c65617069732e636f6d2f70726f746f636f6c2e54726967676572536d617274436f6e7472616374"
+        + "12740a1541f73f992b2f5124ec02864d7d637bae8c237d4f95121541a614f803b6fd780986a42c78"
+        + "ec9c7f77e6ded13c2244a9059cbb000000000000000000000000f73f992b2f5124ec02864d7d637b"
+        + "ae8c237d4f9500000000000000000000000000000000000000000000000000000000000f42407080"
+        + "80babbc82e900180e1eb17", Hex.toHexString(raw.toByteArray()));
+  }
+
+  @Test
+  public void testParseEmptyResponse() {
+    assertNull(TransactionBuilder.parseRefBlock(""));
+    assertNull(TransactionBuilder.parseRefBlock("{}"));
+  }
+}
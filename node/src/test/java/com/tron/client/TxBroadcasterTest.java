@@ -0,0 +1,102 @@
+package com.tron.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.tron.client.message.BroadCastResponse;
+import com.tron.job.JobRunWriter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class TxBroadcasterTest {
+
+  private final JobRunWriter jobRunWriter = mock(JobRunWriter.class);
+
+  @Test
+  public void testRetryUntilSent() throws Exception {
+    Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    CountDownLatch sent = new CountDownLatch(2);
+    TxBroadcaster broadcaster = new TxBroadcaster((host, signedTx) -> {
+      int attempt = attempts.computeIfAbsent(signedTx, k -> new AtomicInteger()).incrementAndGet();
+      if ("busy".equals(signedTx) && attempt < 3) {
+        return response(false, "SERVER_BUSY");
+      }
+      if ("lost".equals(signedTx) && attempt == 1) {
+        throw new IOException("read timed out");
+      }
+      sent.countDown();
+      return response(attempt == 1, attempt == 1 ? null : "DUP_TRANSACTION_ERROR");
+    }, jobRunWriter, 2, 100, 1000, 3, 10);
+
+    assertTrue(broadcaster.submit("1", "busy"));
+    assertTrue(broadcaster.submit("2", "lost"));
+    assertTrue(sent.await(5, TimeUnit.SECONDS));
+    assertEquals(3, attempts.get("busy").get());
+    assertEquals(2, attempts.get("lost").get());
+    verify(jobRunWriter, never()).failTx("1");
+    verify(jobRunWriter, never()).failTx("2");
+    broadcaster.shutdown();
+  }
+
+  @Test
+  public void testNoRetryOnRefusal() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    TxBroadcaster broadcaster = new TxBroadcaster((host, signedTx) -> {
+      attempts.incrementAndGet();
+      return response(false, "CONTRACT_VALIDATE_ERROR");
+    }, jobRunWriter, 1, 100, 1000, 3, 10);
+
+    broadcaster.submit("1", "tx");
+    Thread.sleep(300);
+    assertEquals(1, attempts.get());
+    verify(jobRunWriter).failTx("1");
+    broadcaster.shutdown();
+  }
+
+  @Test
+  public void testFailedAfterRetries() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    TxBroadcaster broadcaster = new TxBroadcaster((host, signedTx) -> {
+      attempts.incrementAndGet();
+      throw new IOException("connection refused");
+    }, jobRunWriter, 1, 100, 1000, 2, 10);
+
+    broadcaster.submit("1", "tx");
+    verify(jobRunWriter, timeout(5000)).failTx("1");
+    assertEquals(3, attempts.get());
+    broadcaster.shutdown();
+  }
+
+  @Test
+  public void testQueueFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    TxBroadcaster broadcaster = new TxBroadcaster((host, signedTx) -> {
+      release.await();
+      return response(true, null);
+    }, jobRunWriter, 1, 1, 1000, 3, 10);
+
+    assertTrue(broadcaster.submit("1", "tx1"));
+    Thread.sleep(100);
+    assertTrue(broadcaster.submit("2", "tx2"));
+    assertFalse(broadcaster.submit("3", "tx3"));
+    release.countDown();
+    broadcaster.shutdown();
+  }
+
+  private static BroadCastResponse response(boolean result, String code) {
+    BroadCastResponse response = new BroadCastResponse();
+    response.setResult(result);
+    response.setCode(code);
+    return response;
+  }
+}
@@ -0,0 +1,60 @@
+package com.tron.common.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import org.junit.Test;
+
+public class JsonPathTest {
+
+  private static final String TICKER = "{\"BTC_TRX\":{\"last\":\"1000.5\",\"bids\":[[1,2],[3,4]]},"
+      + "\"USDT_TRX\":{\"id\":1,\"last\":\"0.0251\",\"info\":{\"vol\":12}}}";
+
+  @Test
+  public void testReadDouble() throws IOException {
+    assertEquals(0.0251, JsonPath.compile("USDT_TRX.last").readDouble(TICKER), 0);
+    assertEquals(12, JsonPath.compile("USDT_TRX.info.vol").readDouble(TICKER), 0);
+    assertEquals(3, JsonPath.compile("BTC_TRX.bids.1.0").readDouble(TICKER), 0);
+    assertEquals(7, JsonPath.compile("0.price").readDouble("[{\"price\":7}]"), 0);
+    assertEquals(5, JsonPath.compile("data.0").readDouble("{\"data\":{\"0\":5}}"), 0);
+  }
+
+  @Test
+  public void testNotFound() {
+    assertNotFound("USDT_TRX.high", TICKER);
+    assertNotFound("BTC_TRX.bids.2.0", TICKER);
+    assertNotFound("BTC_TRX.bids.x", TICKER);
+    assertNotFound("BTC_TRX", TICKER);
+    assertNotFound("USDT_TRX.last.value", TICKER);
+    assertNotFound("a", "{\"a\":\"abc\"}");
+  }
+
+  @Test
+  public void testMalformed() {
+    assertMalformed("a", "{\"a\":");
+    assertMalformed("a", "<html>429 Too Many Requests</html>");
+  }
+
+  private static void assertMalformed(String path, String json) {
+    try {
+      JsonPath.compile(path).readDouble(json);
+      fail(path);
+    } catch (JsonPath.PathNotFoundException e) {
+      fail(path + " " + e.getMessage());
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  private static void assertNotFound(String path, String json) {
+    try {
+      JsonPath.compile(path).readDouble(json);
+      fail(path);
+    } catch (JsonPath.PathNotFoundException e) {
+      // expected
+    } catch (IOException e) {
+      fail(path + " " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.tron.common.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.tron.common.Config;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class PriceCacheTest {
+
+  @Test
+  public void testValueIsReused() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    for (int i = 0; i < 3; i++) {
+      assertEquals("1.5", PriceCache.get("reuse", () -> {
+        loads.incrementAndGet();
+        return "1.5";
+      }));
+    }
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testConcurrentLoadsAreCoalesced() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<CompletableFuture<Double>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return PriceCache.get("coalesce", () -> {
+            loads.incrementAndGet();
+            release.await();
+            return 2.0;
+          });
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }, executor));
+    }
+    Thread.sleep(200);
+    release.countDown();
+    for (CompletableFuture<Double> future : futures) {
+      assertEquals(2.0, future.get(), 0);
+    }
+    assertEquals(1, loads.get());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testFailedLoad() throws Exception {
+    try {
+      PriceCache.get("missing", () -> null);
+      fail();
+    } catch (IOException e) {
+      // nothing to fall back to
+    }
+
+    PriceCache.get("stale", () -> 3.0);
+    PriceCache.invalidate("stale");
+    try {
+      PriceCache.get("stale", () -> {
+        throw new IOException("request failed");
+      });
+      fail();
+    } catch (IOException e) {
+      assertEquals("request failed", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testExpiredValueIsUsedWhenLoadFails() throws Exception {
+    Config config = new Config();
+    config.setPriceCacheTtl(0);
+    try {
+      PriceCache.get("expired", () -> 4.0);
+      double value = PriceCache.get("expired", () -> {
+        throw new IOException("request failed");
+      });
+      assertEquals(4.0, value, 0);
+    } finally {
+      config.setPriceCacheTtl(1000);
+    }
+  }
+}
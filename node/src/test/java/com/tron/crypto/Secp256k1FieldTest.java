@@ -0,0 +1,49 @@
+package com.tron.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import org.junit.Test;
+
+public class Secp256k1FieldTest {
+
+  private static final BigInteger P = VRF.fieldSize;
+  private static final BigInteger EULER_POWER = P.subtract(BigInteger.ONE).shiftRight(1);
+  private static final BigInteger SQRT_POWER = P.add(BigInteger.ONE).shiftRight(2);
+
+  @Test
+  public void testSameAsModPow() {
+    SecureRandom random = new SecureRandom();
+    BigInteger[] edges = {BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(4),
+        BigInteger.valueOf(5), P.subtract(BigInteger.ONE), P, P.add(BigInteger.valueOf(4)),
+        BigInteger.valueOf(-4)};
+    for (BigInteger x : edges) {
+      assertSameAsModPow(x);
+    }
+    for (int i = 0; i < 2000; i++) {
+      assertSameAsModPow(new BigInteger(256, random));
+    }
+  }
+
+  private static void assertSameAsModPow(BigInteger x) {
+    BigInteger ySquare = x.modPow(BigInteger.valueOf(3), P).add(BigInteger.valueOf(7)).mod(P);
+    assertEquals(ySquare, Secp256k1Field.ySquare(x));
+    assertEquals(x.modPow(SQRT_POWER, P), Secp256k1Field.squareRoot(x));
+    boolean square = x.modPow(EULER_POWER, P).equals(BigInteger.ONE);
+    assertEquals(square, Secp256k1Field.isSquare(x));
+    BigInteger y = Secp256k1Field.curveY(x);
+    if (ySquare.modPow(EULER_POWER, P).equals(BigInteger.ONE)) {
+      assertEquals(ySquare.modPow(SQRT_POWER, P), y);
+    } else {
+      assertEquals(null, y);
+    }
+  }
+
+  @Test
+  public void testNotSquare() {
+    // -1 is not a square as p = 3 mod 4
+    assertFalse(Secp256k1Field.isSquare(P.subtract(BigInteger.ONE)));
+  }
+}
@@ -0,0 +1,56 @@
+package com.tron.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.tron.common.Config;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import org.junit.Test;
+
+public class VRFEngineTest {
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private static BigInteger randomScalar() {
+    BigInteger a;
+    do {
+      a = new BigInteger(VRF.groupOrder.bitLength(), RANDOM);
+    } while (a.compareTo(VRF.groupOrder) >= 0 || a.signum() == 0);
+    return a;
+  }
+
+  @Test
+  public void testSameProofAsVrf() throws Exception {
+    new Config().setVrfSelfVerify(true);
+    for (int i = 0; i < 20; i++) {
+      String privateKey = randomScalar().toString(16);
+      BigInteger seed = new BigInteger(256, RANDOM);
+      BigInteger nonce = randomScalar();
+
+      VRF vrf = new VRF(privateKey);
+      Proof proof = vrf.generateProofWithNonce(new BigInteger(privateKey, 16), seed, nonce);
+      byte[] expected = vrf.marshalForSolidityVerifier(vrf.solidityPrecalculations(proof));
+
+      VRFEngine engine = VRFEngine.forKey(privateKey);
+      byte[] actual = vrf.marshalForSolidityVerifier(engine.prove(seed, nonce));
+      assertArrayEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void testProve() throws Exception {
+    new Config().setVrfSelfVerify(false);
+    String privateKey = randomScalar().toString(16);
+    VRFEngine engine = VRFEngine.forKey(privateKey);
+    byte[] seed = new byte[32];
+    RANDOM.nextBytes(seed);
+
+    byte[] marshaledProof = engine.prove(seed);
+    assertEquals(VRF.ProofLength, marshaledProof.length);
+    Proof proof = engine.getVrf().unmarshalSolidityProof(marshaledProof);
+    assertEquals(new BigInteger(1, seed), proof.getSeed());
+    assertTrue(engine.getVrf().verifyVRFProof(proof));
+  }
+}
@@ -1,7 +1,6 @@
 package com.tron.job;
 
 import com.tron.job.adapters.ConvertUsdAdapter;
-import com.tron.web.common.util.R;
 import com.tron.web.mapper.InitiatorMapper;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -20,11 +19,11 @@ public class ConvertUsdAdapterTest {
 
   @Test
   public void convertUsdTest() {
-    R input = new R();
-    input.put("result", 20000L);
-    R output = convertUsdAdapter.perform(input);
-    System.out.println(output);
-    assert 0 == (Integer) output.get("code");
-    assert 20000L == (Long) output.get("result");
+    RunContext context = new RunContext("", null);
+    context.setResult(20000L);
+    convertUsdAdapter.perform(context);
+    System.out.println(context);
+    assert 0 == context.getCode();
+    assert 20000L == context.getLongResult();
   }
 }
@@ -1,8 +1,12 @@
 package com.tron.job;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.tron.common.util.PriceCache;
 import com.tron.job.adapters.ConvertUsdAdapter;
 import com.tron.job.adapters.HttpGetAdapter;
-import com.tron.web.common.util.R;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 
 public class HttpGetAdapterTest {
@@ -10,8 +14,28 @@ public class HttpGetAdapterTest {
   public void requestTest() {
     String url = "https://poloniex.com/public?command=returnTicker";
     HttpGetAdapter httpGetAdapter = new HttpGetAdapter(url, "USDT_TRX.last");
-    R input = new R();
-    R output = httpGetAdapter.perform(input);
-    System.out.println(output);
+    RunContext context = new RunContext("", null);
+    httpGetAdapter.perform(context);
+    System.out.println(context);
+  }
+
+  @Test
+  public void missingPathKeepsCachedResponseTest() throws Exception {
+    String url = "https://example.invalid/ticker";
+    AtomicInteger loads = new AtomicInteger();
+    PriceCache.get(url, () -> {
+      loads.incrementAndGet();
+      return "{\"USDT_TRX\":{\"last\":\"0.0251\"}}";
+    });
+
+    RunContext context = new RunContext("", null);
+    new HttpGetAdapter(url, "USDT_TRX.high").perform(context);
+    assertFalse(context.isOk());
+
+    // the response is still served to the jobs reading another path
+    context = new RunContext("", null);
+    new HttpGetAdapter(url, "USDT_TRX.last").perform(context);
+    assertEquals(0.0251, context.getNumericResult(), 0);
+    assertEquals(1, loads.get());
   }
 }
@@ -0,0 +1,65 @@
+package com.tron.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.when;
+
+import com.tron.common.Constant;
+import com.tron.web.entity.JobSpec;
+import com.tron.web.entity.TaskSpec;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobCompilerTest {
+
+  @InjectMocks
+  private JobCompiler jobCompiler;
+
+  @Mock
+  private JobSpecRegistry jobSpecRegistry;
+
+  private JobSpec jobSpec;
+
+  private static TaskSpec task(long id, String type, String params) {
+    TaskSpec taskSpec = new TaskSpec();
+    taskSpec.setId(id);
+    taskSpec.setType(type);
+    taskSpec.setParams(params);
+    return taskSpec;
+  }
+
+  @Before
+  public void setUp() {
+    jobSpec = new JobSpec();
+    jobSpec.setId("job1");
+    jobSpec.setTaskSpecs(Arrays.asList(
+        task(1, Constant.TASK_TYPE_HTTP_GET, "{\"get\":\"https://a.b/price\",\"path\":\"price\"}"),
+        task(2, Constant.TASK_TYPE_MULTIPLY, "{\"times\":1000000}")));
+    when(jobSpecRegistry.getJob("job1")).thenReturn(jobSpec);
+  }
+
+  @Test
+  public void reuseTest() {
+    JobPipeline pipeline = jobCompiler.getPipeline("job1");
+    assertEquals(2, pipeline.getStages().size());
+    assertEquals(Constant.TASK_TYPE_MULTIPLY,
+        pipeline.getStage(2L).getAdapter().taskType());
+    assertSame(pipeline, jobCompiler.getPipeline("job1"));
+
+    jobCompiler.onJobDeleted(jobSpec);
+    assertNotSame(pipeline, jobCompiler.getPipeline("job1"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unsupportedTaskTest() {
+    jobSpec.setTaskSpecs(Arrays.asList(task(3, Constant.TASK_TYPE_HTTP_POST, "{}")));
+    jobCompiler.getPipeline("job1");
+  }
+}
@@ -0,0 +1,153 @@
+package com.tron.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class JobRunExecutorTest {
+
+  @Test
+  public void priorityTest() throws Exception {
+    JobRunExecutor executor = new JobRunExecutor(1, 10, 10, "abort", 5, false, 0);
+    CountDownLatch block = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(4);
+    List<String> order = new CopyOnWriteArrayList<>();
+
+    executor.submit("job", JobRunExecutor.Priority.ROUND, () -> await(block));
+    executor.submit("job", JobRunExecutor.Priority.ROUND, record(order, "round", done));
+    executor.submit("job", JobRunExecutor.Priority.FULFIL, record(order, "fulfil", done));
+    executor.submit("job", JobRunExecutor.Priority.VRF, record(order, "vrf", done));
+    executor.submit("job", JobRunExecutor.Priority.VRF, record(order, "vrf2", done));
+    block.countDown();
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals("[vrf, vrf2, fulfil, round]", order.toString());
+    executor.shutdown();
+  }
+
+  @Test
+  public void rejectTest() throws Exception {
+    JobRunExecutor executor = new JobRunExecutor(1, 2, 10, "abort", 5, false, 0);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch block = new CountDownLatch(1);
+
+    assertTrue(executor.submit("job", JobRunExecutor.Priority.FULFIL, () -> {
+      started.countDown();
+      await(block);
+    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertTrue(executor.submit("job", JobRunExecutor.Priority.FULFIL, () -> { }));
+    assertTrue(executor.submit("job", JobRunExecutor.Priority.FULFIL, () -> { }));
+    assertFalse(executor.submit("job", JobRunExecutor.Priority.FULFIL, () -> { }));
+    block.countDown();
+    executor.shutdown();
+
+    JobRunExecutor callerRuns = new JobRunExecutor(1, 0, 10, "callerRuns", 5, false, 0);
+    Thread[] ran = new Thread[1];
+    assertTrue(callerRuns.submit("job", JobRunExecutor.Priority.FULFIL,
+        () -> ran[0] = Thread.currentThread()));
+    assertEquals(Thread.currentThread(), ran[0]);
+    callerRuns.shutdown();
+  }
+
+  @Test
+  public void perJobLimitTest() throws Exception {
+    JobRunExecutor executor = new JobRunExecutor(4, 100, 1, "abort", 5, false, 0);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(8);
+
+    for (int i = 0; i < 8; i++) {
+      executor.submit("job", JobRunExecutor.Priority.FULFIL, () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        sleep(10);
+        running.decrementAndGet();
+        done.countDown();
+      });
+    }
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(1, maxRunning.get());
+    assertEquals(0, executor.getQueueDepth());
+    executor.shutdown();
+  }
+
+  @Test
+  public void callerRunsPerJobLimitTest() throws Exception {
+    JobRunExecutor executor = new JobRunExecutor(2, 0, 1, "callerRuns", 5, false, 0);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch block = new CountDownLatch(1);
+    Thread caller = new Thread(() -> executor.submit("job", JobRunExecutor.Priority.FULFIL,
+        () -> {
+          started.countDown();
+          await(block);
+        }));
+    caller.start();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    // the queue is full and the job has no free slot
+    assertFalse(executor.submit("job", JobRunExecutor.Priority.FULFIL, () -> { }));
+    AtomicInteger ran = new AtomicInteger();
+    assertTrue(executor.submit("other", JobRunExecutor.Priority.FULFIL, ran::incrementAndGet));
+    assertEquals(1, ran.get());
+
+    block.countDown();
+    caller.join(5000);
+    assertTrue(executor.submit("job", JobRunExecutor.Priority.FULFIL, ran::incrementAndGet));
+    assertEquals(2, ran.get());
+    assertEquals(0, executor.getQueueDepth());
+    executor.shutdown();
+  }
+
+  @Test
+  public void shutdownDrainsWaitingRunsTest() throws Exception {
+    JobRunExecutor executor = new JobRunExecutor(2, 100, 1, "abort", 5, false, 0);
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicInteger ran = new AtomicInteger();
+
+    executor.submit("job", JobRunExecutor.Priority.FULFIL, () -> {
+      started.countDown();
+      sleep(100);
+      ran.incrementAndGet();
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < 3; i++) {
+      executor.submit("job", JobRunExecutor.Priority.FULFIL, ran::incrementAndGet);
+    }
+    executor.shutdown();
+
+    assertEquals(4, ran.get());
+    assertEquals(0, executor.getQueueDepth());
+    assertFalse(executor.submit("job", JobRunExecutor.Priority.FULFIL, () -> { }));
+  }
+
+  private static Runnable record(List<String> order, String name, CountDownLatch done) {
+    return () -> {
+      order.add(name);
+      done.countDown();
+    };
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
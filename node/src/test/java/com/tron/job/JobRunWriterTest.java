@@ -0,0 +1,183 @@
+package com.tron.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.tron.common.Constant;
+import com.tron.web.entity.JobRun;
+import com.tron.web.entity.TaskRun;
+import com.tron.web.entity.TronTx;
+import com.tron.web.service.JobRunsService;
+import com.tron.web.service.TronTxService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+public class JobRunWriterTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private JobRunsService jobRunsService;
+  private TronTxService tronTxService;
+  private JobRunWriter writer;
+
+  @Before
+  public void setUp() throws Exception {
+    jobRunsService = mock(JobRunsService.class);
+    tronTxService = mock(TronTxService.class);
+    writer = newWriter();
+  }
+
+  @After
+  public void tearDown() {
+    writer.shutdown();
+  }
+
+  private JobRunWriter newWriter() throws Exception {
+    return new JobRunWriter(jobRunsService, tronTxService, 3600000L, 500,
+        folder.getRoot().getAbsolutePath(), false, 2);
+  }
+
+  private static JobRun jobRun(String id) {
+    JobRun jobRun = new JobRun();
+    jobRun.setId(id);
+    jobRun.setStatus(1);
+    return jobRun;
+  }
+
+  private static TaskRun taskRun(String id, String jobRunId) {
+    TaskRun taskRun = new TaskRun();
+    taskRun.setId(id);
+    taskRun.setJobRunID(jobRunId);
+    return taskRun;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void coalesceTest() {
+    JobRun jobRun = jobRun("run1");
+    TaskRun taskRun = taskRun("task1", "run1");
+    writer.insert(jobRun, Collections.singletonList(taskRun));
+    writer.updateTaskResult(taskRun, 2, "100", null);
+    writer.updateJobResult(jobRun, 2, null, null);
+    TronTx tx = new TronTx();
+    tx.setSurrogateId("tx1");
+    writer.insertTx(tx);
+    assertEquals(3, writer.getPending());
+
+    writer.flush();
+
+    ArgumentCaptor<List<JobRun>> jobRuns = ArgumentCaptor.forClass(List.class);
+    verify(jobRunsService, times(1)).batchUpsert(jobRuns.capture());
+    assertEquals(1, jobRuns.getValue().size());
+    assertEquals(2, jobRuns.getValue().get(0).getStatus());
+    ArgumentCaptor<List<TaskRun>> taskRuns = ArgumentCaptor.forClass(List.class);
+    verify(jobRunsService, times(1)).batchUpsertTaskRuns(taskRuns.capture());
+    assertEquals("100", taskRuns.getValue().get(0).getResult());
+    verify(tronTxService, times(1)).batchInsert(anyList());
+    assertEquals(0, writer.getPending());
+  }
+
+  @Test
+  public void retryTest() {
+    doThrow(new DataAccessResourceFailureException("db down"))
+        .when(jobRunsService).batchUpsert(anyList());
+    writer.insert(jobRun("run1"), Collections.singletonList(taskRun("task1", "run1")));
+    writer.flush();
+    assertEquals(2, writer.getPending());
+    verify(jobRunsService, never()).batchUpsertTaskRuns(anyList());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void badRowTest() throws Exception {
+    List<String> written = new ArrayList<>();
+    doAnswer(invocation -> {
+      List<JobRun> rows = invocation.getArgument(0);
+      for (JobRun row : rows) {
+        if ("bad".equals(row.getId())) {
+          throw new DataIntegrityViolationException("Data too long for column 'error'");
+        }
+      }
+      rows.forEach(row -> written.add(row.getId()));
+      return rows.size();
+    }).when(jobRunsService).batchUpsert(anyList());
+
+    writer.insert(jobRun("bad"), Collections.emptyList());
+    writer.insert(jobRun("run1"), Collections.singletonList(taskRun("task1", "run1")));
+    writer.flush();
+    assertEquals("[run1]", written.toString());
+    verify(jobRunsService, times(1)).batchUpsertTaskRuns(anyList());
+    // the bad row waits for the next flush, also after a restart
+    assertEquals(1, writer.getPending());
+    assertEquals(1, newWriter().getPending());
+
+    writer.insert(jobRun("run2"), Collections.emptyList());
+    writer.flush();
+    assertEquals("[run1, run2]", written.toString());
+    // dropped after maxRetries
+    assertEquals(0, writer.getPending());
+    assertEquals(0, newWriter().getPending());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void failTxTest() throws Exception {
+    TronTx pending = new TronTx();
+    pending.setSurrogateId("tx1");
+    pending.setConfirmed(Constant.TronTxInProgress);
+    writer.insertTx(pending);
+    writer.failTx("tx1");
+    // failed before its row is written
+    writer.failTx("tx2");
+    TronTx late = new TronTx();
+    late.setSurrogateId("tx2");
+    writer.insertTx(late);
+    assertEquals(Constant.TronTxInProgress, (long) pending.getConfirmed());
+
+    newWriter().flush();
+    ArgumentCaptor<List<TronTx>> txes = ArgumentCaptor.forClass(List.class);
+    verify(tronTxService, times(1)).batchInsert(txes.capture());
+    assertEquals(2, txes.getValue().size());
+    for (TronTx tx : txes.getValue()) {
+      assertEquals(Constant.TronTxFatalError, (long) tx.getConfirmed());
+    }
+    verify(tronTxService, times(1))
+        .batchUpdateConfirmed(Constant.TronTxFatalError, Arrays.asList("tx1", "tx2"));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void replayTest() throws Exception {
+    JobRun jobRun = jobRun("run1");
+    writer.insert(jobRun, Collections.singletonList(taskRun("task1", "run1")));
+    writer.updateJobResult(jobRun, 3, null, "failed");
+
+    // crash before the flush
+    JobRunWriter restarted = newWriter();
+    assertEquals(2, restarted.getPending());
+    restarted.flush();
+    ArgumentCaptor<List<JobRun>> jobRuns = ArgumentCaptor.forClass(List.class);
+    verify(jobRunsService, times(1)).batchUpsert(jobRuns.capture());
+    assertEquals("failed", jobRuns.getValue().get(0).getError());
+
+    // the flushed records are not replayed again
+    assertEquals(0, newWriter().getPending());
+  }
+}
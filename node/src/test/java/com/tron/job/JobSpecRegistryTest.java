@@ -0,0 +1,108 @@
+package com.tron.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.tron.web.entity.Initiator;
+import com.tron.web.entity.JobSpec;
+import com.tron.web.entity.TaskSpec;
+import com.tron.web.service.JobSpecsService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobSpecRegistryTest {
+
+  @InjectMocks
+  private JobSpecRegistry registry;
+
+  @Mock
+  private JobSpecsService jobSpecsService;
+
+  private static JobSpec job(String id, long initiatorId, long taskId) {
+    Initiator initiator = new Initiator();
+    initiator.setId(initiatorId);
+    initiator.setJobSpecID(id);
+    initiator.setAddress("TAddress");
+    TaskSpec taskSpec = new TaskSpec();
+    taskSpec.setId(taskId);
+    taskSpec.setJobSpecID(id);
+    JobSpec jobSpec = new JobSpec();
+    jobSpec.setId(id);
+    jobSpec.setInitiators(Collections.singletonList(initiator));
+    jobSpec.setTaskSpecs(Collections.singletonList(taskSpec));
+    return jobSpec;
+  }
+
+  @Before
+  public void setUp() {
+    JobSpec job1 = job("job1", 1, 11);
+    List<JobSpec> all = new ArrayList<>();
+    all.add(new JobSpec("job1", null, null, null, null, null, null, null, null, null));
+    when(jobSpecsService.getAllJob()).thenReturn(all);
+    when(jobSpecsService.getInitiatorsByJobId("job1")).thenReturn(job1.getInitiators());
+    when(jobSpecsService.getTasksByJobId("job1")).thenReturn(job1.getTaskSpecs());
+  }
+
+  @Test
+  public void lookupTest() {
+    assertEquals("job1", registry.getJob("job1").getId());
+    assertEquals("job1", registry.getTask(11L).getJobSpecID());
+    assertEquals("job1", registry.getInitiatorByAddress("TAddress").getJobSpecID());
+    assertNull(registry.getJob("job2"));
+    // loaded once
+    registry.getJob("job1");
+    verify(jobSpecsService, times(1)).getAllJob();
+  }
+
+  @Test
+  public void refreshTest() {
+    List<String> events = new ArrayList<>();
+    registry.addListener(new JobSpecRegistry.Listener() {
+      @Override
+      public void onJobAdded(JobSpec jobSpec) {
+        events.add("added " + jobSpec.getId());
+      }
+
+      @Override
+      public void onJobDeleted(JobSpec jobSpec) {
+        events.add("deleted " + jobSpec.getId());
+      }
+    });
+    registry.getJob("job1");
+
+    JobSpec job2 = job("job2", 2, 22);
+    when(jobSpecsService.getById("job2")).thenReturn(job2);
+    registry.refresh("job2");
+    // the address moves to the latest initiator
+    assertEquals("job2", registry.getInitiatorByAddress("TAddress").getJobSpecID());
+    assertEquals(2, registry.getActiveJobs().size());
+
+    JobSpec deleted = job("job2", 2, 22);
+    deleted.setDeletedAt(new Date());
+    when(jobSpecsService.getById("job2")).thenReturn(deleted);
+    registry.refresh("job2");
+    assertTrue(registry.getJob("job2").archived());
+    assertEquals(1, registry.getActiveJobs().size());
+
+    assertEquals("[added job2, deleted job2]", events.toString());
+
+    // unknown jobs are ignored
+    registry.refresh("job3");
+    assertNull(registry.getJob("job3"));
+    assertEquals(1, registry.getActiveJobs().size());
+    assertEquals(2, events.size());
+  }
+}
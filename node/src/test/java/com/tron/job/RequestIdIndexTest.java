@@ -0,0 +1,49 @@
+package com.tron.job;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.tron.web.service.JobRunsService;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.Test;
+
+public class RequestIdIndexTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void lookupTest() {
+    JobRunsService jobRunsService = mock(JobRunsService.class);
+    doAnswer(invocation -> {
+      ResultHandler<String> handler = invocation.getArgument(1);
+      ResultContext<String> context = mock(ResultContext.class);
+      when(context.getResultObject()).thenReturn("stored");
+      handler.handleResult(context);
+      return null;
+    }).when(jobRunsService).scanRequestIds(any(), any());
+    when(jobRunsService.getByRequestId("stored")).thenReturn("run1");
+
+    RequestIdIndex index = new RequestIdIndex(jobRunsService, 1000, 0.001, 100, 30);
+    index.warmUp();
+
+    // unknown ids are answered by the bloom filter alone
+    assertFalse(index.isDuplicate("new"));
+    verify(jobRunsService, never()).getByRequestId(anyString());
+
+    // warmed up ids are confirmed once by the db, then by the recent cache
+    assertTrue(index.isDuplicate("stored"));
+    assertTrue(index.isDuplicate("stored"));
+    verify(jobRunsService).getByRequestId("stored");
+
+    index.add("added");
+    assertTrue(index.isDuplicate("added"));
+    verify(jobRunsService, never()).getByRequestId("added");
+  }
+}
@@ -0,0 +1,55 @@
+package com.tron.job;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class RollingWindowTest {
+
+  @Test
+  public void testWindow() {
+    RollingWindow window = new RollingWindow(3, 60000);
+    assertNull(window.average());
+    assertNull(window.median());
+
+    window.add(10);
+    window.add(40);
+    assertEquals(25L, (long) window.average());
+    assertEquals(25L, (long) window.median());
+
+    window.add(20);
+    window.add(100);
+    assertArrayEquals(new long[] {40, 20, 100}, window.values());
+    assertEquals(53L, (long) window.average());
+    assertEquals(40L, (long) window.median());
+  }
+
+  @Test
+  public void testExpire() throws InterruptedException {
+    RollingWindow window = new RollingWindow(3, 50);
+    window.add(10);
+    Thread.sleep(100);
+    assertEquals(0, window.size());
+    window.add(20);
+    assertArrayEquals(new long[] {20}, window.values());
+  }
+
+  @Test
+  public void testConcurrentAdd() throws InterruptedException {
+    RollingWindow window = new RollingWindow(5, 60000);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int i = 0; i < 10000; i++) {
+      executor.execute(() -> window.add(7));
+    }
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    assertEquals(5, window.size());
+    assertEquals(7L, (long) window.average());
+    assertEquals(7L, (long) window.median());
+  }
+}
@@ -0,0 +1,50 @@
+package com.tron.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import com.tron.client.RoundEventRequest;
+import com.tron.job.adapters.MultiplyAdapter;
+import com.tron.job.adapters.ReciprocalAdapter;
+import org.junit.Test;
+
+public class RunContextTest {
+
+  @Test
+  public void chainTest() {
+    RunContext context = new RunContext("run1", null);
+    context.setResult(4.0);
+    new ReciprocalAdapter().perform(context);
+    new MultiplyAdapter(1000000L).perform(context);
+
+    assertEquals(0, context.getCode());
+    assertEquals(RunContext.ResultType.LONG, context.getResultType());
+    assertEquals(250000L, context.getLongResult());
+    assertEquals("250000", context.resultToString());
+  }
+
+  @Test
+  public void failKeepsResultTest() {
+    RunContext context = new RunContext("run1", null);
+    context.setResult(5L);
+    // multiply expects a decimal result
+    new MultiplyAdapter(10L).perform(context);
+
+    assertFalse(context.isOk());
+    assertEquals("multiply failed", context.getMsg());
+    assertEquals(5L, context.getLongResult());
+  }
+
+  @Test
+  public void eventTest() {
+    RoundEventRequest round = new RoundEventRequest(3, "TStarter", 1000L, "TAggregator");
+    RunContext context = new RunContext("run1", round);
+    assertSame(round, context.getRoundEventRequest());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void wrongEventTest() {
+    new RunContext("run1", null).getEventRequest();
+  }
+}
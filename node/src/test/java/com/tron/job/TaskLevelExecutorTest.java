@@ -0,0 +1,114 @@
+package com.tron.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.tron.common.Constant;
+import com.tron.job.adapters.BaseAdapter;
+import com.tron.job.adapters.CombineAdapter;
+import com.tron.web.entity.TaskSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+
+public class TaskLevelExecutorTest {
+
+  private final TaskLevelExecutor executor = new TaskLevelExecutor(8);
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  private static TaskSpec task(long id, String type, int level) {
+    TaskSpec taskSpec = new TaskSpec();
+    taskSpec.setId(id);
+    taskSpec.setType(type);
+    taskSpec.setLevel(level);
+    return taskSpec;
+  }
+
+  /** a price source answering after 200ms, failing on a negative price. */
+  private static BaseAdapter source(double price) {
+    return new BaseAdapter() {
+      @Override
+      public String taskType() {
+        return Constant.TASK_TYPE_HTTP_GET;
+      }
+
+      @Override
+      public void perform(RunContext context) {
+        try {
+          Thread.sleep(200);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        if (price < 0) {
+          context.fail("request failed");
+        } else {
+          context.setResult(price);
+        }
+      }
+    };
+  }
+
+  private JobPipeline pipeline(double... prices) {
+    List<JobPipeline.Stage> stages = new ArrayList<>();
+    for (int i = 0; i < prices.length; i++) {
+      stages.add(new JobPipeline.Stage(task(i + 1, Constant.TASK_TYPE_HTTP_GET, 0),
+          source(prices[i])));
+    }
+    TaskSpec median = task(10, Constant.TASK_TYPE_MEDIAN, 1);
+    stages.add(new JobPipeline.Stage(median,
+        new CombineAdapter(Constant.TASK_TYPE_MEDIAN)));
+    return new JobPipeline("job1", stages);
+  }
+
+  private RunContext run(JobPipeline pipeline) {
+    RunContext context = new RunContext("run1", null);
+    for (List<JobPipeline.Stage> level : pipeline.getLevels()) {
+      executor.run(level, context, (stage, ctx) -> stage.getAdapter().perform(ctx));
+      if (!context.isOk()) {
+        break;
+      }
+    }
+    return context;
+  }
+
+  @Test
+  public void medianTest() {
+    JobPipeline pipeline = pipeline(0.11, 0.13, 0.12);
+    assertEquals(2, pipeline.getLevels().size());
+
+    long start = System.currentTimeMillis();
+    RunContext context = run(pipeline);
+    // the sources are queried concurrently
+    assertTrue(System.currentTimeMillis() - start < 550);
+    assertTrue(context.isOk());
+    assertEquals(0.12, context.getDoubleResult(), 0);
+  }
+
+  @Test
+  public void minorityFailureTest() {
+    RunContext context = run(pipeline(0.11, -1, 0.13));
+    assertTrue(context.isOk());
+    assertEquals(0.12, context.getDoubleResult(), 1e-9);
+  }
+
+  @Test
+  public void majorityFailureTest() {
+    RunContext context = run(pipeline(0.11, -1, -1));
+    assertFalse(context.isOk());
+    assertEquals("request failed", context.getMsg());
+  }
+
+  @Test
+  public void sequentialWithoutCombineTest() {
+    List<TaskSpec> taskSpecs = Arrays.asList(task(1, Constant.TASK_TYPE_HTTP_GET, 0),
+        task(2, Constant.TASK_TYPE_MULTIPLY, 0), task(3, Constant.TASK_TYPE_TRON_TX, 0));
+    assertEquals(3, JobPipeline.groupByLevel(taskSpecs).size());
+  }
+}
@@ -0,0 +1,179 @@
+package com.tron.job.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.tron.common.Constant;
+import com.tron.job.RunContext;
+import com.tron.job.adapters.AggregateAdapter;
+import com.tron.job.adapters.BaseAdapter;
+import com.tron.job.adapters.MultiplyAdapter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class AggregateAdapterTest {
+
+  @Test
+  public void testMedianSkipsFailedSource() {
+    AggregateAdapter adapter = new AggregateAdapter(Arrays.asList(
+        source("a", price(10, 0)), source("b", price(12, 0)), source("c", price(11, 0)),
+        source("d", failing())), null, null, null, null);
+    RunContext context = new RunContext("", null);
+    adapter.perform(context);
+    assertTrue(context.isOk());
+    assertEquals(11, context.getDoubleResult(), 0);
+  }
+
+  @Test
+  public void testSlowSourceIsLeftBehind() {
+    AggregateAdapter adapter = new AggregateAdapter(Arrays.asList(
+        source("fast1", price(10, 0)), source("fast2", price(20, 0)),
+        source("slow", price(1000, 5000))), 2, 200L, null, null);
+    RunContext context = new RunContext("", null);
+    long start = System.currentTimeMillis();
+    adapter.perform(context);
+    assertTrue(System.currentTimeMillis() - start < 2000);
+    assertTrue(context.isOk());
+    assertEquals(15, context.getDoubleResult(), 0);
+  }
+
+  @Test
+  public void testResultOnceQuorumAnswered() throws Exception {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    BaseAdapter slow = new BaseAdapter() {
+      @Override
+      public String taskType() {
+        return Constant.TASK_TYPE_HTTP_GET;
+      }
+
+      @Override
+      public void perform(RunContext context) {
+        try {
+          Thread.sleep(10000);
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+        context.fail("cancelled");
+      }
+    };
+    AggregateAdapter adapter = new AggregateAdapter(Arrays.asList(
+        source("fast1", price(10, 0)), source("fast2", price(20, 0)), source("slow", slow)),
+        2, 10000L, null, null);
+    RunContext context = new RunContext("", null);
+    long start = System.currentTimeMillis();
+    adapter.perform(context);
+    // not bound by the timeout, the slow source is cancelled
+    assertTrue(System.currentTimeMillis() - start < 2000);
+    assertEquals(15, context.getDoubleResult(), 0);
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testQuorumNotReached() {
+    AggregateAdapter adapter = new AggregateAdapter(Arrays.asList(
+        source("a", price(10, 0)), source("b", failing()), source("c", failing())),
+        null, null, null, null);
+    RunContext context = new RunContext("", null);
+    context.setResult(1L);
+    adapter.perform(context);
+    assertFalse(context.isOk());
+    assertEquals(1L, context.getLongResult());
+  }
+
+  @Test
+  public void testTrimmedMeanDropsOutliers() {
+    List<AggregateAdapter.Source> sources = new ArrayList<>();
+    double[] prices = {10, 11, 12, 13, 500};
+    for (int i = 0; i < prices.length; i++) {
+      sources.add(source("s" + i, price(prices[i], 0)));
+    }
+    AggregateAdapter adapter = new AggregateAdapter(sources, prices.length, null,
+        Constant.AGGREGATE_METHOD_TRIMMED_MEAN, 0.2);
+    RunContext context = new RunContext("", null);
+    adapter.perform(context);
+    assertTrue(context.isOk());
+    assertEquals(12, context.getDoubleResult(), 0);
+  }
+
+  @Test
+  public void testSourceChain() {
+    AggregateAdapter adapter = new AggregateAdapter(Collections.singletonList(
+        new AggregateAdapter.Source("chain",
+            Arrays.asList(price(1.5, 0), new MultiplyAdapter(100L)), "job", 1L)),
+        null, null, null, null);
+    RunContext context = new RunContext("", null);
+    adapter.perform(context);
+    assertTrue(context.isOk());
+    assertEquals(150, context.getNumericResult(), 0);
+  }
+
+  @Test
+  public void testSourceMetersPerTask() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    Metrics.addRegistry(registry);
+    try {
+      AggregateAdapter failing = new AggregateAdapter(Collections.singletonList(
+          new AggregateAdapter.Source("source0", Collections.singletonList(failing()), "job1",
+              1L)), 1, 1000L, null, null);
+      AggregateAdapter answering = new AggregateAdapter(Collections.singletonList(
+          new AggregateAdapter.Source("source0", Collections.singletonList(price(1, 0)), "job2",
+              2L)), 1, 1000L, null, null);
+      failing.perform(new RunContext("", null));
+      answering.perform(new RunContext("", null));
+
+      assertEquals(1, registry.get("job.aggregate.source.errors")
+          .tags("job", "job1", "source", "source0", "reason", "failed").counter().count(), 0);
+      assertEquals(0, registry.get("job.aggregate.source.errors")
+          .tags("job", "job2", "source", "source0", "reason", "failed").counter().count(), 0);
+      assertEquals(1, registry.get("job.aggregate.source.latency")
+          .tags("job", "job2", "task", "2").timer().count());
+    } finally {
+      Metrics.removeRegistry(registry);
+    }
+  }
+
+  private static AggregateAdapter.Source source(String name, BaseAdapter adapter) {
+    return new AggregateAdapter.Source(name, Collections.singletonList(adapter), "job", 1L);
+  }
+
+  private static BaseAdapter price(double value, long delay) {
+    return new BaseAdapter() {
+      @Override
+      public String taskType() {
+        return Constant.TASK_TYPE_HTTP_GET;
+      }
+
+      @Override
+      public void perform(RunContext context) {
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        context.setResult(value);
+      }
+    };
+  }
+
+  private static BaseAdapter failing() {
+    return new BaseAdapter() {
+      @Override
+      public String taskType() {
+        return Constant.TASK_TYPE_HTTP_GET;
+      }
+
+      @Override
+      public void perform(RunContext context) {
+        context.fail("request failed");
+      }
+    };
+  }
+}
@@ -1,7 +1,7 @@
 package com.tron.job.adapter;
 
 import com.tron.job.adapters.ConvertUsdtAdapter;
-import com.tron.web.common.util.R;
+import com.tron.job.RunContext;
 import org.junit.Test;
 
 public class ConvertUsdtAdapterTest {
@@ -9,10 +9,10 @@ public class ConvertUsdtAdapterTest {
   @Test
   public void testConvertUsdt() {
     ConvertUsdtAdapter convertUsdtAdapter = new ConvertUsdtAdapter();
-    R input = new R();
+    RunContext context = new RunContext("", null);
     double value = 2;
-    input.put("result", value);
-    R output = convertUsdtAdapter.perform(input);
-    System.out.println(output);
+    context.setResult(value);
+    convertUsdtAdapter.perform(context);
+    System.out.println(context);
   }
 }
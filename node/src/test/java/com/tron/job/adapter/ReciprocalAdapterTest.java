@@ -1,7 +1,7 @@
 package com.tron.job.adapter;
 
 import com.tron.job.adapters.ReciprocalAdapter;
-import com.tron.web.common.util.R;
+import com.tron.job.RunContext;
 import org.junit.Test;
 
 public class ReciprocalAdapterTest {
@@ -9,11 +9,11 @@ public class ReciprocalAdapterTest {
   @Test
   public void testReciprocal() {
     ReciprocalAdapter reciprocalAdapter = new ReciprocalAdapter();
-    R input = new R();
+    RunContext context = new RunContext("", null);
     double value = 2;
-    input.put("result", value);
-    R output = reciprocalAdapter.perform(input);
-    System.out.println(output);
+    context.setResult(value);
+    reciprocalAdapter.perform(context);
+    System.out.println(context);
   }
 
 }
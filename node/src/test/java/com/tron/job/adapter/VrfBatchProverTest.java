@@ -0,0 +1,93 @@
+package com.tron.job.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.tron.crypto.VRF;
+import com.tron.job.adapters.VrfBatchProver;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.tron.common.utils.ByteArray;
+
+public class VrfBatchProverTest {
+
+  private static String randomHex(SecureRandom random) {
+    byte[] bytes = new byte[32];
+    random.nextBytes(bytes);
+    return ByteArray.toHexString(bytes);
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    SecureRandom random = new SecureRandom();
+    BigInteger key;
+    do {
+      key = new BigInteger(VRF.groupOrder.bitLength(), random);
+    } while (key.compareTo(VRF.groupOrder) >= 0 || key.signum() == 0);
+    String privateKey = key.toString(16);
+
+    Map<String, AtomicInteger> checks = new ConcurrentHashMap<>();
+    VrfBatchProver prover = new VrfBatchProver((contractAddr, requestId) -> {
+      checks.computeIfAbsent(requestId, k -> new AtomicInteger()).incrementAndGet();
+      return CompletableFuture.completedFuture(!"fulfilled".equals(requestId));
+    }, 200, 64, 2);
+
+    String preSeed = randomHex(random);
+    CompletableFuture<byte[]> first = prover.submit("coordinator", "r1", privateKey, preSeed,
+        100, randomHex(random));
+    CompletableFuture<byte[]> again = prover.submit("coordinator", "r1", privateKey, preSeed,
+        100, randomHex(random));
+    CompletableFuture<byte[]> second = prover.submit("coordinator", "r2", privateKey,
+        randomHex(random), 101, randomHex(random));
+    CompletableFuture<byte[]> fulfilled = prover.submit("coordinator", "fulfilled", privateKey,
+        randomHex(random), 102, randomHex(random));
+
+    assertEquals(VRF.ProofLength + 32, first.get(10, TimeUnit.SECONDS).length);
+    assertEquals(VRF.ProofLength + 32, again.get(10, TimeUnit.SECONDS).length);
+    byte[] response = second.get(10, TimeUnit.SECONDS);
+    assertEquals(VRF.ProofLength + 32, response.length);
+    // the seed of the request and the block number are sent back
+    assertEquals(101, new BigInteger(1, Arrays.copyOfRange(response, 416, 448)).longValue());
+    try {
+      fulfilled.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    // the fulfilment of a request is checked once per batch
+    assertEquals(1, checks.get("r1").get());
+    prover.shutdown();
+  }
+
+  @Test
+  public void testCancelledRequestIsSkipped() throws Exception {
+    AtomicInteger checks = new AtomicInteger();
+    VrfBatchProver prover = new VrfBatchProver((contractAddr, requestId) -> {
+      checks.incrementAndGet();
+      return CompletableFuture.completedFuture(true);
+    }, 200, 64, 1);
+
+    CompletableFuture<byte[]> cancelled = prover.submit("coordinator", "r1", "01", "00", 100,
+        "00");
+    cancelled.cancel(false);
+    CompletableFuture<byte[]> failed = prover.submit("coordinator", "r2", "not a key", "00", 101,
+        "00");
+    try {
+      failed.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      // the batch is done
+    }
+    assertEquals(1, checks.get());
+    prover.shutdown();
+  }
+}
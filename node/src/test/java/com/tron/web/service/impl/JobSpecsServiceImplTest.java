@@ -0,0 +1,101 @@
+package com.tron.web.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.tron.common.Constant;
+import com.tron.common.TronException;
+import com.tron.web.entity.InitiatorRequest;
+import com.tron.web.entity.JobSpec;
+import com.tron.web.entity.JobSpecRequest;
+import com.tron.web.entity.TaskParams;
+import com.tron.web.entity.TaskSpecRequest;
+import com.tron.web.mapper.InitiatorMapper;
+import com.tron.web.mapper.JobSpecsMapper;
+import com.tron.web.mapper.TaskSpecsMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobSpecsServiceImplTest {
+
+  @InjectMocks
+  private JobSpecsServiceImpl jobSpecsService;
+
+  @Mock
+  private JobSpecsMapper jobSpecsMapper;
+  @Mock
+  private InitiatorMapper initiatorMapper;
+  @Mock
+  private TaskSpecsMapper taskSpecsMapper;
+
+  @Test
+  public void unsortedLevelsTest() throws TronException {
+    when(jobSpecsMapper.insert(any())).thenReturn(1);
+    // the combine task is listed first, the tasks it combines are split around it
+    JobSpec jobSpec = jobSpecsService.insert(request(
+        task(Constant.TASK_TYPE_MEDIAN, 1),
+        httpGet("https://a.b/price", 0),
+        task(Constant.TASK_TYPE_MULTIPLY, 2),
+        httpGet("https://c.d/price", 0)));
+
+    assertNotNull(jobSpec);
+    assertEquals(4, jobSpec.getTaskSpecs().size());
+    verify(taskSpecsMapper).insertList(jobSpec.getTaskSpecs());
+  }
+
+  @Test
+  public void missingCombineTaskTest() {
+    try {
+      jobSpecsService.insert(request(
+          task(Constant.TASK_TYPE_MULTIPLY, 1),
+          httpGet("https://a.b/price", 0),
+          task(Constant.TASK_TYPE_MEDIAN, 2),
+          httpGet("https://c.d/price", 0)));
+      fail();
+    } catch (TronException e) {
+      assertEquals("tasks of level 0 must be followed by a median or mean task", e.getMessage());
+    }
+  }
+
+  private static JobSpecRequest request(TaskSpecRequest... tasks) {
+    InitiatorRequest initiator = new InitiatorRequest();
+    initiator.setType(Constant.INITIATOR_TYPE_RUN_LOG);
+    InitiatorRequest.Params params = initiator.new Params();
+    params.setAddress("TEvhwsBJuDJHRSBEe3uQcGxo1gYd1anjCk");
+    initiator.setParams(params);
+
+    JobSpecRequest request = new JobSpecRequest();
+    request.setInitiators(Collections.singletonList(initiator));
+    request.setTasks(new ArrayList<>(Arrays.asList(tasks)));
+    return request;
+  }
+
+  private static TaskSpecRequest httpGet(String url, int level) {
+    TaskSpecRequest task = task(Constant.TASK_TYPE_HTTP_GET, level);
+    task.getParams().setGet(url);
+    task.getParams().setPath("price");
+    return task;
+  }
+
+  private static TaskSpecRequest task(String type, int level) {
+    TaskSpecRequest task = new TaskSpecRequest();
+    task.setType(type);
+    task.setLevel(level);
+    task.setParams(new TaskParams());
+    if (Constant.TASK_TYPE_MULTIPLY.equals(type)) {
+      task.getParams().setTimes(1000000L);
+    }
+    return task;
+  }
+}